@@ -0,0 +1,29 @@
+package de.rwth_aachen.itc.jflashcard.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of the benchmark jar. Takes the usual JMH command line
+ * options, but always adds the GC profiler (allocation rate) and the
+ * {@link PeakHeapProfiler}, so every result has throughput, allocation rate and
+ * peak heap.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class BenchmarkRunner {
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		Options options = new OptionsBuilder().parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.addProfiler(PeakHeapProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,59 @@
+package de.rwth_aachen.itc.jflashcard.benchmarks;
+
+import java.util.Random;
+
+import de.rwth_aachen.itc.jflashcard.Flashcard;
+import de.rwth_aachen.itc.jflashcard.FlashcardStore;
+
+/**
+ * Generates the decks the benchmarks work on. The decks are reproducible (same
+ * size, same cards) and look roughly like real vocabulary: short words on the
+ * first side, a longer explanation with the occasional umlaut on the second
+ * one, and some texts repeated across cards.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class Decks {
+	private static final String[] SYLLABLES = { "ka", "ter", "men", "lo", "schu", "ri", "bau", "ge", "ne", "stra",
+			"\u00e4", "\u00fc", "\u00f6", "\u00dfen", "in", "fa", "do", "sel" };
+
+	private Decks() {
+	}
+
+	/**
+	 * Generates a deck.
+	 *
+	 * @param size The number of flashcards.
+	 * @param seed The seed, the same seed and size always give the same deck.
+	 * @return The deck.
+	 */
+	public static FlashcardStore generate(int size, long seed) {
+		Random random = new Random(seed);
+		FlashcardStore deck = new FlashcardStore();
+		for (int i = 0; i < size; i++) {
+			String side1 = word(random, 2 + random.nextInt(3));
+			StringBuilder side2 = new StringBuilder();
+			int words = 3 + random.nextInt(10);
+			for (int w = 0; w < words; w++) {
+				if (w > 0) {
+					side2.append(' ');
+				}
+				side2.append(word(random, 1 + random.nextInt(4)));
+			}
+			// Every tenth card shares its answer with another one, like synonyms do.
+			deck.add(new Flashcard(side1, i % 10 == 0 ? "siehe " + word(random, 2) : side2.toString()));
+		}
+		deck.trimToSize();
+		return deck;
+	}
+
+	private static String word(Random random, int syllables) {
+		StringBuilder sb = new StringBuilder();
+		for (int s = 0; s < syllables; s++) {
+			sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return sb.toString();
+	}
+}
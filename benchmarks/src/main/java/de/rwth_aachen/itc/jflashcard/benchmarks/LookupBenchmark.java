@@ -0,0 +1,91 @@
+package de.rwth_aachen.itc.jflashcard.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.rwth_aachen.itc.jflashcard.DeckOrder;
+import de.rwth_aachen.itc.jflashcard.Flashcard;
+import de.rwth_aachen.itc.jflashcard.FlashcardStore;
+import de.rwth_aachen.itc.jflashcard.IdIndex;
+
+/**
+ * Measures finding a card in its group, which the GUI does after every edit
+ * and deletion, and stepping to the next card of a shuffled deck. scan is the
+ * linear search the GUI used to do (findMatchingFlashcard) and serves as the
+ * baseline for {@link IdIndex}.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	private int size;
+
+	private FlashcardStore deck;
+	private IdIndex positions;
+	private DeckOrder order;
+	private long[] ids;
+	private int next;
+	private int position;
+
+	@Setup(Level.Trial)
+	public void createDeck() {
+		deck = Decks.generate(size, 42);
+		positions = IdIndex.of(deck);
+		order = new DeckOrder(size);
+		order.shuffle(new Random(42));
+		// The cards to look up, in random order so the caches don't help.
+		Random random = new Random(7);
+		ids = new long[1024];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = deck.getId(random.nextInt(size));
+		}
+	}
+
+	@Benchmark
+	public int index() {
+		return positions.get(nextId());
+	}
+
+	@Benchmark
+	public int scan() {
+		long id = nextId();
+		for (int i = 0; i < deck.size(); i++) {
+			if (deck.getId(i) == id) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Benchmark
+	public Flashcard nextCard() {
+		position = position + 1 == size ? 0 : position + 1;
+		return deck.get(order.get(position));
+	}
+
+	private long nextId() {
+		next = (next + 1) & (ids.length - 1);
+		return ids[next];
+	}
+}
@@ -0,0 +1,67 @@
+package de.rwth_aachen.itc.jflashcard.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.rwth_aachen.itc.jflashcard.DeckOrder;
+import de.rwth_aachen.itc.jflashcard.Flashcard;
+
+/**
+ * Measures shuffling and restoring the initial order. copyAndShuffle is what
+ * the GUI used to do (copy the list of cards, then shuffle the copy) and serves
+ * as the baseline for {@link DeckOrder}.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	private int size;
+
+	private List<Flashcard> deck;
+	private DeckOrder order;
+	private final Random random = new Random(42);
+
+	@Setup(Level.Trial)
+	public void createDeck() {
+		deck = Decks.generate(size, 42);
+		order = new DeckOrder(size);
+	}
+
+	@Benchmark
+	public DeckOrder shuffleAndUnshuffle() {
+		order.shuffle(random);
+		order.unshuffle();
+		return order;
+	}
+
+	@Benchmark
+	public List<Flashcard> copyAndShuffle() {
+		List<Flashcard> copy = new ArrayList<>(deck);
+		Collections.shuffle(copy, random);
+		return copy;
+	}
+}
@@ -0,0 +1,75 @@
+package de.rwth_aachen.itc.jflashcard.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.rwth_aachen.itc.jflashcard.BinaryHandler;
+import de.rwth_aachen.itc.jflashcard.Flashcard;
+import de.rwth_aachen.itc.jflashcard.XMLHandler;
+
+/**
+ * Measures how fast groups get read from XML and binary files. The files get
+ * written once per trial, so they are in the page cache and the benchmark
+ * measures parsing rather than the disk.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadBenchmark {
+	@Param({ "1000", "10000", "100000", "1000000" })
+	private int size;
+
+	private File xml;
+	private File binary;
+
+	@Setup(Level.Trial)
+	public void writeFiles() throws IOException {
+		List<Flashcard> deck = Decks.generate(size, 42);
+		xml = Files.createTempFile("jflashcard-bench", ".xml").toFile();
+		binary = Files.createTempFile("jflashcard-bench", ".jfc").toFile();
+		XMLHandler.writeFlashcardList(deck, xml);
+		BinaryHandler.writeFlashcardList(deck, binary);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		xml.delete();
+		binary.delete();
+	}
+
+	@Benchmark
+	public List<Flashcard> readXML() throws IOException, XMLStreamException {
+		return XMLHandler.readFlashcardList(xml);
+	}
+
+	@Benchmark
+	public List<Flashcard> readBinary() throws IOException {
+		return BinaryHandler.readFlashcardList(binary);
+	}
+}
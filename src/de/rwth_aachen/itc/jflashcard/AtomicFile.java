@@ -0,0 +1,113 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Replaces files in a crash-safe way. The new content gets written to a
+ * temporary file of its own next to the target through a buffered channel,
+ * forced to the disk and then renamed over the target, and the rename gets
+ * forced to the disk as well where the platform allows it. If anything goes
+ * wrong on the way, the old file stays untouched.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class AtomicFile {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Writes the content of a file to a stream.
+	 */
+	public interface Content {
+		/**
+		 * Writes the content. The stream must not be closed by the implementation.
+		 *
+		 * @param out The (buffered) stream to write to.
+		 * @throws IOException If writing fails.
+		 */
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	/**
+	 * Replaces the target file with the given content.
+	 *
+	 * @param target  The file to replace (or create).
+	 * @param content Writes the new content.
+	 * @throws IOException If the content couldn't be written. The target file is
+	 *                     unchanged in that case.
+	 */
+	public static void write(File target, Content content) throws IOException {
+		Path targetPath = target.toPath().toAbsolutePath();
+		Path directory = targetPath.getParent();
+		// Same directory, otherwise the rename can't be atomic. A name of its own, so
+		// two writers of the same target don't write into each other's file.
+		Path temp = Files.createTempFile(directory, targetPath.getFileName() + ".", ".tmp");
+		boolean done = false;
+		try {
+			keepPermissions(targetPath, temp);
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+				content.writeTo(out);
+				out.flush();
+				// Make sure the data is on the disk before the rename makes it visible.
+				channel.force(true);
+			}
+			try {
+				Files.move(temp, targetPath, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			done = true;
+		} finally {
+			if (!done) {
+				Files.deleteIfExists(temp);
+			}
+		}
+		forceDirectory(directory);
+	}
+
+	/*
+	 * A temporary file may only be read by its owner. The new content gets the
+	 * permissions of the file it replaces, a new file can be read by everybody.
+	 */
+	private static void keepPermissions(Path target, Path temp) throws IOException {
+		if (!Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			return;
+		}
+		Set<PosixFilePermission> permissions;
+		try {
+			permissions = Files.getPosixFilePermissions(target);
+		} catch (NoSuchFileException nsfe) {
+			permissions = PosixFilePermissions.fromString("rw-r--r--");
+		}
+		Files.setPosixFilePermissions(temp, permissions);
+	}
+
+	/*
+	 * Makes sure the rename is on the disk, otherwise a crash may bring the old
+	 * file back. Not every platform can open a directory, Windows can't.
+	 */
+	private static void forceDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ioe) {
+			// The file is replaced, just not necessarily on the disk yet.
+		}
+	}
+}
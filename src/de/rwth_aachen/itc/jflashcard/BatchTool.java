@@ -0,0 +1,742 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.text.Collator;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A command line tool for processing many group files at once, e.g. on a server
+ * without a display. It doesn't use SWT at all. The tasks of this class are:
+ * <ul>
+ * <li>Validate groups and count their cards, streaming through the files
+ * without keeping the cards in memory,</li>
+ * <li>Convert groups between XML, gzip-compressed XML and the binary format,</li>
+ * <li>Pack groups into zip containers and unpack them again,</li>
+ * <li>Sort the cards of groups and remove duplicate cards,</li>
+ * <li>Merge several groups into one,</li>
+ * <li>Compare two versions of a group and merge them, optionally with the
+ * version both started from,</li>
+ * <li>Find duplicate and nearly duplicate cards within and across groups,</li>
+ * <li>Import cards from CSV and TSV files,</li>
+ * <li>Evaluate the history of the answers given in study mode,</li>
+ * <li>List libraries (directories of groups) through their catalog and check
+ * the groups against their checksums.</li>
+ * </ul>
+ * The files get processed in parallel, the results are printed in the order
+ * the files were given. Groups with a journal (unsaved changes made in the GUI)
+ * don't get modified, as the journal refers to the positions of the cards.
+ * <p>
+ * Usage: {@code java -cp jflashcard.jar de.rwth_aachen.itc.jflashcard.BatchTool
+ * [-j threads] command files...}
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class BatchTool {
+	/**
+	 * The exit code if everything went fine.
+	 */
+	public static final int EXIT_OK = 0;
+	/**
+	 * The exit code if at least one file couldn't be processed or isn't valid.
+	 */
+	public static final int EXIT_FAILED = 1;
+	/**
+	 * The exit code if the command line is wrong.
+	 */
+	public static final int EXIT_USAGE = 2;
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Aufruf: BatchTool [-j Threads] Befehl Dateien...",
+			"Befehle:",
+			"  validate Dateien...         prft, ob die Gruppen lesbar sind, und meldet leere Seiten und doppelte IDs",
+			"  count Dateien...            zhlt die Karteikarten jeder Gruppe",
+			"  convert xml|xml.gz|jfc Dateien...",
+			"                              konvertiert die Gruppen in das angegebene Format (neben die Originale)",
+			"  sort Dateien...             sortiert die Karteikarten nach Seite 1, dann nach Seite 2",
+			"  dedupe Dateien...           entfernt Karteikarten, deren beide Seiten schon einmal vorkommen",
+			"  merge Ziel Dateien...       fgt die Gruppen zu einer neuen Gruppe zusammen",
+			"  pack Container.zip Dateien...",
+			"                              packt die Gruppen in einen neuen Zip-Container",
+			"  unpack Container.zip...     entpackt die Gruppen der Container neben die Container",
+			"  diff [-b Basis] Unsere Ihre",
+			"                              zeigt, was in Ihre anders ist (mit -b: was Ihre seit Basis gendert hat)",
+			"  reconcile [-b Basis] Ziel Unsere Ihre",
+			"                              gleicht zwei Versionen einer Gruppe ab und schreibt das Ergebnis nach Ziel",
+			"  library Ordner...           listet die Gruppen der Bibliotheken auf und prft ihre Prfsummen",
+			"  duplicates Dateien...       findet doppelte und fast gleiche Karteikarten in allen Gruppen (auch Ordner)",
+			"  import [-d ,|;|tab] [-e Kodierung] [-k] Gruppe Dateien...",
+			"                              importiert CSV-Dateien in die Gruppe (-k: erste Zeile ist eine berschrift)",
+			"  stats Dateien...            wertet den Lernverlauf der Gruppen aus (letzte Tage, schwierigste Karteikarten)",
+			"Die Dateien werden parallel verarbeitet, standardmig mit einem Thread pro Prozessorkern.");
+
+	/*
+	 * Processes one file and returns the line to print for it. A failure gets
+	 * reported as an exception.
+	 */
+	private interface FileTask {
+		String run(File file) throws IOException;
+	}
+
+	private BatchTool() {
+	}
+
+	/**
+	 * The entry point of the command line tool.
+	 *
+	 * @param args The command line, see {@link #run(String[], PrintStream, PrintStream)}.
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	/**
+	 * Runs a command.
+	 *
+	 * @param args The options, the command and its arguments.
+	 * @param out  Receives the results.
+	 * @param err  Receives errors and the usage.
+	 * @return The exit code ({@link #EXIT_OK}, {@link #EXIT_FAILED} or
+	 *         {@link #EXIT_USAGE}).
+	 */
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int next = 0;
+		if (args.length >= 2 && args[0].equals("-j")) {
+			try {
+				threads = Integer.parseInt(args[1]);
+			} catch (NumberFormatException nfe) {
+				threads = 0;
+			}
+			if (threads < 1) {
+				err.println("Ungltige Anzahl Threads: " + args[1]);
+				return EXIT_USAGE;
+			}
+			next = 2;
+		}
+		if (args.length - next < 2) {
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		String command = args[next];
+		List<File> files = toFiles(args, next + 1);
+		switch (command) {
+		case "validate":
+			return forEachFile(files, threads, BatchTool::validate, out, err);
+		case "count":
+			return forEachFile(files, threads, BatchTool::count, out, err);
+		case "convert":
+			String extension = "." + args[next + 1].toLowerCase(Locale.ROOT);
+			if (!extension.equals(GroupIO.XML_EXTENSION) && !extension.equals(GroupIO.GZIP_EXTENSION)
+					&& !extension.equals(GroupIO.BINARY_EXTENSION)) {
+				err.println("Unbekanntes Format: " + args[next + 1]);
+				err.println(USAGE);
+				return EXIT_USAGE;
+			}
+			return forEachFile(toFiles(args, next + 2), threads, file -> convert(file, extension), out, err);
+		case "sort":
+			return forEachFile(files, threads, BatchTool::sort, out, err);
+		case "dedupe":
+			return forEachFile(files, threads, BatchTool::dedupe, out, err);
+		case "merge":
+			if (files.size() < 2) {
+				err.println(USAGE);
+				return EXIT_USAGE;
+			}
+			return merge(files.get(0), files.subList(1, files.size()), threads, out, err);
+		case "pack":
+			if (files.size() < 2) {
+				err.println(USAGE);
+				return EXIT_USAGE;
+			}
+			return pack(files.get(0), files.subList(1, files.size()), threads, out, err);
+		case "unpack":
+			return forEachFile(files, threads, BatchTool::unpack, out, err);
+		case "diff":
+			return compare(args, next + 1, false, out, err);
+		case "reconcile":
+			return compare(args, next + 1, true, out, err);
+		case "library":
+			return library(files, out, err);
+		case "duplicates":
+			return duplicates(files, threads, out, err);
+		case "import":
+			return importCsv(args, next + 1, out, err);
+		case "stats":
+			return forEachFile(files, threads, BatchTool::stats, out, err);
+		default:
+			err.println("Unbekannter Befehl: " + command);
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+	}
+
+	private static List<File> toFiles(String[] args, int from) {
+		List<File> files = new ArrayList<>();
+		for (int i = from; i < args.length; i++) {
+			files.add(new File(args[i]));
+		}
+		return files;
+	}
+
+	/*
+	 * Runs the task for all files on a pool of threads and prints the results in
+	 * the order of the files as soon as they are available.
+	 */
+	private static int forEachFile(List<File> files, int threads, FileTask task, PrintStream out,
+			PrintStream err) {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(files.size(), 1)));
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (File file : files) {
+				results.add(pool.submit(() -> task.run(file)));
+			}
+			int exitCode = EXIT_OK;
+			for (int i = 0; i < files.size(); i++) {
+				try {
+					out.println(files.get(i) + ": " + results.get(i).get());
+				} catch (ExecutionException ee) {
+					err.println(files.get(i) + ": FEHLER: " + ee.getCause().getLocalizedMessage());
+					exitCode = EXIT_FAILED;
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return EXIT_FAILED;
+				}
+			}
+			return exitCode;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Streams through the group and checks every card. Problems with single cards
+	 * make the group invalid, but don't stop the check.
+	 */
+	private static String validate(File file) throws IOException {
+		checkExists(file);
+		IdIndex ids = new IdIndex(1024);
+		int[] counts = new int[3]; // cards, empty sides, duplicate IDs
+		GroupIO.stream(file, f -> {
+			counts[0]++;
+			if (f.getSide1().isEmpty() || f.getSide2().isEmpty()) {
+				counts[1]++;
+			}
+			if (ids.get(f.getId()) >= 0) {
+				counts[2]++;
+			} else {
+				ids.put(f.getId(), counts[0]);
+			}
+		}, new Progress());
+		if (counts[1] > 0 || counts[2] > 0) {
+			throw new IOException(counts[0] + " Karteikarten, davon " + counts[1] + " mit leerer Seite und "
+					+ counts[2] + " mit doppelter ID");
+		}
+		return "OK, " + counts[0] + " Karteikarten";
+	}
+
+	private static String count(File file) throws IOException {
+		checkExists(file);
+		long[] count = new long[1];
+		GroupIO.stream(file, f -> count[0]++, new Progress());
+		return count[0] + " Karteikarten";
+	}
+
+	/*
+	 * Sums up the history of the group: the totals, the days of the last week with
+	 * answers and the hardest cards, one per line.
+	 */
+	private static String stats(File file) throws IOException {
+		checkExists(file);
+		if (!ReviewLog.getLogFile(file).isFile()) {
+			return "kein Lernverlauf";
+		}
+		ReviewLog.Statistics s = ReviewLog.computeStatistics(file, GroupIO.read(file), 7, 10, ZoneId.systemDefault());
+		StringBuilder sb = new StringBuilder();
+		sb.append(s.getReviews()).append(" Antworten zu ").append(s.getReviewedCards()).append(" Karteikarten, ")
+				.append(percent(s.getPassed(), s.getReviews())).append(" gewusst, durchschnittlich ")
+				.append(s.getAverageResponseMillis()).append(" ms");
+		if (s.getInvalid() > 0) {
+			sb.append(", ").append(s.getInvalid()).append(" beschdigte Eintrge");
+		}
+		for (int d = s.getDays() - 1; d >= 0; d--) {
+			if (s.getDayReviews(d) > 0) {
+				sb.append(System.lineSeparator()).append("  ").append(s.getFirstDay().plusDays(d)).append(": ")
+						.append(s.getDayReviews(d)).append(" Antworten, ")
+						.append(percent(s.getDayPassed(d), s.getDayReviews(d))).append(" gewusst");
+			}
+		}
+		for (int index : s.getHardest()) {
+			sb.append(System.lineSeparator()).append("  schwierig: ").append(describe(s.getFlashcard(index)))
+					.append(" (").append(s.getPassed(index)).append(" von ").append(s.getReviews(index))
+					.append(" gewusst)");
+		}
+		return sb.toString();
+	}
+
+	private static String percent(long part, long whole) {
+		return (whole > 0 ? Math.round(100.0 * part / whole) : 0) + " %";
+	}
+
+	private static String convert(File file, String extension) throws IOException {
+		checkExists(file);
+		File target = new File(file.getParentFile(), groupName(file) + extension);
+		if (target.equals(file)) {
+			return "bereits im Format " + extension;
+		}
+		GroupIO.convert(file, target);
+		return "konvertiert nach " + target;
+	}
+
+	private static String sort(File file) throws IOException {
+		checkModifiable(file);
+		List<Flashcard> flashcards = GroupIO.read(file);
+		Flashcard[] sorted = flashcards.toArray(new Flashcard[0]);
+		// A collator sorts umlauts like German dictionaries do. It isn't thread-safe,
+		// so every file gets its own.
+		Collator collator = Collator.getInstance(Locale.GERMAN);
+		Comparator<Flashcard> bySide1 = Comparator.comparing(Flashcard::getSide1, collator);
+		Arrays.sort(sorted, bySide1.thenComparing(Flashcard::getSide2, collator));
+		GroupIO.write(Arrays.asList(sorted), file);
+		return sorted.length + " Karteikarten sortiert";
+	}
+
+	private static String dedupe(File file) throws IOException {
+		checkModifiable(file);
+		List<Flashcard> flashcards = GroupIO.read(file);
+		Set<List<String>> seen = new HashSet<>();
+		FlashcardStore unique = new FlashcardStore(flashcards.size());
+		for (Flashcard f : flashcards) {
+			if (seen.add(List.of(f.getSide1(), f.getSide2()))) {
+				unique.add(f);
+			}
+		}
+		int removed = flashcards.size() - unique.size();
+		if (removed > 0) {
+			GroupIO.write(unique, file);
+		}
+		return removed + " doppelte Karteikarten entfernt, " + unique.size() + " brig";
+	}
+
+	/*
+	 * Reads the sources in parallel and writes their cards into the target in the
+	 * order the sources were given. Cards with the same ID (copies of the same
+	 * group) only get taken once.
+	 */
+	private static int merge(File target, List<File> sources, int threads, PrintStream out, PrintStream err) {
+		if (target.exists()) {
+			err.println(target + ": FEHLER: Die Zieldatei existiert bereits.");
+			return EXIT_FAILED;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, sources.size()));
+		try {
+			List<Future<List<Flashcard>>> results = new ArrayList<>();
+			for (File source : sources) {
+				Callable<List<Flashcard>> read = () -> {
+					checkExists(source);
+					return GroupIO.read(source);
+				};
+				results.add(pool.submit(read));
+			}
+			IdIndex ids = new IdIndex(1024);
+			FlashcardStore merged = new FlashcardStore();
+			for (int i = 0; i < sources.size(); i++) {
+				try {
+					int added = 0;
+					for (Flashcard f : results.get(i).get()) {
+						if (ids.get(f.getId()) < 0) {
+							ids.put(f.getId(), merged.size());
+							merged.add(f);
+							added++;
+						}
+					}
+					out.println(sources.get(i) + ": " + added + " Karteikarten bernommen");
+				} catch (ExecutionException ee) {
+					// Better no target than one that silently lacks a group.
+					err.println(sources.get(i) + ": FEHLER: " + ee.getCause().getLocalizedMessage());
+					return EXIT_FAILED;
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return EXIT_FAILED;
+				}
+			}
+			GroupIO.write(merged, target);
+			out.println(target + ": " + merged.size() + " Karteikarten geschrieben");
+			return EXIT_OK;
+		} catch (IOException ioe) {
+			err.println(target + ": FEHLER: " + ioe.getLocalizedMessage());
+			return EXIT_FAILED;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Reads the groups in parallel and packs them into a new zip container, one
+	 * entry per group, named like its file.
+	 */
+	private static int pack(File target, List<File> sources, int threads, PrintStream out, PrintStream err) {
+		if (!GroupIO.isContainer(target)) {
+			err.println(target + ": FEHLER: Der Name des Containers muss auf " + GroupIO.CONTAINER_EXTENSION
+					+ " enden.");
+			return EXIT_USAGE;
+		}
+		if (target.exists()) {
+			err.println(target + ": FEHLER: Die Zieldatei existiert bereits.");
+			return EXIT_FAILED;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, sources.size()));
+		try {
+			List<Future<List<Flashcard>>> results = new ArrayList<>();
+			for (File source : sources) {
+				Callable<List<Flashcard>> read = () -> {
+					checkExists(source);
+					return GroupIO.read(source);
+				};
+				results.add(pool.submit(read));
+			}
+			Map<String, List<Flashcard>> groups = new LinkedHashMap<>();
+			for (int i = 0; i < sources.size(); i++) {
+				String name = groupName(sources.get(i));
+				try {
+					if (groups.containsKey(name)) {
+						err.println(sources.get(i) + ": FEHLER: Der Container enthlt schon eine Gruppe \"" + name
+								+ "\".");
+						return EXIT_FAILED;
+					}
+					List<Flashcard> flashcards = results.get(i).get();
+					groups.put(name, flashcards);
+					out.println(sources.get(i) + ": " + flashcards.size() + " Karteikarten bernommen");
+				} catch (ExecutionException ee) {
+					err.println(sources.get(i) + ": FEHLER: " + ee.getCause().getLocalizedMessage());
+					return EXIT_FAILED;
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return EXIT_FAILED;
+				}
+			}
+			GroupIO.writeContainer(groups, target, new Progress());
+			out.println(target + ": " + groups.size() + " Gruppen geschrieben");
+			return EXIT_OK;
+		} catch (IOException ioe) {
+			err.println(target + ": FEHLER: " + ioe.getLocalizedMessage());
+			return EXIT_FAILED;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Writes every group of a container into an XML group file next to it. All
+	 * targets get checked first, so a container is unpacked completely or not at
+	 * all.
+	 */
+	private static String unpack(File container) throws IOException {
+		checkExists(container);
+		if (!GroupIO.isContainer(container)) {
+			throw new IOException("Die Datei ist kein Zip-Container.");
+		}
+		Map<String, List<Flashcard>> groups = GroupIO.readContainer(container, new Progress());
+		File directory = container.getAbsoluteFile().getParentFile();
+		String prefix = directory.getCanonicalPath() + File.separator;
+		List<File> targets = new ArrayList<>();
+		for (String name : groups.keySet()) {
+			File target = new File(directory, name + GroupIO.XML_EXTENSION);
+			// Entries like "../name.xml" must not end up outside of the directory.
+			if (!target.getCanonicalPath().startsWith(prefix)) {
+				throw new IOException("Ungltiger Gruppenname im Container: " + name);
+			}
+			if (target.exists()) {
+				throw new IOException(target + " existiert bereits.");
+			}
+			targets.add(target);
+		}
+		int i = 0;
+		for (List<Flashcard> flashcards : groups.values()) {
+			File target = targets.get(i++);
+			target.getParentFile().mkdirs();
+			GroupIO.write(flashcards, target);
+		}
+		return groups.size() + " Gruppen entpackt";
+	}
+
+	/*
+	 * Lists the groups of every library and checks them against their checksums.
+	 * The groups of a library get read in parallel by the library itself.
+	 */
+	private static int library(List<File> directories, PrintStream out, PrintStream err) {
+		int exitCode = EXIT_OK;
+		for (File directory : directories) {
+			try {
+				if (!directory.isDirectory()) {
+					throw new IOException("Der Ordner existiert nicht.");
+				}
+				Library library = Library.load(directory, null, new Progress());
+				List<Library.Group> changed = library.verify(new Progress());
+				out.println(directory + ": " + library.getGroups().size() + " Gruppen, " + library.getCardCount()
+						+ " Karteikarten");
+				for (Library.Group group : library.getGroups()) {
+					if (group.getError() != null) {
+						err.println(group.getFile() + ": FEHLER: " + group.getError().getLocalizedMessage());
+						exitCode = EXIT_FAILED;
+					} else {
+						out.println("  " + group.getName() + ": " + group.getCardCount() + " Karteikarten"
+								+ (changed.contains(group) ? " (Prfsumme gendert)" : "") + ", " + group.getPreview());
+					}
+				}
+			} catch (IOException ioe) {
+				err.println(directory + ": FEHLER: " + ioe.getLocalizedMessage());
+				exitCode = EXIT_FAILED;
+			}
+		}
+		return exitCode;
+	}
+
+	/*
+	 * Reads all groups in parallel and looks for duplicates across all of them.
+	 * Directories stand for all groups in them.
+	 */
+	private static int duplicates(List<File> arguments, int threads, PrintStream out, PrintStream err) {
+		List<File> files = new ArrayList<>();
+		for (File file : arguments) {
+			try {
+				if (file.isDirectory()) {
+					files.addAll(Library.discover(file));
+				} else {
+					checkExists(file);
+					files.add(file);
+				}
+			} catch (IOException ioe) {
+				err.println(file + ": FEHLER: " + ioe.getLocalizedMessage());
+				return EXIT_FAILED;
+			}
+		}
+		if (files.isEmpty()) {
+			out.println("Keine Gruppen gefunden");
+			return EXIT_OK;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+		try {
+			List<Future<List<Flashcard>>> results = new ArrayList<>();
+			for (File file : files) {
+				Callable<List<Flashcard>> read = () -> GroupIO.read(file);
+				results.add(pool.submit(read));
+			}
+			List<List<Flashcard>> sources = new ArrayList<>();
+			for (int i = 0; i < files.size(); i++) {
+				try {
+					sources.add(results.get(i).get());
+				} catch (ExecutionException ee) {
+					// Duplicates of the cards in this group would be missing.
+					err.println(files.get(i) + ": FEHLER: " + ee.getCause().getLocalizedMessage());
+					return EXIT_FAILED;
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return EXIT_FAILED;
+				}
+			}
+			List<DuplicateFinder.Cluster> clusters = DuplicateFinder.findAcross(sources,
+					DuplicateFinder.DEFAULT_THRESHOLD, new Progress());
+			for (int c = 0; c < clusters.size(); c++) {
+				DuplicateFinder.Cluster cluster = clusters.get(c);
+				out.println("Duplikat " + (c + 1) + " (" + (cluster.isExact() ? "exakt gleich" : "hnlich") + "):");
+				for (DuplicateFinder.Duplicate d : cluster.getMembers()) {
+					out.println("  " + files.get(d.getSource()) + ", Nr. " + (d.getPosition() + 1) + ": "
+							+ oneLine(d.getFlashcard().getSide1()) + " = " + oneLine(d.getFlashcard().getSide2()));
+				}
+			}
+			out.println(clusters.size() + " Duplikate gefunden");
+			return EXIT_OK;
+		} catch (IOException ioe) {
+			err.println("FEHLER: " + ioe.getLocalizedMessage());
+			return EXIT_FAILED;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Imports the CSV files one after the other into the group. Delimiter and
+	 * encoding get guessed from every file unless they are given.
+	 */
+	private static int importCsv(String[] args, int from, PrintStream out, PrintStream err) {
+		Character delimiter = null;
+		Charset charset = null;
+		boolean header = false;
+		int i = from;
+		try {
+			for (; i < args.length && args[i].startsWith("-"); i++) {
+				if (args[i].equals("-k")) {
+					header = true;
+				} else if (args[i].equals("-d") && i + 1 < args.length) {
+					String d = args[++i];
+					delimiter = d.equalsIgnoreCase("tab") ? '\t' : d.length() == 1 ? d.charAt(0) : null;
+					if (delimiter == null || delimiter == '"') {
+						err.println("Ungltiges Trennzeichen: " + d);
+						return EXIT_USAGE;
+					}
+				} else if (args[i].equals("-e") && i + 1 < args.length) {
+					charset = Charset.forName(args[++i]);
+				} else {
+					err.println("Unbekannte Option: " + args[i]);
+					err.println(USAGE);
+					return EXIT_USAGE;
+				}
+			}
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException ice) {
+			err.println("Unbekannte Kodierung: " + args[i]);
+			return EXIT_USAGE;
+		}
+		if (args.length - i < 2) {
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		File group = new File(args[i]);
+		int exitCode = EXIT_OK;
+		for (File source : toFiles(args, i + 1)) {
+			try {
+				checkExists(source);
+				if (group.exists()) {
+					checkModifiable(group);
+				}
+				Charset c = charset != null ? charset : CsvImporter.guessCharset(source);
+				char d = delimiter != null ? delimiter : CsvReader.guessDelimiter(source, c);
+				CsvImporter.Report report = CsvImporter.importInto(source, c, d, header, group, new Progress());
+				out.println(source + ": " + report.getImported() + " Karteikarten importiert, "
+						+ report.getErrorCount() + " Zeilen fehlerhaft");
+				for (String error : report.getErrors()) {
+					err.println(source + ", " + error);
+				}
+				if (report.getErrorCount() > report.getErrors().size()) {
+					err.println(source + ": " + (report.getErrorCount() - report.getErrors().size())
+							+ " weitere fehlerhafte Zeilen");
+				}
+				if (report.getErrorCount() > 0) {
+					exitCode = EXIT_FAILED;
+				}
+			} catch (IOException ioe) {
+				err.println(source + ": FEHLER: " + ioe.getLocalizedMessage());
+				return EXIT_FAILED;
+			}
+		}
+		return exitCode;
+	}
+
+	/*
+	 * Compares two versions of a group, optionally with their base, and lists the
+	 * differences. Merging writes the merged group into the target, which may be
+	 * our version itself.
+	 */
+	private static int compare(String[] args, int from, boolean merge, PrintStream out, PrintStream err) {
+		File base = null;
+		int i = from;
+		if (i + 1 < args.length && args[i].equals("-b")) {
+			base = new File(args[i + 1]);
+			i += 2;
+		}
+		if (args.length - i != (merge ? 3 : 2)) {
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		File target = merge ? new File(args[i++]) : null;
+		File ours = new File(args[i]);
+		File theirs = new File(args[i + 1]);
+		try {
+			for (File file : base != null ? List.of(base, ours, theirs) : List.of(ours, theirs)) {
+				if (!file.isFile()) {
+					throw new IOException(file + ": Die Datei existiert nicht.");
+				}
+			}
+			if (merge) {
+				if (target.getAbsoluteFile().equals(ours.getAbsoluteFile())) {
+					checkModifiable(target);
+				} else if (target.exists()) {
+					throw new IOException(target + ": Die Zieldatei existiert bereits.");
+				}
+			}
+			GroupMerger.Result result = GroupMerger.merge(base, ours, theirs, new Progress());
+			for (GroupMerger.Change c : result.getChanges()) {
+				// Without merging, only the differences are of interest, not their
+				// resolution.
+				if (merge && c.getKind() != GroupMerger.Kind.CONFLICT) {
+					continue;
+				}
+				out.println(describe(c));
+			}
+			if (merge) {
+				GroupIO.write(result.getMerged(), target);
+			}
+			out.println(result.getCount(GroupMerger.Kind.ADDED) + " hinzugefgt, "
+					+ result.getCount(GroupMerger.Kind.REMOVED) + " entfernt, "
+					+ result.getCount(GroupMerger.Kind.CHANGED) + " gendert, "
+					+ result.getCount(GroupMerger.Kind.CONFLICT) + " Konflikte"
+					+ (merge ? ", " + result.getMerged().size() + " Karteikarten nach " + target + " geschrieben" : ""));
+			return EXIT_OK;
+		} catch (IOException ioe) {
+			err.println("FEHLER: " + ioe.getLocalizedMessage());
+			return EXIT_FAILED;
+		}
+	}
+
+	// One line per difference, like diff does: + theirs only, - ours only.
+	private static String describe(GroupMerger.Change c) {
+		switch (c.getKind()) {
+		case ADDED:
+			return "+ " + describe(c.getTheirs());
+		case REMOVED:
+			return "- " + describe(c.getOurs());
+		case CHANGED:
+			return "~ " + describe(c.getOurs()) + "  ->  " + describe(c.getTheirs());
+		default:
+			return "! " + describe(c.getOurs()) + "  <>  " + describe(c.getTheirs());
+		}
+	}
+
+	private static String describe(Flashcard f) {
+		return f != null ? oneLine(f.getSide1()) + " = " + oneLine(f.getSide2()) : "(gelscht)";
+	}
+
+	private static String oneLine(String text) {
+		return text.replaceAll("\\s+", " ");
+	}
+
+	// The name of the file without the extension of its format.
+	private static String groupName(File file) {
+		String name = file.getName();
+		return name.substring(0, name.length() - GroupIO.extensionOf(name).length());
+	}
+
+	private static void checkExists(File file) throws IOException {
+		if (!file.isFile()) {
+			throw new IOException("Die Datei existiert nicht.");
+		}
+	}
+
+	private static void checkModifiable(File file) throws IOException {
+		checkExists(file);
+		if (GroupJournal.hasRecords(file)) {
+			throw new IOException(
+					"Die Gruppe hat nicht gespeicherte nderungen (Journal), bitte speichere sie zuerst in JFlashcard.");
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Contains static methods which handle the compact binary group format. A
+ * binary group file (&lt;group name&gt;.jfc) is laid out as follows, all
+ * numbers being big-endian ints:
+ * <ul>
+ * <li>A header of magic number ("JFCB"), format version, number of cards and a
+ * reserved field,</li>
+ * <li>An offset table holding the position of every card in the file,</li>
+ * <li>The cards, each one being the ID of the card as a long, followed by the
+ * length-prefixed UTF-8 bytes of side 1 and those of side 2.</li>
+ * </ul>
+ * Version 1 files don't store the IDs, their cards get new IDs when the file is
+ * opened.
+ * The files get read through {@link MappedGroup}, which maps them into memory
+ * instead of parsing them.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class BinaryHandler {
+	static final int MAGIC = 0x4A464342; // "JFCB"
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * Reads all flashcards of a binary group file into a list.
+	 *
+	 * @param file The binary group file.
+	 * @return The flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read or isn't a binary group.
+	 */
+	public static List<Flashcard> readFlashcardList(File file) throws IOException {
+		return readFlashcardList(file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #readFlashcardList(File)}, reporting every decoded card to a
+	 * {@link Progress}. The cards are kept in a {@link FlashcardStore}.
+	 *
+	 * @param file     The binary group file.
+	 * @param progress Counts the decoded cards and may cancel the operation.
+	 * @return The flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read, isn't a binary group or the
+	 *                     operation got cancelled.
+	 */
+	public static List<Flashcard> readFlashcardList(File file, Progress progress) throws IOException {
+		// Unmapped once copied, so the file can be replaced by the next save.
+		try (MappedGroup group = MappedGroup.open(file)) {
+			progress.begin(group.size());
+			FlashcardStore flashcards = new FlashcardStore(group.size());
+			for (int i = 0; i < group.size(); i++) {
+				flashcards.add(group.get(i));
+				progress.worked(1);
+			}
+			flashcards.trimToSize();
+			return flashcards;
+		}
+	}
+
+	/**
+	 * Writes a list of flashcards to a binary group file through
+	 * {@link AtomicFile}.
+	 *
+	 * @param flashcards The flashcards to write.
+	 * @param file       The binary group file.
+	 * @throws IOException If the file couldn't be written. The old file is
+	 *                     unchanged in that case.
+	 */
+	public static void writeFlashcardList(List<Flashcard> flashcards, File file) throws IOException {
+		writeFlashcardList(flashcards, file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #writeFlashcardList(List, File)}, reporting every written
+	 * card to a {@link Progress}.
+	 *
+	 * @param flashcards The flashcards to write.
+	 * @param file       The binary group file.
+	 * @param progress   Counts the written cards and may cancel the operation.
+	 * @throws IOException If the file couldn't be written or the operation got
+	 *                     cancelled. The old file is unchanged in that case.
+	 */
+	public static void writeFlashcardList(List<Flashcard> flashcards, File file, Progress progress)
+			throws IOException {
+		AtomicFile.write(file, out -> writeFlashcards(flashcards, out, progress));
+	}
+
+	/**
+	 * Streams flashcards in the binary format to an output stream. The stream
+	 * doesn't get closed.
+	 *
+	 * @param flashcards The flashcards to write. The list gets traversed twice, once
+	 *                   for the offset table and once for the texts.
+	 * @param out        The stream to write to.
+	 * @throws IOException If writing fails or the group is bigger than 2 GB.
+	 */
+	public static void writeFlashcards(List<Flashcard> flashcards, OutputStream out) throws IOException {
+		writeFlashcards(flashcards, out, new Progress());
+	}
+
+	/**
+	 * Same as {@link #writeFlashcards(List, OutputStream)}, reporting every
+	 * written card to a {@link Progress}.
+	 *
+	 * @param flashcards The flashcards to write.
+	 * @param out        The stream to write to.
+	 * @param progress   Counts the written cards and may cancel the operation.
+	 * @throws IOException If writing fails, the group is bigger than 2 GB or the
+	 *                     operation got cancelled.
+	 */
+	public static void writeFlashcards(List<Flashcard> flashcards, OutputStream out, Progress progress)
+			throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		int count = flashcards.size();
+		progress.begin(count);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(count);
+		data.writeInt(0);
+		// The offset table comes first, so we need the encoded lengths in advance.
+		long offset = HEADER_SIZE + 4L * count;
+		for (Flashcard f : flashcards) {
+			if (offset > Integer.MAX_VALUE) {
+				throw new IOException("Die Gruppe ist zu gro fr das Binrformat.");
+			}
+			data.writeInt((int) offset);
+			offset += 16 + utf8Length(f.getSide1()) + utf8Length(f.getSide2());
+		}
+		for (Flashcard f : flashcards) {
+			data.writeLong(f.getId());
+			writeString(data, f.getSide1());
+			writeString(data, f.getSide2());
+			progress.worked(1);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Converts an XML group file into a binary group file. No information gets
+	 * lost, the binary file contains exactly the texts the XML reader returns. The
+	 * cards get streamed into a temporary file while only their offsets are kept in
+	 * memory, so even huge groups can be converted with a small heap.
+	 *
+	 * @param xml    The XML group file.
+	 * @param binary The binary group file to create or replace.
+	 * @throws IOException If one of the files can't be read or written.
+	 */
+	public static void convertXMLToBinary(File xml, File binary) throws IOException {
+		convertXMLToBinary(xml, binary, new Progress());
+	}
+
+	/**
+	 * Same as {@link #convertXMLToBinary(File, File)}, reporting the bytes read
+	 * from the XML file to a {@link Progress}.
+	 *
+	 * @param xml      The XML group file.
+	 * @param binary   The binary group file to create or replace.
+	 * @param progress Counts the bytes read and may cancel the operation.
+	 * @throws IOException If one of the files can't be read or written or the
+	 *                     operation got cancelled.
+	 */
+	public static void convertXMLToBinary(File xml, File binary, Progress progress) throws IOException {
+		File records = new File(binary.getPath() + ".records");
+		try {
+			RecordWriter writer = new RecordWriter(records);
+			try {
+				XMLHandler.streamFlashcardList(xml, writer, progress);
+			} catch (XMLStreamException xse) {
+				throw new IOException(xse.getLocalizedMessage(), xse);
+			} finally {
+				writer.close();
+			}
+			if (writer.error != null) {
+				throw writer.error;
+			}
+			progress.checkCancelled();
+			AtomicFile.write(binary, out -> {
+				DataOutputStream data = new DataOutputStream(out);
+				data.writeInt(MAGIC);
+				data.writeInt(VERSION);
+				data.writeInt(writer.count);
+				data.writeInt(0);
+				long tableSize = 4L * writer.count;
+				for (int i = 0; i < writer.count; i++) {
+					long offset = HEADER_SIZE + tableSize + writer.offsets[i];
+					if (offset > Integer.MAX_VALUE) {
+						throw new IOException("Die Gruppe ist zu gro fr das Binrformat.");
+					}
+					data.writeInt((int) offset);
+				}
+				data.flush();
+				Files.copy(records.toPath(), out);
+			});
+		} finally {
+			Files.deleteIfExists(records.toPath());
+		}
+	}
+
+	/**
+	 * Converts a binary group file into an XML group file. The cards get streamed
+	 * from the mapped file into the XML writer one by one.
+	 *
+	 * @param binary The binary group file.
+	 * @param xml    The XML group file to create or replace.
+	 * @throws IOException If one of the files can't be read or written.
+	 */
+	public static void convertBinaryToXML(File binary, File xml) throws IOException {
+		try (MappedGroup group = MappedGroup.open(binary)) {
+			XMLHandler.writeFlashcardList(group.asList(), xml);
+		}
+	}
+
+	/*
+	 * Writes the cards handed over by the XML reader and remembers where each one
+	 * starts. The reader doesn't let us throw an IOException, so we keep it until
+	 * the reader is done.
+	 */
+	private static class RecordWriter implements Consumer<Flashcard> {
+		private final DataOutputStream out;
+		private int[] offsets = new int[1024];
+		private int count;
+		private long position;
+		private IOException error;
+
+		RecordWriter(File file) throws IOException {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		}
+
+		@Override
+		public void accept(Flashcard f) {
+			if (error != null) {
+				return;
+			}
+			try {
+				if (position > Integer.MAX_VALUE) {
+					throw new IOException("Die Gruppe ist zu gro fr das Binrformat.");
+				}
+				if (count == offsets.length) {
+					offsets = Arrays.copyOf(offsets, count * 2);
+				}
+				offsets[count++] = (int) position;
+				out.writeLong(f.getId());
+				position += 16 + writeString(out, f.getSide1()) + writeString(out, f.getSide2());
+			} catch (IOException ioe) {
+				error = ioe;
+			}
+		}
+
+		void close() throws IOException {
+			out.close();
+		}
+	}
+
+	private static int writeString(DataOutputStream data, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+		return bytes.length;
+	}
+
+	// The number of bytes getBytes(UTF_8) will return, without encoding.
+	static int utf8Length(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				// Includes unpaired surrogates, which get encoded as '?'.
+				length += Character.isSurrogate(c) ? 1 : 3;
+			}
+		}
+		return length;
+	}
+}
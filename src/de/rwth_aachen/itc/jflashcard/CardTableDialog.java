@@ -0,0 +1,297 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+
+/**
+ * Lists all cards of a group with both sides in a table, so a big group can be
+ * looked through without flipping every card. The tasks of this class are:
+ * <ul>
+ * <li>Show the cards in a virtual table, which only creates the rows that are
+ * visible, so a group of a million cards opens at once,</li>
+ * <li>Sort the cards by number, side 1 or side 2 when a column header gets
+ * clicked, without changing the group,</li>
+ * <li>Jump to a card by its number, and show the chosen card in the main
+ * window.</li>
+ * </ul>
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class CardTableDialog extends Dialog {
+	private final List<Flashcard> flashcards;
+	private final int current;
+	// The index of the card in every row, null while sorted by number.
+	private int[] rows;
+	// The row of every card, null while sorted by number.
+	private int[] rowOf;
+	private int result = -1;
+	// Set while a column gets sorted in the background.
+	private boolean sorting;
+	// Stops a sort in the background once the dialog got closed.
+	private volatile boolean closed;
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell      The parent window the dialog will appear in.
+	 * @param flashcards The cards of the group, in their initial order.
+	 * @param current    The index of the card to select at first, -1 for none.
+	 */
+	public CardTableDialog(Shell shell, List<Flashcard> flashcards, int current) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.flashcards = flashcards;
+		this.current = current;
+		setText("bersicht der Karteikarten");
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 *
+	 * @return The index of the card to show or -1 if the dialog got closed without
+	 *         choosing one.
+	 */
+	public int open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		shell.addListener(SWT.Dispose, event -> closed = true);
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+		return result;
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(4, false));
+		Label label = new Label(shell, SWT.NONE);
+		label.setText("&Karteikarten (" + flashcards.size() + "):");
+		GridData data = new GridData();
+		data.horizontalSpan = 4;
+		label.setLayoutData(data);
+		Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE | SWT.V_SCROLL | SWT.VIRTUAL);
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		TableColumn number = new TableColumn(table, SWT.RIGHT);
+		number.setText("Nr.");
+		number.setWidth(80);
+		TableColumn side1 = new TableColumn(table, SWT.LEFT);
+		side1.setText("Seite 1");
+		side1.setWidth(260);
+		TableColumn side2 = new TableColumn(table, SWT.LEFT);
+		side2.setText("Seite 2");
+		side2.setWidth(260);
+		table.addListener(SWT.SetData, event -> {
+			TableItem item = (TableItem) event.item;
+			int index = indexAt(event.index);
+			Flashcard f = flashcards.get(index);
+			item.setText(new String[] { Integer.toString(index + 1), shorten(f.getSide1()), shorten(f.getSide2()) });
+		});
+		table.setItemCount(flashcards.size());
+		addSorting(table, label, number, null);
+		addSorting(table, label, side1, Flashcard::getSide1);
+		addSorting(table, label, side2, Flashcard::getSide2);
+		table.setSortColumn(number);
+		table.setSortDirection(SWT.UP);
+		// Enter or a double click shows the card.
+		table.addListener(SWT.DefaultSelection, event -> choose(shell, table));
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 4;
+		data.heightHint = 400;
+		table.setLayoutData(data);
+		Label jumpLabel = new Label(shell, SWT.NONE);
+		jumpLabel.setText("&Gehe zu Nr.:");
+		Text jumpText = new Text(shell, SWT.BORDER | SWT.SINGLE);
+		jumpText.setToolTipText("Nummer eingeben und mit Enter in der Tabelle auswhlen");
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.widthHint = 100;
+		jumpText.setLayoutData(data);
+		jumpText.addListener(SWT.DefaultSelection, event -> jumpTo(shell, table, jumpText.getText()));
+		Button show = new Button(shell, SWT.PUSH);
+		show.setText("Karteikarte &anzeigen");
+		show.addListener(SWT.Selection, event -> choose(shell, table));
+		Button close = new Button(shell, SWT.PUSH);
+		close.setText("&Schlieen");
+		close.addListener(SWT.Selection, event -> shell.close());
+		if (current >= 0 && current < flashcards.size()) {
+			select(table, current);
+		}
+		table.setFocus();
+	}
+
+	/*
+	 * Sorts the rows by the column when its header gets clicked. Only the order of
+	 * the rows changes, the rows get filled again when they become visible. A null
+	 * side sorts by number, which needs no card. Sorting by a side reads every
+	 * card, from the file for a huge group, so it runs in the background while the
+	 * table stays usable in the old order.
+	 */
+	private void addSorting(Table table, Label label, TableColumn column, Function<Flashcard, String> side) {
+		column.addListener(SWT.Selection, event -> {
+			if (sorting) {
+				return;
+			}
+			boolean up = table.getSortColumn() != column || table.getSortDirection() != SWT.UP;
+			if (side == null) {
+				showSorted(table, column, up, up ? null : reversed(flashcards.size()));
+				return;
+			}
+			sorting = true;
+			label.setText("&Karteikarten (" + flashcards.size() + ", wird sortiert...):");
+			Display display = table.getDisplay();
+			Thread sorter = new Thread(() -> {
+				int[] order = sort(side, up);
+				display.asyncExec(() -> {
+					if (table.isDisposed()) {
+						return;
+					}
+					sorting = false;
+					label.setText("&Karteikarten (" + flashcards.size() + "):");
+					if (order != null) {
+						showSorted(table, column, up, order);
+					}
+				});
+			}, "JFlashcard card table sorting");
+			sorter.setDaemon(true);
+			sorter.start();
+		});
+	}
+
+	/*
+	 * Shows the rows in a new order, null for the order by number. The selection
+	 * is taken now, it may have moved while sorting.
+	 */
+	private void showSorted(Table table, TableColumn column, boolean up, int[] order) {
+		int focused = table.getSelectionIndex() >= 0 ? indexAt(table.getSelectionIndex()) : -1;
+		if (order == null) {
+			rows = null;
+			rowOf = null;
+		} else {
+			rows = order;
+			rowOf = new int[order.length];
+			for (int row = 0; row < order.length; row++) {
+				rowOf[order[row]] = row;
+			}
+		}
+		table.setSortColumn(column);
+		table.setSortDirection(up ? SWT.UP : SWT.DOWN);
+		table.clearAll();
+		// Keep the focus on the same card, otherwise screen readers lose track.
+		if (focused >= 0) {
+			select(table, focused);
+		}
+	}
+
+	private static int[] reversed(int size) {
+		int[] order = new int[size];
+		for (int row = 0; row < size; row++) {
+			order[row] = size - 1 - row;
+		}
+		return order;
+	}
+
+	/*
+	 * Returns the index of the card in every row, sorted by a side. Every text is
+	 * replaced by its rank among the distinct texts, so the cards get sorted as
+	 * rank and index packed into one long, without boxing and comparing strings
+	 * again. Cards with the same text keep their order. Returns null if the dialog
+	 * got closed meanwhile, or the group with it.
+	 */
+	private int[] sort(Function<Flashcard, String> side, boolean up) {
+		int size = flashcards.size();
+		// The keys of the search, so case and umlauts don't split the order.
+		String[] keys = new String[size];
+		try {
+			for (int i = 0; i < size; i++) {
+				if (closed) {
+					return null;
+				}
+				keys[i] = SearchIndex.normalize(side.apply(flashcards.get(i)));
+			}
+		} catch (IllegalStateException ise) {
+			// A huge group got closed after the dialog.
+			return null;
+		}
+		String[] distinct = keys.clone();
+		Arrays.sort(distinct);
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (count == 0 || !distinct[i].equals(distinct[count - 1])) {
+				distinct[count++] = distinct[i];
+			}
+		}
+		long[] packed = new long[size];
+		for (int i = 0; i < size; i++) {
+			int rank = Arrays.binarySearch(distinct, 0, count, keys[i]);
+			packed[i] = (long) (up ? rank : count - 1 - rank) << 32 | i;
+		}
+		Arrays.sort(packed);
+		int[] order = new int[size];
+		for (int row = 0; row < size; row++) {
+			order[row] = (int) packed[row];
+		}
+		return order;
+	}
+
+	private int indexAt(int row) {
+		return rows == null ? row : rows[row];
+	}
+
+	private void select(Table table, int index) {
+		int row = rowOf == null ? index : rowOf[index];
+		table.setSelection(row);
+		table.showItem(table.getItem(row));
+	}
+
+	private void jumpTo(Shell shell, Table table, String text) {
+		int number;
+		try {
+			number = Integer.parseInt(text.strip());
+		} catch (NumberFormatException nfe) {
+			number = 0;
+		}
+		if (number < 1 || number > flashcards.size()) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Bitte eine Nummer zwischen 1 und " + flashcards.size() + " eingeben.");
+			errorMB.open();
+			return;
+		}
+		select(table, number - 1);
+		table.setFocus();
+	}
+
+	private void choose(Shell shell, Table table) {
+		if (table.getSelectionIndex() < 0) {
+			return;
+		}
+		result = indexAt(table.getSelectionIndex());
+		shell.close();
+	}
+
+	// A row shows one line of text, long cards get cut off.
+	private static String shorten(String text) {
+		text = text.replaceAll("\\s+", " ").trim();
+		return text.length() > 200 ? text.substring(0, 197) + "..." : text;
+	}
+}
@@ -0,0 +1,279 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports flashcards from CSV and TSV files, e.g. vocabulary lists exported
+ * from a spreadsheet. The first field of a record becomes side 1, the second
+ * one side 2, further fields are ignored. The tasks of this class are:
+ * <ul>
+ * <li>Stream the records through a {@link CsvReader}, so only one batch of
+ * cards is in memory at a time,</li>
+ * <li>Hand the cards over in batches, which get committed to the
+ * {@link GroupJournal} of the group with a single write each,</li>
+ * <li>Skip broken records and collect a report of them with their line
+ * numbers,</li>
+ * <li>Guess the encoding of a file and show a preview of its first
+ * records.</li>
+ * </ul>
+ * An import which gets cancelled or fails keeps the batches committed so far,
+ * they are in the journal and get replayed like any unsaved change.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class CsvImporter {
+	/**
+	 * System property holding the number of cards committed to the journal at
+	 * once.
+	 */
+	public static final String BATCH_PROPERTY = "jflashcard.import.batch";
+	/**
+	 * The number of broken records reported in detail. Further ones only get
+	 * counted, so a file in the wrong format doesn't fill the memory with errors.
+	 */
+	public static final int MAX_REPORTED_ERRORS = 1000;
+
+	private CsvImporter() {
+	}
+
+	/**
+	 * Receives the imported cards batch by batch.
+	 */
+	public interface BatchConsumer {
+		/**
+		 * Takes a batch of cards.
+		 *
+		 * @param batch The cards in the order of the file. The list doesn't get
+		 *              used by the importer afterwards.
+		 * @throws IOException If the batch can't be committed, which ends the
+		 *                     import.
+		 */
+		void accept(List<Flashcard> batch) throws IOException;
+	}
+
+	/**
+	 * What happened during an import.
+	 */
+	public static class Report {
+		private int rows;
+		private int imported;
+		private int errorCount;
+		private final List<String> errors = new ArrayList<>();
+
+		private void addError(int line, String message) {
+			errorCount++;
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add("Zeile " + line + ": " + message);
+			}
+		}
+
+		/**
+		 * Returns the number of records read, without the header.
+		 *
+		 * @return The number of records.
+		 */
+		public int getRows() {
+			return rows;
+		}
+
+		/**
+		 * Returns the number of cards imported.
+		 *
+		 * @return The number of cards.
+		 */
+		public int getImported() {
+			return imported;
+		}
+
+		/**
+		 * Returns the number of records which couldn't be imported.
+		 *
+		 * @return The number of broken records.
+		 */
+		public int getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * Returns the descriptions of the first {@value CsvImporter#MAX_REPORTED_ERRORS}
+		 * broken records.
+		 *
+		 * @return The descriptions, each starting with the line number.
+		 */
+		public List<String> getErrors() {
+			return errors;
+		}
+	}
+
+	/**
+	 * Reads the cards of a CSV file and hands them over in batches.
+	 *
+	 * @param source    The CSV file.
+	 * @param charset   The encoding of the file.
+	 * @param delimiter The char between the fields.
+	 * @param header    Whether the first record is a header to skip.
+	 * @param consumer  Receives the cards.
+	 * @param progress  Counts the bytes read and may cancel the operation.
+	 * @return The report of the import.
+	 * @throws IOException If the file can't be read, a batch can't be committed or
+	 *                     the operation got cancelled. The batches handed over
+	 *                     before stay imported.
+	 */
+	public static Report read(File source, Charset charset, char delimiter, boolean header, BatchConsumer consumer,
+			Progress progress) throws IOException {
+		int batchSize = Math.max(Integer.getInteger(BATCH_PROPERTY, 1000), 1);
+		Report report = new Report();
+		progress.begin(source.length());
+		try (CsvReader reader = new CsvReader(progress.track(new FileInputStream(source)), charset, delimiter)) {
+			List<Flashcard> batch = new ArrayList<>();
+			CsvReader.Record record;
+			boolean first = true;
+			while ((record = reader.next()) != null) {
+				if (first && header) {
+					first = false;
+					continue;
+				}
+				first = false;
+				report.rows++;
+				String error = check(record);
+				if (error != null) {
+					report.addError(record.getLine(), error);
+					continue;
+				}
+				// The XML reader strips the sides as well.
+				batch.add(new Flashcard(record.getFields().get(0).strip(), record.getFields().get(1).strip()));
+				if (batch.size() == batchSize) {
+					consumer.accept(batch);
+					report.imported += batch.size();
+					batch = new ArrayList<>();
+				}
+			}
+			if (!batch.isEmpty()) {
+				consumer.accept(batch);
+				report.imported += batch.size();
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Imports a CSV file into a group file. The group gets read, the cards get
+	 * committed to its journal batch by batch, and at the end the journal gets
+	 * saved into the group file.
+	 *
+	 * @param source    The CSV file.
+	 * @param charset   The encoding of the file.
+	 * @param delimiter The char between the fields.
+	 * @param header    Whether the first record is a header to skip.
+	 * @param group     The group file, which gets created if it doesn't exist.
+	 * @param progress  Counts the bytes read and may cancel the operation.
+	 * @return The report of the import.
+	 * @throws IOException If one of the files can't be read or written or the
+	 *                     operation got cancelled. The batches committed before
+	 *                     stay in the journal of the group.
+	 */
+	public static Report importInto(File source, Charset charset, char delimiter, boolean header, File group,
+			Progress progress) throws IOException {
+		if (!group.exists()) {
+			GroupIO.write(new FlashcardStore(), group);
+		}
+		// A FlashcardStore, which can grow.
+		List<Flashcard> flashcards = GroupIO.read(group);
+		GroupJournal journal = GroupJournal.open(group, flashcards);
+		try {
+			Report report = read(source, charset, delimiter, header, batch -> {
+				journal.recordAdds(batch);
+				flashcards.addAll(batch);
+			}, progress);
+			journal.save(flashcards);
+			return report;
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Reads the first records of a CSV file, e.g. to show them before the import.
+	 *
+	 * @param source    The CSV file.
+	 * @param charset   The encoding of the file.
+	 * @param delimiter The char between the fields.
+	 * @param count     The number of records to read at most.
+	 * @return The records.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static List<CsvReader.Record> preview(File source, Charset charset, char delimiter, int count)
+			throws IOException {
+		List<CsvReader.Record> records = new ArrayList<>();
+		try (CsvReader reader = new CsvReader(new FileInputStream(source), charset, delimiter)) {
+			CsvReader.Record record;
+			while (records.size() < count && (record = reader.next()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Describes what's wrong with a record.
+	 *
+	 * @param record The record.
+	 * @return The description or null if the record makes a valid card.
+	 */
+	public static String check(CsvReader.Record record) {
+		List<String> fields = record.getFields();
+		if (record.getError() != null) {
+			return record.getError();
+		} else if (fields.size() < 2) {
+			return "Seite 2 fehlt (stimmt das Trennzeichen?)";
+		} else if (fields.get(0).isBlank()) {
+			return "Seite 1 ist leer";
+		} else if (fields.get(1).isBlank()) {
+			return "Seite 2 ist leer";
+		} else if (fields.get(0).indexOf('\uFFFD') >= 0 || fields.get(1).indexOf('\uFFFD') >= 0) {
+			return "Ungltige Zeichen (stimmt die Kodierung?)";
+		}
+		return null;
+	}
+
+	/**
+	 * Guesses the encoding of a file: UTF-8 if its beginning is valid UTF-8,
+	 * otherwise windows-1252, which is what spreadsheets on Windows write.
+	 *
+	 * @param source The file.
+	 * @return The encoding.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static Charset guessCharset(File source) throws IOException {
+		byte[] start;
+		try (InputStream in = new FileInputStream(source)) {
+			start = in.readNBytes(1 << 16);
+		}
+		// A char cut off at the end of the sample doesn't count.
+		int length = start.length;
+		for (int i = Math.max(length - 3, 0); i < length; i++) {
+			if ((start[i] & 0xC0) == 0xC0) {
+				length = i;
+			}
+		}
+		try {
+			StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(start, 0, length));
+			return StandardCharsets.UTF_8;
+		} catch (CharacterCodingException cce) {
+			return Charset.forName("windows-1252");
+		}
+	}
+}
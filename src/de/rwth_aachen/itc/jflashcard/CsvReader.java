@@ -0,0 +1,277 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads CSV and TSV files one record at a time, so files of any size can be
+ * read with a small heap. The tasks of this class are:
+ * <ul>
+ * <li>Split the records into fields at a configurable delimiter,</li>
+ * <li>Handle quoted fields as described in RFC 4180: delimiters and line
+ * breaks inside quotes belong to the field, two quotes stand for one,</li>
+ * <li>Accept CRLF, LF and CR line breaks and skip a byte order mark and empty
+ * lines,</li>
+ * <li>Recognize broken records (text after a closing quote, a quote which never
+ * gets closed, absurdly long fields) and report them with their line number
+ * instead of giving up on the whole file.</li>
+ * </ul>
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class CsvReader implements Closeable {
+	/**
+	 * The longest field accepted, in chars. A quote which never gets closed would
+	 * otherwise make the rest of the file one field.
+	 */
+	public static final int MAX_FIELD_LENGTH = 1 << 20;
+
+	private final Reader in;
+	private final char delimiter;
+	private final StringBuilder field = new StringBuilder();
+	// The char read ahead to recognize CRLF, -2 if there is none.
+	private int pushedBack = -2;
+	private int line = 1;
+	private int recordLine;
+	private String error;
+
+	/**
+	 * A record of the file.
+	 */
+	public static class Record {
+		private final int line;
+		private final List<String> fields;
+		private final String error;
+
+		private Record(int line, List<String> fields, String error) {
+			this.line = line;
+			this.fields = fields;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the line the record starts in.
+		 *
+		 * @return The line number, starting with 1.
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * Returns the fields of the record.
+		 *
+		 * @return The fields, unquoted. Possibly incomplete if the record is broken.
+		 */
+		public List<String> getFields() {
+			return fields;
+		}
+
+		/**
+		 * Returns what's wrong with the record.
+		 *
+		 * @return The description of the problem or null if the record is fine.
+		 */
+		public String getError() {
+			return error;
+		}
+	}
+
+	/**
+	 * Creates a reader of a stream.
+	 *
+	 * @param in        The stream, read with a buffer of its own.
+	 * @param charset   The encoding of the file.
+	 * @param delimiter The char between the fields, e.g. ',' or '\t'.
+	 */
+	public CsvReader(InputStream in, Charset charset, char delimiter) {
+		this(new InputStreamReader(in, charset), delimiter);
+	}
+
+	/**
+	 * Creates a reader of a stream of chars.
+	 *
+	 * @param in        The chars, read with a buffer of its own.
+	 * @param delimiter The char between the fields, e.g. ',' or '\t'.
+	 */
+	public CsvReader(Reader in, char delimiter) {
+		if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+			throw new IllegalArgumentException("Ungltiges Trennzeichen: " + delimiter);
+		}
+		this.in = new BufferedReader(in, 1 << 16);
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Reads the next record. Empty lines get skipped.
+	 *
+	 * @return The record or null at the end of the file.
+	 * @throws IOException If the file can't be read.
+	 */
+	public Record next() throws IOException {
+		int c;
+		do {
+			c = read();
+			if (c == 0xFEFF && line == 1) {
+				// The byte order mark some editors put at the start.
+				c = read();
+			}
+		} while (c == '\n');
+		if (c < 0) {
+			return null;
+		}
+		recordLine = line;
+		error = null;
+		List<String> fields = new ArrayList<>(2);
+		while (true) {
+			field.setLength(0);
+			if (c == '"') {
+				c = readQuoted();
+			} else {
+				while (c >= 0 && c != delimiter && c != '\n') {
+					append((char) c);
+					c = read();
+				}
+			}
+			fields.add(field.toString());
+			if (c == delimiter) {
+				c = read();
+			} else {
+				break;
+			}
+		}
+		return new Record(recordLine, fields, error);
+	}
+
+	/*
+	 * Reads a quoted field after its opening quote and returns the char after it,
+	 * the delimiter, a line break or -1. Anything else after the closing quote
+	 * breaks the record, the rest of the field gets skipped.
+	 */
+	private int readQuoted() throws IOException {
+		while (true) {
+			int c = read();
+			if (c < 0) {
+				setError("Anfhrungszeichen in Zeile " + recordLine + " wird nicht geschlossen");
+				return c;
+			} else if (c == '"') {
+				c = read();
+				if (c != '"') {
+					if (c >= 0 && c != delimiter && c != '\n') {
+						setError("Text nach dem schlieenden Anfhrungszeichen");
+						while (c >= 0 && c != delimiter && c != '\n') {
+							c = read();
+						}
+					}
+					return c;
+				}
+			}
+			append((char) c);
+		}
+	}
+
+	private void append(char c) {
+		if (field.length() < MAX_FIELD_LENGTH) {
+			field.append(c);
+		} else {
+			setError("Feld lnger als " + MAX_FIELD_LENGTH + " Zeichen");
+		}
+	}
+
+	// The first problem of a record is the one worth reporting.
+	private void setError(String message) {
+		if (error == null) {
+			error = message;
+		}
+	}
+
+	/*
+	 * Reads a char, turning CRLF and CR into LF and counting the lines.
+	 */
+	private int read() throws IOException {
+		int c;
+		if (pushedBack != -2) {
+			c = pushedBack;
+			pushedBack = -2;
+		} else {
+			c = in.read();
+		}
+		if (c == '\r') {
+			int next = in.read();
+			if (next != '\n') {
+				pushedBack = next;
+			}
+			c = '\n';
+		}
+		if (c == '\n') {
+			line++;
+		}
+		return c;
+	}
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException If closing fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Guesses the delimiter of a file: a tab for *.tsv and *.tab files, otherwise
+	 * the most frequent of comma, semicolon and tab in the first line.
+	 *
+	 * @param file    The file.
+	 * @param charset The encoding of the file.
+	 * @return The delimiter, ',' if the first line has none of them.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static char guessDelimiter(File file, Charset charset) throws IOException {
+		String name = file.getName().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".tsv") || name.endsWith(".tab")) {
+			return '\t';
+		}
+		String first;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+			first = reader.readLine();
+		}
+		if (first == null) {
+			return ',';
+		}
+		char[] candidates = { ',', ';', '\t' };
+		int[] counts = new int[candidates.length];
+		boolean quoted = false;
+		for (int i = 0; i < first.length(); i++) {
+			char c = first.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+			}
+			for (int k = 0; k < candidates.length && !quoted; k++) {
+				if (c == candidates[k]) {
+					counts[k]++;
+				}
+			}
+		}
+		int best = 0;
+		for (int k = 1; k < candidates.length; k++) {
+			if (counts[k] > counts[best]) {
+				best = k;
+			}
+		}
+		return candidates[best];
+	}
+}
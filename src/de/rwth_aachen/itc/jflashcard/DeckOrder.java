@@ -0,0 +1,328 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The order in which the flashcards of a group get presented. The flashcards
+ * themselves stay in one list in their initial order; this class maps the
+ * position of a card in the presented order to its index in that list. The
+ * tasks of this class are:
+ * <ul>
+ * <li>Shuffle the order by shuffling a primitive int array,</li>
+ * <li>Switch back to the initial order without copying anything,</li>
+ * <li>Keep the mapping right when cards get added, removed or put back,</li>
+ * <li>Undo a shuffle by replaying its swaps backwards, so no copy of the
+ * previous order is needed.</li>
+ * </ul>
+ * The array only gets allocated when the deck gets shuffled for the first
+ * time, a deck in its initial order costs no memory at all. Once allocated, the
+ * array is kept up to date even in the initial order, so switching back to the
+ * shuffled order can be undone.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class DeckOrder {
+	private int[] order;
+	private int size;
+	private boolean shuffled;
+	// position of index i in the shuffled order is inverse[i], rebuilt when
+	// needed after a change
+	private int[] inverse;
+	private boolean inverseValid;
+
+	/**
+	 * Creates the initial order of a deck.
+	 *
+	 * @param size The number of cards in the deck.
+	 */
+	public DeckOrder(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Returns the number of cards in the deck.
+	 *
+	 * @return The number of cards.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of a card in the initial order.
+	 *
+	 * @param position The position of the card in the presented order.
+	 * @return The index of the card in the list of flashcards.
+	 */
+	public int get(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+		}
+		return shuffled ? order[position] : position;
+	}
+
+	/**
+	 * Returns the position of a card in the presented order, the opposite of
+	 * {@link #get(int)}. The first call after a change takes O(n), the following
+	 * ones O(1).
+	 *
+	 * @param index The index of the card in the list of flashcards.
+	 * @return The position of the card in the presented order.
+	 */
+	public int positionOf(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		if (!shuffled) {
+			return index;
+		}
+		return inverseOf(index);
+	}
+
+	/**
+	 * Returns the position a card has in the shuffled order, even while the deck
+	 * is in its initial order. Together with the index this is everything needed
+	 * to put a removed card back with {@link #insert(int, int)}.
+	 *
+	 * @param position The position of the card in the presented order.
+	 * @return The position of the card in the shuffled order or -1 if the deck
+	 *         has never been shuffled.
+	 */
+	public int shuffledPositionOf(int position) {
+		if (order == null) {
+			return -1;
+		}
+		return shuffled ? position : inverseOf(get(position));
+	}
+
+	private int inverseOf(int index) {
+		if (!inverseValid) {
+			if (inverse == null || inverse.length < size) {
+				inverse = new int[order.length];
+			}
+			for (int i = 0; i < size; i++) {
+				inverse[order[i]] = i;
+			}
+			inverseValid = true;
+		}
+		return inverse[index];
+	}
+
+	/**
+	 * Checks if the deck is currently shuffled.
+	 *
+	 * @return True if the deck is shuffled, false if it's in its initial order.
+	 */
+	public boolean isShuffled() {
+		return shuffled;
+	}
+
+	/**
+	 * Shuffles the deck. Every order is equally likely (Fisher-Yates).
+	 *
+	 * @param random The source of randomness.
+	 */
+	public void shuffle(Random random) {
+		if (order == null) {
+			order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+		}
+		// Shuffling any permutation gives a random one, so the old shuffled order
+		// is as good a start as the initial one.
+		for (int i = size - 1; i > 0; i--) {
+			swap(i, random.nextInt(i + 1));
+		}
+		shuffled = true;
+		inverseValid = false;
+	}
+
+	/**
+	 * Shuffles the deck reproducibly. Shuffling the same deck with the same seed
+	 * always gives the same order, which is what makes the shuffle undoable.
+	 *
+	 * @param seed The seed of the random numbers.
+	 */
+	public void shuffle(long seed) {
+		shuffle(new Random(seed));
+	}
+
+	/**
+	 * Undoes {@link #shuffle(long)}: the swaps get generated once more and
+	 * applied in reverse. This takes O(n) time and a temporary array of the swap
+	 * targets, instead of a copy of the order kept for every shuffle.
+	 *
+	 * @param seed        The seed the deck got shuffled with.
+	 * @param wasShuffled Whether the deck was shuffled before.
+	 */
+	public void undoShuffle(long seed, boolean wasShuffled) {
+		Random random = new Random(seed);
+		int[] targets = new int[size];
+		for (int i = size - 1; i > 0; i--) {
+			targets[i] = random.nextInt(i + 1);
+		}
+		for (int i = 1; i < size; i++) {
+			swap(i, targets[i]);
+		}
+		shuffled = wasShuffled;
+		inverseValid = false;
+	}
+
+	/**
+	 * Switches back to the initial order.
+	 */
+	public void unshuffle() {
+		shuffled = false;
+	}
+
+	/**
+	 * Switches back to the shuffled order after {@link #unshuffle()}.
+	 */
+	public void reshuffle() {
+		if (order != null) {
+			shuffled = true;
+		}
+	}
+
+	/**
+	 * Appends a card which got appended to the list of flashcards. It's the last
+	 * card in the presented order as well.
+	 */
+	public void add() {
+		if (order != null) {
+			ensureCapacity();
+			order[size] = size;
+		}
+		size++;
+		inverseValid = false;
+	}
+
+	/**
+	 * Removes a card. The following cards move one position forward, and the
+	 * indexes after the index of the removed card decrease by one, just like they
+	 * do in the list of flashcards.
+	 *
+	 * @param position The position of the card in the presented order.
+	 * @return The index the card had in the list of flashcards.
+	 */
+	public int remove(int position) {
+		int index = get(position);
+		if (order != null) {
+			int shuffledPosition = shuffledPositionOf(position);
+			System.arraycopy(order, shuffledPosition + 1, order, shuffledPosition, size - shuffledPosition - 1);
+			for (int i = 0; i < size - 1; i++) {
+				if (order[i] > index) {
+					order[i]--;
+				}
+			}
+		}
+		size--;
+		inverseValid = false;
+		return index;
+	}
+
+	/**
+	 * Removes several cards at once, with one pass over the order instead of one
+	 * per card. The result is the same as calling {@link #remove(int)} for the
+	 * cards from the highest index to the lowest.
+	 *
+	 * @param indexes The indexes of the cards in the list of flashcards, sorted
+	 *                ascending without duplicates.
+	 * @return For every card, the position it had in the shuffled order when it
+	 *         would have been removed in that sequence, what
+	 *         {@link #insert(int, int)} needs to put it back; all -1 if the deck
+	 *         has never been shuffled.
+	 */
+	public int[] removeIndexes(int[] indexes) {
+		int count = indexes.length;
+		if (count > 0 && (indexes[0] < 0 || indexes[count - 1] >= size)) {
+			throw new IndexOutOfBoundsException("Indexes: " + indexes[0] + "-" + indexes[count - 1] + ", Size: " + size);
+		}
+		int[] shuffledPositions = new int[count];
+		if (order == null) {
+			Arrays.fill(shuffledPositions, -1);
+		} else {
+			// Counts the removed cards seen so far by their rank (Fenwick tree), to find
+			// how many cards with a higher index were in front of a card.
+			int[] seenRanks = new int[count + 1];
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				int index = order[i];
+				int rank = Arrays.binarySearch(indexes, index);
+				if (rank >= 0) {
+					int lowerSeen = 0;
+					for (int r = rank; r > 0; r -= r & -r) {
+						lowerSeen += seenRanks[r];
+					}
+					// The cards with a higher index are gone already when this one gets
+					// removed, the ones in front of it moved it forward.
+					int higherSeen = i - kept - lowerSeen;
+					shuffledPositions[rank] = i - higherSeen;
+					for (int r = rank + 1; r <= count; r += r & -r) {
+						seenRanks[r]++;
+					}
+				} else {
+					// -rank - 1 removed cards have a lower index.
+					order[kept++] = index + rank + 1;
+				}
+			}
+		}
+		size -= count;
+		inverseValid = false;
+		return shuffledPositions;
+	}
+
+	/**
+	 * Puts a removed card back, the opposite of {@link #remove(int)}. The indexes
+	 * from the index of the card on increase by one, just like they do in the
+	 * list of flashcards.
+	 *
+	 * @param index            The index of the card in the list of flashcards.
+	 * @param shuffledPosition The position the card had in the shuffled order, as
+	 *                         returned by {@link #shuffledPositionOf(int)} before
+	 *                         it got removed, -1 if it was never shuffled.
+	 */
+	public void insert(int index, int shuffledPosition) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		if (order != null) {
+			if (shuffledPosition < 0) {
+				// The card got removed before the first shuffle, back then the shuffled
+				// order was the initial one.
+				shuffledPosition = index;
+			}
+			if (shuffledPosition > size) {
+				throw new IndexOutOfBoundsException("Position: " + shuffledPosition + ", Size: " + size);
+			}
+			ensureCapacity();
+			for (int i = 0; i < size; i++) {
+				if (order[i] >= index) {
+					order[i]++;
+				}
+			}
+			System.arraycopy(order, shuffledPosition, order, shuffledPosition + 1, size - shuffledPosition);
+			order[shuffledPosition] = index;
+		}
+		size++;
+		inverseValid = false;
+	}
+
+	private void ensureCapacity() {
+		if (size == order.length) {
+			int[] bigger = new int[Math.max(10, size + (size >> 1))];
+			System.arraycopy(order, 0, bigger, 0, size);
+			order = bigger;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int tmp = order[i];
+		order[i] = order[j];
+		order[j] = tmp;
+	}
+}
@@ -0,0 +1,131 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Shows the numbers collected by {@link Metrics}: how often every operation ran,
+ * how long it took on average and at most, and which file or action was the
+ * slowest. The numbers can be exported to a CSV file or reset.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class DiagnosticsDialog extends Dialog {
+	private static final String[] COLUMNS = { "Messung", "Anzahl", "Durchschnitt (ms)", "Maximum (ms)", "Langsamste",
+			"Karteikarten", "Bytes" };
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell The parent window the dialog will appear in.
+	 */
+	public DiagnosticsDialog(Shell shell) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		setText("Diagnose");
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 */
+	public void open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(3, true));
+		Label label = new Label(shell, SWT.NONE);
+		label.setText("&Messungen seit dem Start:");
+		GridData data = new GridData();
+		data.horizontalSpan = 3;
+		label.setLayoutData(data);
+		Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL);
+		table.setHeaderVisible(true);
+		for (int i = 0; i < COLUMNS.length; i++) {
+			TableColumn column = new TableColumn(table, i == 0 || i == 4 ? SWT.LEFT : SWT.RIGHT);
+			column.setText(COLUMNS[i]);
+		}
+		fillTable(table);
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 3;
+		data.heightHint = 300;
+		table.setLayoutData(data);
+		Button export = new Button(shell, SWT.PUSH);
+		export.setText("&Exportieren...");
+		export.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		export.addListener(SWT.Selection, event -> export(shell));
+		Button reset = new Button(shell, SWT.PUSH);
+		reset.setText("&Zurcksetzen");
+		reset.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		reset.addListener(SWT.Selection, event -> {
+			Metrics.reset();
+			fillTable(table);
+		});
+		Button close = new Button(shell, SWT.PUSH);
+		close.setText("&Schlieen");
+		close.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		close.addListener(SWT.Selection, event -> shell.close());
+		shell.setDefaultButton(close);
+		table.setFocus();
+	}
+
+	private void fillTable(Table table) {
+		table.removeAll();
+		for (Metrics.Stat stat : Metrics.getStats()) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(new String[] { stat.getName(), Long.toString(stat.getCount()),
+					Metrics.toMillis(stat.getTotalNanos() / Math.max(stat.getCount(), 1)),
+					Metrics.toMillis(stat.getMaxNanos()), stat.getSlowest(), Long.toString(stat.getCards()),
+					Long.toString(stat.getBytes()) });
+		}
+		for (TableColumn column : table.getColumns()) {
+			column.pack();
+		}
+	}
+
+	private void export(Shell shell) {
+		FileDialog dialog = new FileDialog(shell, SWT.SAVE);
+		dialog.setText("Messungen exportieren");
+		dialog.setFilterNames(new String[] { "CSV-Dateien (*.csv)" });
+		dialog.setFilterExtensions(new String[] { "*.csv" });
+		dialog.setFileName("jflashcard-metrics.csv");
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		try {
+			Metrics.export(new File(path));
+		} catch (IOException ioe) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Die Messungen konnten nicht exportiert werden:" + System.lineSeparator()
+					+ ioe.getLocalizedMessage());
+			errorMB.open();
+		}
+	}
+}
@@ -0,0 +1,354 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Finds cards which are the same or nearly the same, e.g. with typos or
+ * different punctuation, within a group or across several groups. The tasks of
+ * this class are:
+ * <ul>
+ * <li>Normalize the sides of the cards like the search does, and drop
+ * punctuation and repeated whitespace,</li>
+ * <li>Put cards with the same normalized text into one cluster right
+ * away,</li>
+ * <li>Compute a MinHash signature from the character shingles of every other
+ * card and put the cards into buckets by bands of the signature (locality
+ * sensitive hashing), so only cards sharing a bucket get compared,</li>
+ * <li>Confirm these candidates by the Jaccard similarity of their shingles and
+ * join them into clusters.</li>
+ * </ul>
+ * Comparing every pair of cards would take quadratic time. This takes time
+ * linear in the number of cards for the signatures plus sorting the buckets,
+ * and within a bucket every card only gets compared with the first and the
+ * previous card. Similar cards are found with a high probability, not with
+ * certainty - the more similar, the more likely.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class DuplicateFinder {
+	/**
+	 * The similarity (Jaccard similarity of the shingles) two cards need at least
+	 * to be near duplicates, if not specified otherwise.
+	 */
+	public static final double DEFAULT_THRESHOLD = 0.6;
+
+	static final int SHINGLE_LENGTH = 2;
+	// 25 bands of 5 rows: cards with a similarity of 0.7 share a bucket with a
+	// probability of 99 %, those with 0.6 with 87 % and those with 0.1 with
+	// 0.03 %. Short texts have few shingles, so unrelated cards often share some.
+	static final int BANDS = 25;
+	static final int ROWS = 5;
+
+	// The hash functions of the signature, a * x + b with odd a, which permute the
+	// ints. The seed is fixed, so the same cards always give the same clusters.
+	private static final int[] A = new int[BANDS * ROWS];
+	private static final int[] B = new int[BANDS * ROWS];
+
+	static {
+		Random random = new Random(0x4A464344);
+		for (int i = 0; i < A.length; i++) {
+			A[i] = random.nextInt() | 1;
+			B[i] = random.nextInt();
+		}
+	}
+
+	private DuplicateFinder() {
+	}
+
+	/**
+	 * A card which is part of a cluster.
+	 */
+	public static class Duplicate {
+		private final int source;
+		private final int position;
+		private final Flashcard flashcard;
+
+		private Duplicate(int source, int position, Flashcard flashcard) {
+			this.source = source;
+			this.position = position;
+			this.flashcard = flashcard;
+		}
+
+		/**
+		 * Returns the index of the list of cards the card is in.
+		 *
+		 * @return The index of the source, 0 if there was only one.
+		 */
+		public int getSource() {
+			return source;
+		}
+
+		/**
+		 * Returns the position of the card in its list.
+		 *
+		 * @return The position.
+		 */
+		public int getPosition() {
+			return position;
+		}
+
+		/**
+		 * Returns the card.
+		 *
+		 * @return The flashcard.
+		 */
+		public Flashcard getFlashcard() {
+			return flashcard;
+		}
+	}
+
+	/**
+	 * Cards which are duplicates of each other.
+	 */
+	public static class Cluster {
+		private final List<Duplicate> members = new ArrayList<>();
+		private boolean exact = true;
+
+		/**
+		 * Returns the cards of the cluster.
+		 *
+		 * @return The cards, in the order of their sources and positions.
+		 */
+		public List<Duplicate> getMembers() {
+			return members;
+		}
+
+		/**
+		 * Checks if the cards are the same after normalizing them.
+		 *
+		 * @return True if all cards are the same, false if some are only similar.
+		 */
+		public boolean isExact() {
+			return exact;
+		}
+	}
+
+	/**
+	 * Finds the duplicates within a list of cards.
+	 *
+	 * @param flashcards The cards.
+	 * @param threshold  The similarity near duplicates need at least, between 0 and
+	 *                   1.
+	 * @param progress   Counts the cards processed and may cancel the operation.
+	 * @return The clusters in the order of their first cards.
+	 * @throws IOException If the operation got cancelled.
+	 */
+	public static List<Cluster> find(List<Flashcard> flashcards, double threshold, Progress progress)
+			throws IOException {
+		return findAcross(List.of(flashcards), threshold, progress);
+	}
+
+	/**
+	 * Finds the duplicates within and across several lists of cards, e.g. the
+	 * groups of a library.
+	 *
+	 * @param sources   The lists of cards.
+	 * @param threshold The similarity near duplicates need at least, between 0 and
+	 *                  1.
+	 * @param progress  Counts the cards processed and may cancel the operation.
+	 * @return The clusters in the order of their first cards.
+	 * @throws IOException If the operation got cancelled.
+	 */
+	public static List<Cluster> findAcross(List<? extends List<Flashcard>> sources, double threshold,
+			Progress progress) throws IOException {
+		int n = 0;
+		for (List<Flashcard> source : sources) {
+			n += source.size();
+		}
+		Duplicate[] cards = new Duplicate[n];
+		String[] texts = new String[n];
+		int[] parent = new int[n];
+		// Cards with the same text are done here, only the first of them needs a
+		// signature.
+		Map<String, Integer> firstWithText = new HashMap<>();
+		int[] unique = new int[n];
+		int uniqueCount = 0;
+		int i = 0;
+		for (int s = 0; s < sources.size(); s++) {
+			List<Flashcard> source = sources.get(s);
+			for (int p = 0; p < source.size(); p++, i++) {
+				cards[i] = new Duplicate(s, p, source.get(p));
+				texts[i] = textOf(cards[i].flashcard);
+				Integer first = firstWithText.putIfAbsent(texts[i], i);
+				parent[i] = first != null ? first : i;
+				if (first == null) {
+					unique[uniqueCount++] = i;
+				}
+			}
+		}
+		firstWithText = null;
+		progress.begin(uniqueCount);
+		// The hashes of the bands of every signature, one row per band.
+		int[][] bandHashes = new int[BANDS][uniqueCount];
+		int[] signature = new int[BANDS * ROWS];
+		for (int u = 0; u < uniqueCount; u++) {
+			sign(shinglesOf(texts[unique[u]]), signature);
+			for (int b = 0; b < BANDS; b++) {
+				int h = 1;
+				for (int r = 0; r < ROWS; r++) {
+					h = 31 * h + signature[b * ROWS + r];
+				}
+				bandHashes[b][u] = h;
+			}
+			progress.worked(1);
+		}
+		// Sorting the cards by the hash of a band puts every bucket in a row.
+		long[] sorted = new long[uniqueCount];
+		for (int b = 0; b < BANDS; b++) {
+			for (int u = 0; u < uniqueCount; u++) {
+				sorted[u] = ((long) bandHashes[b][u] << 32) | u;
+			}
+			bandHashes[b] = null;
+			Arrays.sort(sorted);
+			int start = 0;
+			for (int k = 1; k <= uniqueCount; k++) {
+				if (k == uniqueCount || (int) (sorted[k] >>> 32) != (int) (sorted[start] >>> 32)) {
+					for (int m = start + 1; m < k; m++) {
+						int card = unique[(int) sorted[m]];
+						compare(unique[(int) sorted[start]], card, texts, parent, threshold);
+						if (m - 1 > start) {
+							compare(unique[(int) sorted[m - 1]], card, texts, parent, threshold);
+						}
+					}
+					start = k;
+				}
+			}
+			progress.checkCancelled();
+		}
+		return collect(cards, texts, parent);
+	}
+
+	/**
+	 * Normalizes the text of a card for the comparison: both sides are normalized
+	 * like the search does, punctuation and whitespace become single spaces.
+	 *
+	 * @param f The card.
+	 * @return The normalized text, the sides separated by a line break.
+	 */
+	public static String textOf(Flashcard f) {
+		return String.join(" ", SearchIndex.tokenize(f.getSide1())) + "\n"
+				+ String.join(" ", SearchIndex.tokenize(f.getSide2()));
+	}
+
+	/**
+	 * Computes the similarity of two cards, the Jaccard similarity of the
+	 * character shingles of their normalized texts.
+	 *
+	 * @param f1 The first card.
+	 * @param f2 The second card.
+	 * @return The similarity between 0 (nothing in common) and 1 (the same).
+	 */
+	public static double similarity(Flashcard f1, Flashcard f2) {
+		return jaccard(shinglesOf(textOf(f1)), shinglesOf(textOf(f2)));
+	}
+
+	// Confirms a candidate pair and joins the clusters of the cards.
+	private static void compare(int a, int b, String[] texts, int[] parent, double threshold) {
+		int rootA = root(parent, a);
+		int rootB = root(parent, b);
+		if (rootA != rootB && jaccard(shinglesOf(texts[a]), shinglesOf(texts[b])) >= threshold) {
+			// The smaller index stays the root, so clusters start with their first card.
+			parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+		}
+	}
+
+	private static int root(int[] parent, int i) {
+		while (parent[i] != i) {
+			// Path halving keeps the trees flat.
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static List<Cluster> collect(Duplicate[] cards, String[] texts, int[] parent) {
+		Map<Integer, Cluster> clusters = new HashMap<>();
+		List<Cluster> res = new ArrayList<>();
+		for (int i = 0; i < cards.length; i++) {
+			int root = root(parent, i);
+			if (root == i) {
+				continue;
+			}
+			Cluster cluster = clusters.get(root);
+			if (cluster == null) {
+				cluster = new Cluster();
+				cluster.members.add(cards[root]);
+				clusters.put(root, cluster);
+				res.add(cluster);
+			}
+			cluster.members.add(cards[i]);
+			cluster.exact &= texts[i].equals(texts[root]);
+		}
+		return res;
+	}
+
+	/*
+	 * The hashes of all substrings of the shingle length, sorted and without
+	 * duplicates. Texts shorter than that are a single shingle.
+	 */
+	private static long[] shinglesOf(String text) {
+		int count = Math.max(text.length() - SHINGLE_LENGTH + 1, 1);
+		long[] res = new long[count];
+		for (int i = 0; i < count; i++) {
+			long h = 0;
+			for (int j = i; j < Math.min(i + SHINGLE_LENGTH, text.length()); j++) {
+				h = h * 65599 + text.charAt(j);
+			}
+			res[i] = mix(h);
+		}
+		Arrays.sort(res);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || res[i] != res[distinct - 1]) {
+				res[distinct++] = res[i];
+			}
+		}
+		return Arrays.copyOf(res, distinct);
+	}
+
+	private static void sign(long[] shingles, int[] signature) {
+		Arrays.fill(signature, Integer.MAX_VALUE);
+		for (long shingle : shingles) {
+			int x = (int) shingle;
+			// Simple enough for the JIT to use vector instructions.
+			for (int i = 0; i < signature.length; i++) {
+				signature[i] = Math.min(signature[i], A[i] * x + B[i]);
+			}
+		}
+	}
+
+	// Both arrays are sorted and without duplicates.
+	private static double jaccard(long[] a, long[] b) {
+		int common = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] == b[j]) {
+				common++;
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return (double) common / (a.length + b.length - common);
+	}
+
+	// The finalizer of MurmurHash3, spreads similar shingles over all bits.
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb3f99ae14b43L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,190 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Shows the clusters found by the {@link DuplicateFinder} as a tree: every
+ * cluster is a node, its cards are the children. The user can keep one card of
+ * a cluster and delete the others (merging the cluster into that card), or
+ * delete single cards. Nothing gets deleted before the changes are applied.
+ * Clusters from several groups of a library can only be viewed.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class DuplicatesDialog extends Dialog {
+	private final List<DuplicateFinder.Cluster> clusters;
+	// The names of the sources of the cards, null for a single group.
+	private final List<String> sourceNames;
+	private final boolean editable;
+	private final List<Flashcard> deleted = new ArrayList<>();
+	// The cards to delete, null if the dialog got canceled.
+	private List<Flashcard> result;
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell       The parent window the dialog will appear in.
+	 * @param clusters    The clusters to show.
+	 * @param sourceNames The names of the groups the cards come from, or null if
+	 *                    they come from the current group.
+	 * @param editable    Whether cards may be deleted.
+	 */
+	public DuplicatesDialog(Shell shell, List<DuplicateFinder.Cluster> clusters, List<String> sourceNames,
+			boolean editable) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.clusters = clusters;
+		this.sourceNames = sourceNames;
+		this.editable = editable;
+		setText("Doppelte Karteikarten");
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 *
+	 * @return The cards to delete or null if the dialog got canceled.
+	 */
+	public List<Flashcard> open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+		return result;
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(4, true));
+		Label label = new Label(shell, SWT.NONE);
+		label.setText("&Gefundene Duplikate (" + clusters.size() + "):");
+		GridData data = new GridData();
+		data.horizontalSpan = 4;
+		label.setLayoutData(data);
+		Tree tree = new Tree(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE | SWT.V_SCROLL);
+		tree.setHeaderVisible(true);
+		TreeColumn side1Column = new TreeColumn(tree, SWT.LEFT);
+		side1Column.setText("Seite 1");
+		TreeColumn side2Column = new TreeColumn(tree, SWT.LEFT);
+		side2Column.setText("Seite 2");
+		TreeColumn sourceColumn = new TreeColumn(tree, SWT.LEFT);
+		sourceColumn.setText(sourceNames != null ? "Gruppe, Nr." : "Nr.");
+		for (int c = 0; c < clusters.size(); c++) {
+			DuplicateFinder.Cluster cluster = clusters.get(c);
+			TreeItem node = new TreeItem(tree, SWT.NONE);
+			for (DuplicateFinder.Duplicate d : cluster.getMembers()) {
+				TreeItem item = new TreeItem(node, SWT.NONE);
+				item.setData(d.getFlashcard());
+				String number = Integer.toString(d.getPosition() + 1);
+				item.setText(new String[] { d.getFlashcard().getSide1(), d.getFlashcard().getSide2(),
+						sourceNames != null ? sourceNames.get(d.getSource()) + ", " + number : number });
+			}
+			node.setData(cluster.isExact() ? "exakt gleich" : "hnlich");
+			updateNode(node, c + 1);
+			node.setExpanded(true);
+		}
+		side1Column.pack();
+		side2Column.pack();
+		sourceColumn.pack();
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 4;
+		data.heightHint = 300;
+		tree.setLayoutData(data);
+		Button keep = new Button(shell, SWT.PUSH);
+		keep.setText("Nur diese &behalten");
+		keep.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		keep.setEnabled(false);
+		Button delete = new Button(shell, SWT.PUSH);
+		delete.setText("Karteikarte &lschen");
+		delete.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		delete.setEnabled(false);
+		Button ok = new Button(shell, SWT.PUSH);
+		ok.setText(editable ? "nderungen &bernehmen" : "&Schlieen");
+		ok.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		ok.addListener(SWT.Selection, event -> {
+			result = deleted;
+			shell.close();
+		});
+		Button cancel = new Button(shell, SWT.PUSH);
+		cancel.setText("&Abbrechen");
+		cancel.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		cancel.addListener(SWT.Selection, event -> {
+			result = null;
+			shell.close();
+		});
+		// Only cards can be kept or deleted, not whole clusters.
+		tree.addListener(SWT.Selection, event -> {
+			boolean card = editable && tree.getSelectionCount() > 0
+					&& tree.getSelection()[0].getParentItem() != null;
+			keep.setEnabled(card);
+			delete.setEnabled(card);
+		});
+		keep.addListener(SWT.Selection, event -> {
+			TreeItem item = tree.getSelection()[0];
+			TreeItem node = item.getParentItem();
+			for (TreeItem other : node.getItems()) {
+				if (other != item) {
+					deleted.add((Flashcard) other.getData());
+				}
+			}
+			// The cluster is resolved.
+			removeNode(tree, node);
+			keep.setEnabled(false);
+			delete.setEnabled(false);
+		});
+		delete.addListener(SWT.Selection, event -> {
+			TreeItem item = tree.getSelection()[0];
+			TreeItem node = item.getParentItem();
+			deleted.add((Flashcard) item.getData());
+			item.dispose();
+			if (node.getItemCount() < 2) {
+				removeNode(tree, node);
+			} else {
+				updateNode(node, tree.indexOf(node) + 1);
+				tree.setSelection(node);
+			}
+			keep.setEnabled(false);
+			delete.setEnabled(false);
+		});
+		shell.setDefaultButton(ok);
+		tree.setFocus();
+	}
+
+	private static void updateNode(TreeItem node, int number) {
+		node.setText(new String[] {
+				"Duplikat " + number + ": " + node.getItemCount() + " Karteikarten, " + node.getData(), "", "" });
+	}
+
+	// Removes a cluster and renumbers the following ones, the focus goes to the
+	// next cluster.
+	private static void removeNode(Tree tree, TreeItem node) {
+		int index = tree.indexOf(node);
+		node.dispose();
+		TreeItem[] nodes = tree.getItems();
+		for (int i = index; i < nodes.length; i++) {
+			updateNode(nodes[i], i + 1);
+		}
+		if (nodes.length > 0) {
+			tree.setSelection(nodes[Math.min(index, nodes.length - 1)]);
+		}
+	}
+}
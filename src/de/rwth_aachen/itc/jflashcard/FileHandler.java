@@ -40,6 +40,50 @@ public class FileHandler {
 		}
 	}
 
+	/**
+	 * Lets the user select the directory of a library, i.e. a directory holding
+	 * several groups.
+	 * 
+	 * @param shell The parent window, used to display the directory dialog.
+	 * @return The path to the directory or null if the dialog got canceled.
+	 */
+	public static String getLibraryPath(Shell shell) {
+		DirectoryDialog dialog = new DirectoryDialog(shell);
+		dialog.setText("Ordner der Bibliothek");
+		dialog.setMessage("Alle Gruppen in diesem Ordner und seinen Unterordnern werden geladen.");
+		return dialog.open();
+	}
+
+	/**
+	 * Lets the user select a CSV or TSV file to import flashcards from.
+	 * 
+	 * @param shell The parent window, used to display the file dialog.
+	 * @return The path to the file or null if the dialog got canceled.
+	 */
+	public static String getImportPath(Shell shell) {
+		FileDialog dialog = new FileDialog(shell, SWT.OPEN);
+		dialog.setText("Datei zum Importieren auswhlen");
+		dialog.setFilterNames(new String[] { "CSV- und TSV-Dateien", "Textdateien", "Alle Dateien" });
+		dialog.setFilterExtensions(new String[] { "*.csv;*.tsv;*.tab", "*.txt", "*.*" });
+		return dialog.open();
+	}
+
+	/**
+	 * Lets the user select another version of a group, e.g. to compare it with the
+	 * current group.
+	 * 
+	 * @param shell The parent window, used to display the file dialog.
+	 * @param title The title of the file dialog.
+	 * @return The path to the group file or null if the dialog got canceled.
+	 */
+	public static String getVersionPath(Shell shell, String title) {
+		FileDialog dialog = new FileDialog(shell, SWT.OPEN);
+		dialog.setText(title);
+		dialog.setFilterNames(new String[] { "Gruppen", "Alle Dateien" });
+		dialog.setFilterExtensions(new String[] { "*.xml;*.xml.gz;*.jfc", "*.*" });
+		return dialog.open();
+	}
+
 	/**
 	 * Returns the path to a certain directory. This gets used to make the user
 	 * select the destination directory of the new group file.
@@ -60,8 +104,8 @@ public class FileHandler {
 	}
 
 	/**
-	 * Returns path and group name (with .xml attached). Used to retrieve the info
-	 * of a group file, preparing switching to a different group.
+	 * Returns path and group name (with .xml, .xml.gz or .jfc attached). Used to retrieve
+	 * the info of a group file, preparing switching to a different group.
 	 * 
 	 * @param shell The parent window, used to display the file dialog.
 	 * @return An array with element 0 being path, element 1 being the group name or
@@ -70,9 +114,9 @@ public class FileHandler {
 	public static String[] getGroupFileInfo(Shell shell) {
 		FileDialog dialog = new FileDialog(shell, SWT.OPEN);
 		dialog.setText("Gruppe auswhlen");
-		// We only want XML files to show up, so we need to adjust the filters.
-		String[] filterNames = new String[] { "XML-Dateien" };
-		String[] filterExtensions = new String[] { "*.xml" };
+		// We only want group files to show up, so we need to adjust the filters.
+		String[] filterNames = new String[] { "Gruppen", "XML-Dateien", "Komprimierte Gruppen", "Binre Gruppen" };
+		String[] filterExtensions = new String[] { "*.xml;*.xml.gz;*.jfc", "*.xml", "*.xml.gz", "*.jfc" };
 		dialog.setFilterNames(filterNames);
 		dialog.setFilterExtensions(filterExtensions);
 		String path = dialog.open();
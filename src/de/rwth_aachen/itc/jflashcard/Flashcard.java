@@ -1,8 +1,14 @@
 package de.rwth_aachen.itc.jflashcard;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Implementation of a flashcard with two sides. The only purpose of this class
- * is to hold and return the text for the flashcard sides.
+ * is to hold and return the text for the flashcard sides. Every flashcard also
+ * has an ID which stays the same as long as the card exists, even when it gets
+ * saved and loaded again, so cards can be found without comparing their texts.
+ * A flag tells if the card got created or changed since the group was last
+ * saved.
  * 
  * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
  * @version 1.0.1, 2019-09-28
@@ -10,30 +16,72 @@ package de.rwth_aachen.itc.jflashcard;
  */
 
 public class Flashcard {
+	private final long id;
 	private String side1;
 	private String side2;
+	private boolean modified;
 
 	/**
-	 * The normal constructor for this class.
+	 * The normal constructor for this class. The flashcard gets a new ID and
+	 * counts as modified, as it isn't saved anywhere yet.
 	 * 
 	 * @param side1 The first side of the flashcard (must be of type String).
 	 * @param side2 The second side of the flashcard (must be of type String).
 	 */
 	public Flashcard(String side1, String side2) {
+		this(newId(), side1, side2);
+		modified = true;
+	}
+
+	/**
+	 * The constructor for flashcards which already have an ID, e.g. because they
+	 * got read from a file.
+	 * 
+	 * @param id    The ID of the flashcard.
+	 * @param side1 The first side of the flashcard (must be of type String).
+	 * @param side2 The second side of the flashcard (must be of type String).
+	 */
+	public Flashcard(long id, String side1, String side2) {
+		this.id = id;
 		this.side1 = side1;
 		this.side2 = side2;
 	}
 
 	/**
-	 * The copy constructor of the class.
+	 * The copy constructor of the class. The copy counts as unmodified, copies are
+	 * what gets written and cached, not what gets edited.
 	 * 
 	 * @param f The other flashcard object we copy the values from.
 	 */
 	public Flashcard(Flashcard f) {
+		this.id = f.getId();
 		this.side1 = f.getSide1();
 		this.side2 = f.getSide2();
 	}
 
+	/**
+	 * Creates a new random ID. IDs are positive and, with 63 random bits, unique
+	 * for all practical purposes, even across groups.
+	 * 
+	 * @return The new ID.
+	 */
+	public static long newId() {
+		long id;
+		do {
+			id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+		} while (id == 0);
+		return id;
+	}
+
+	/**
+	 * The getter for the ID.
+	 * 
+	 * @return The ID of the flashcard.
+	 */
+	public long getId() {
+		return id;
+	}
+
 	/**
 	 * The getter for side1.
 	 * 
@@ -59,6 +107,7 @@ public class Flashcard {
 	 */
 	public void setSide1(String side1) {
 		this.side1 = side1;
+		modified = true;
 	}
 
 	/**
@@ -68,6 +117,25 @@ public class Flashcard {
 	 */
 	public void setSide2(String side2) {
 		this.side2 = side2;
+		modified = true;
+	}
+
+	/**
+	 * Checks if the flashcard got created or changed since it was last saved.
+	 * 
+	 * @return True if the flashcard has unsaved changes.
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * The setter for the modification flag, e.g. to mark the flashcard as saved.
+	 * 
+	 * @param modified True if the flashcard has unsaved changes.
+	 */
+	public void setModified(boolean modified) {
+		this.modified = modified;
 	}
 
 	@Override
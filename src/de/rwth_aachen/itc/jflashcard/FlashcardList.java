@@ -0,0 +1,55 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.List;
+
+/**
+ * A list of flashcards which doesn't hold {@link Flashcard} objects, but
+ * creates them when a card is accessed. Changing such a card doesn't change the
+ * list, the card has to be put back with {@link #set(int, Object)}, which is
+ * what the UI does after every edit anyway.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public interface FlashcardList extends List<Flashcard> {
+	/**
+	 * Returns the ID of a card without creating the card.
+	 *
+	 * @param index The index of the card.
+	 * @return The ID of the card.
+	 */
+	long getId(int index);
+
+	/**
+	 * Creates a second list with the same cards in the same order, e.g. as a
+	 * snapshot to be written in the background. Changes to one of the lists don't
+	 * show up in the other one.
+	 *
+	 * @return The copy.
+	 */
+	FlashcardList copy();
+
+	/**
+	 * Removes several cards at once, with one pass over the list instead of one
+	 * per card. The result is the same as removing the cards one by one from the
+	 * highest index to the lowest.
+	 *
+	 * @param indexes The indexes of the cards, sorted ascending without
+	 *                duplicates.
+	 */
+	void removeIndexes(int[] indexes);
+
+	/**
+	 * Marks all cards as saved (see {@link Flashcard#isModified()}).
+	 */
+	void setSaved();
+
+	/**
+	 * Checks if any card is modified, e.g. because the file didn't store its ID
+	 * and it got a new one while being read.
+	 *
+	 * @return True if at least one card isn't saved.
+	 */
+	boolean isModified();
+}
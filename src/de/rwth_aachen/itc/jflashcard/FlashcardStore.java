@@ -0,0 +1,441 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A memory-compact list of flashcards. Instead of one object per card and one
+ * per side, the cards are stored in a few big arrays (columns):
+ * <ul>
+ * <li>The IDs of all cards in a long array,</li>
+ * <li>For every card, the numbers of its two side texts in an int array,</li>
+ * <li>The texts themselves, one after another in a byte array. Texts which
+ * only contain Latin-1 characters take one byte per character, all others are
+ * stored as UTF-8,</li>
+ * <li>Where each text starts in the byte array, in another int array.</li>
+ * </ul>
+ * Every distinct text is stored only once, so vocabulary groups repeating the
+ * same words (or the same empty side) get even smaller. {@link #get(int)}
+ * creates a {@link Flashcard} from the columns, {@link #set(int, Flashcard)}
+ * writes it back.
+ * <p>
+ * Texts which aren't used anymore after an edit or a deletion stay in the byte
+ * array until more than half of it is garbage, then the texts get compacted.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class FlashcardStore extends AbstractList<Flashcard> implements FlashcardList, RandomAccess {
+	// Compacting small stores isn't worth the effort.
+	private static final int MIN_COMPACTION_SIZE = 1 << 16;
+
+	// The card columns.
+	private long[] ids;
+	// side 1 of card i is text sides[2 * i], side 2 is text sides[2 * i + 1]
+	private int[] sides;
+	private final BitSet modified;
+	private int size;
+
+	// The text columns.
+	private byte[] pool;
+	private int poolSize;
+	// Copies share the byte array until one of them appends a text.
+	private boolean poolShared;
+	// text t is pool[textStart[t]] to pool[textStart[t + 1]]
+	private int[] textStart;
+	private final BitSet utf8;
+	private int textCount;
+	// Hash table of the texts for the deduplication, holding text number + 1.
+	private int[] table;
+	// Bytes of texts which might not be used by any card anymore.
+	private long garbage;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public FlashcardStore() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty store with room for some cards.
+	 *
+	 * @param capacity The number of cards the store should hold without growing.
+	 */
+	public FlashcardStore(int capacity) {
+		capacity = Math.max(capacity, 4);
+		ids = new long[capacity];
+		sides = new int[2 * capacity];
+		modified = new BitSet();
+		pool = new byte[16 * capacity];
+		textStart = new int[2 * capacity + 1];
+		utf8 = new BitSet();
+		// Grows with the number of distinct texts, which we can't know in advance.
+		table = new int[16];
+	}
+
+	/**
+	 * Creates a store holding the cards of another list.
+	 *
+	 * @param flashcards The cards to store.
+	 */
+	public FlashcardStore(Collection<Flashcard> flashcards) {
+		this(flashcards.size());
+		addAll(flashcards);
+		trimToSize();
+	}
+
+	private FlashcardStore(FlashcardStore other) {
+		ids = Arrays.copyOf(other.ids, Math.max(other.size, 4));
+		sides = Arrays.copyOf(other.sides, 2 * Math.max(other.size, 4));
+		modified = (BitSet) other.modified.clone();
+		size = other.size;
+		pool = other.pool;
+		poolSize = other.poolSize;
+		poolShared = true;
+		other.poolShared = true;
+		textStart = Arrays.copyOf(other.textStart, other.textCount + 1);
+		utf8 = (BitSet) other.utf8.clone();
+		textCount = other.textCount;
+		table = other.table.clone();
+		garbage = other.garbage;
+	}
+
+	/**
+	 * Creates a copy of the store. The copy shares the texts with the original
+	 * until one of them adds a new text, so copying is cheap.
+	 *
+	 * @return The copy.
+	 */
+	@Override
+	public FlashcardStore copy() {
+		return new FlashcardStore(this);
+	}
+
+	/**
+	 * Creates a flashcard holding the values of a card in the store. Changes of
+	 * the flashcard only get into the store through {@link #set(int, Flashcard)}.
+	 */
+	@Override
+	public Flashcard get(int index) {
+		checkIndex(index, size);
+		Flashcard f = new Flashcard(ids[index], text(sides[2 * index]), text(sides[2 * index + 1]));
+		f.setModified(modified.get(index));
+		return f;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Flashcard set(int index, Flashcard f) {
+		Flashcard old = get(index);
+		int side1 = intern(f.getSide1());
+		int side2 = intern(f.getSide2());
+		discard(sides[2 * index], side1);
+		discard(sides[2 * index + 1], side2);
+		ids[index] = f.getId();
+		sides[2 * index] = side1;
+		sides[2 * index + 1] = side2;
+		modified.set(index, f.isModified());
+		compactIfNeeded();
+		return old;
+	}
+
+	@Override
+	public void add(int index, Flashcard f) {
+		checkIndex(index, size + 1);
+		if (size == ids.length) {
+			int capacity = size + (size >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			sides = Arrays.copyOf(sides, 2 * capacity);
+		}
+		int side1 = intern(f.getSide1());
+		int side2 = intern(f.getSide2());
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		System.arraycopy(sides, 2 * index, sides, 2 * index + 2, 2 * (size - index));
+		for (int i = size; i > index; i--) {
+			modified.set(i, modified.get(i - 1));
+		}
+		ids[index] = f.getId();
+		sides[2 * index] = side1;
+		sides[2 * index + 1] = side2;
+		modified.set(index, f.isModified());
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public Flashcard remove(int index) {
+		Flashcard old = get(index);
+		discard(sides[2 * index], -1);
+		discard(sides[2 * index + 1], -1);
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		System.arraycopy(sides, 2 * index + 2, sides, 2 * index, 2 * (size - index - 1));
+		// Copies whole words, then moves the few modified cards.
+		BitSet tail = modified.get(index + 1, size);
+		modified.clear(index, size);
+		for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+			modified.set(index + i);
+		}
+		size--;
+		modCount++;
+		compactIfNeeded();
+		return old;
+	}
+
+	@Override
+	public void removeIndexes(int[] indexes) {
+		int count = indexes.length;
+		if (count == 0) {
+			return;
+		}
+		checkIndex(indexes[0], size);
+		checkIndex(indexes[count - 1], size);
+		int first = indexes[0];
+		int kept = first;
+		int next = 0;
+		for (int i = first; i < size; i++) {
+			if (next < count && indexes[next] == i) {
+				discard(sides[2 * i], -1);
+				discard(sides[2 * i + 1], -1);
+				next++;
+			} else {
+				ids[kept] = ids[i];
+				sides[2 * kept] = sides[2 * i];
+				sides[2 * kept + 1] = sides[2 * i + 1];
+				kept++;
+			}
+		}
+		BitSet tail = modified.get(first, size);
+		modified.clear(first, size);
+		for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+			int rank = Arrays.binarySearch(indexes, first + i);
+			if (rank < 0) {
+				// -rank - 1 removed cards were in front of it.
+				modified.set(first + i + rank + 1);
+			}
+		}
+		size = kept;
+		modCount++;
+		compactIfNeeded();
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		modified.clear();
+		garbage = poolSize;
+		modCount++;
+		compactIfNeeded();
+	}
+
+	@Override
+	public long getId(int index) {
+		checkIndex(index, size);
+		return ids[index];
+	}
+
+	@Override
+	public void setSaved() {
+		modified.clear();
+	}
+
+	@Override
+	public boolean isModified() {
+		return !modified.isEmpty();
+	}
+
+	/**
+	 * Shrinks the arrays to what the cards and texts need right now, e.g. after a
+	 * group got read.
+	 */
+	public void trimToSize() {
+		int capacity = Math.max(size, 4);
+		ids = Arrays.copyOf(ids, capacity);
+		sides = Arrays.copyOf(sides, 2 * capacity);
+		textStart = Arrays.copyOf(textStart, textCount + 1);
+		if (!poolShared) {
+			pool = Arrays.copyOf(pool, poolSize);
+		}
+	}
+
+	/**
+	 * Returns the number of distinct texts in the store.
+	 *
+	 * @return The number of texts.
+	 */
+	public int getTextCount() {
+		return textCount;
+	}
+
+	/**
+	 * Estimates the memory occupied by the store (the arrays, not counting the
+	 * object headers).
+	 *
+	 * @return The estimated number of bytes.
+	 */
+	public long getMemoryUsage() {
+		// A shared pool is counted for every store using it.
+		return 8L * ids.length + 4L * sides.length + modified.size() / 8 + pool.length + 4L * textStart.length
+				+ utf8.size() / 8 + 4L * table.length;
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	private String text(int t) {
+		int start = textStart[t];
+		return new String(pool, start, textStart[t + 1] - start,
+				utf8.get(t) ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+	}
+
+	/*
+	 * Returns the number of a text, adding it to the store if it's not there yet.
+	 */
+	private int intern(String s) {
+		boolean isUtf8 = false;
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 0xFF) {
+				isUtf8 = true;
+				break;
+			}
+		}
+		byte[] bytes = s.getBytes(isUtf8 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+		int hash = hash(bytes, 0, bytes.length, isUtf8);
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (table[slot] != 0) {
+			int t = table[slot] - 1;
+			int start = textStart[t];
+			if (utf8.get(t) == isUtf8
+					&& Arrays.equals(pool, start, textStart[t + 1], bytes, 0, bytes.length)) {
+				return t;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return append(bytes, isUtf8, slot);
+	}
+
+	private int append(byte[] bytes, boolean isUtf8, int slot) {
+		if (poolShared || poolSize + bytes.length > pool.length) {
+			long capacity = Math.max(pool.length, (long) poolSize + bytes.length);
+			if (poolSize + bytes.length > pool.length) {
+				capacity += capacity >> 1;
+			}
+			if (capacity > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("Die Texte der Gruppe sind zu gro.");
+			}
+			pool = Arrays.copyOf(pool, (int) capacity);
+			poolShared = false;
+		}
+		if (textCount + 2 > textStart.length) {
+			textStart = Arrays.copyOf(textStart, textStart.length + (textStart.length >> 1) + 1);
+		}
+		System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+		int t = textCount++;
+		textStart[t] = poolSize;
+		poolSize += bytes.length;
+		textStart[textCount] = poolSize;
+		utf8.set(t, isUtf8);
+		table[slot] = t + 1;
+		// Keep the table at most three quarters full.
+		if (4 * textCount > 3 * table.length) {
+			rehash(table.length * 2);
+		}
+		return t;
+	}
+
+	private void rehash(int capacity) {
+		table = new int[capacity];
+		int mask = capacity - 1;
+		for (int t = 0; t < textCount; t++) {
+			int slot = hash(pool, textStart[t], textStart[t + 1], utf8.get(t)) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = t + 1;
+		}
+	}
+
+	private static int hash(byte[] bytes, int from, int to, boolean isUtf8) {
+		int h = isUtf8 ? 1 : 0;
+		for (int i = from; i < to; i++) {
+			h = 31 * h + bytes[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/*
+	 * Counts a text as garbage if a card doesn't use it anymore. We don't count
+	 * how many cards use a text, so this overestimates - the compaction finds out.
+	 */
+	private void discard(int t, int replacement) {
+		if (t != replacement) {
+			garbage += textStart[t + 1] - textStart[t];
+		}
+	}
+
+	private void compactIfNeeded() {
+		if (poolSize >= MIN_COMPACTION_SIZE && garbage > poolSize / 2) {
+			compact();
+		}
+	}
+
+	/*
+	 * Copies the texts which are still used into a new byte array and renumbers
+	 * them.
+	 */
+	private void compact() {
+		int[] newNumber = new int[textCount];
+		Arrays.fill(newNumber, -1);
+		for (int i = 0; i < 2 * size; i++) {
+			newNumber[sides[i]] = 0;
+		}
+		int used = 0;
+		int usedBytes = 0;
+		for (int t = 0; t < textCount; t++) {
+			if (newNumber[t] == 0) {
+				newNumber[t] = used++;
+				usedBytes += textStart[t + 1] - textStart[t];
+			}
+		}
+		byte[] newPool = new byte[Math.max(usedBytes + (usedBytes >> 1), 16)];
+		int[] newStart = new int[Math.max(used + (used >> 1), 4) + 1];
+		BitSet newUtf8 = new BitSet();
+		int position = 0;
+		for (int t = 0; t < textCount; t++) {
+			int n = newNumber[t];
+			if (n >= 0) {
+				int length = textStart[t + 1] - textStart[t];
+				System.arraycopy(pool, textStart[t], newPool, position, length);
+				newStart[n] = position;
+				newUtf8.set(n, utf8.get(t));
+				position += length;
+			}
+		}
+		newStart[used] = position;
+		for (int i = 0; i < 2 * size; i++) {
+			sides[i] = newNumber[sides[i]];
+		}
+		pool = newPool;
+		poolSize = position;
+		poolShared = false;
+		textStart = newStart;
+		utf8.clear();
+		utf8.or(newUtf8);
+		textCount = used;
+		garbage = 0;
+		rehash(Math.max(Integer.highestOneBit(4 * used / 3) << 1, 16));
+	}
+}
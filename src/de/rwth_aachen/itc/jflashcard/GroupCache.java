@@ -0,0 +1,155 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the flashcard lists of recently opened groups in memory, so switching
+ * back and forth between groups doesn't parse the same file over and over
+ * again. The tasks of this class are:
+ * <ul>
+ * <li>Remember a parsed group together with the modification time and size of
+ * its file,</li>
+ * <li>Hand out a copy of the group as long as the file didn't change on
+ * disk,</li>
+ * <li>Evict the least recently used groups once the memory budget is
+ * exceeded.</li>
+ * </ul>
+ * The cache always stores and returns copies of the flashcards, as unsaved
+ * changes must not leak into the cached version of a group. The groups are kept
+ * as {@link FlashcardStore}s, which are small and cheap to copy.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class GroupCache {
+	/**
+	 * System property holding the memory budget of the cache in megabytes.
+	 */
+	public static final String BUDGET_PROPERTY = "jflashcard.cache.budget";
+
+	private static final long DEFAULT_BUDGET_MB = 64;
+
+	private final long budget;
+	private long usedBytes;
+	// A LinkedHashMap in access order iterates from the least to the most recently
+	// used entry, which is all we need for LRU eviction.
+	private final LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * Creates a cache with the budget taken from {@value #BUDGET_PROPERTY} (64 MB
+	 * if the property isn't set).
+	 */
+	public GroupCache() {
+		this(Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MB) << 20);
+	}
+
+	/**
+	 * Creates a cache with a specific memory budget.
+	 *
+	 * @param budget The estimated number of bytes the cached groups may occupy.
+	 */
+	public GroupCache(long budget) {
+		this.budget = budget;
+		entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns a copy of the cached flashcards of a group file, provided the file
+	 * still has the modification time and size it had when it got cached.
+	 *
+	 * @param file The group file.
+	 * @return A copy of the flashcard list or null if the group isn't cached or the
+	 *         file changed in the meantime.
+	 */
+	public synchronized FlashcardStore get(File file) {
+		String key = file.getAbsolutePath();
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.lastModified != file.lastModified() || entry.length != file.length()) {
+			// Someone else wrote the file, the cached version is worthless.
+			remove(key);
+			return null;
+		}
+		return entry.flashcards.copy();
+	}
+
+	/**
+	 * Stores a copy of a group. Should be called right after the group got read
+	 * from or written to the file, so the recorded modification time matches the
+	 * content. Groups which are bigger than the whole budget don't get cached.
+	 *
+	 * @param file       The group file.
+	 * @param flashcards The flashcards of the group as they are stored in the file.
+	 */
+	public synchronized void put(File file, List<Flashcard> flashcards) {
+		String key = file.getAbsolutePath();
+		remove(key);
+		FlashcardStore store = flashcards instanceof FlashcardStore ? ((FlashcardStore) flashcards).copy()
+				: new FlashcardStore(flashcards);
+		long size = store.getMemoryUsage();
+		if (size > budget) {
+			return;
+		}
+		entries.put(key, new Entry(file.lastModified(), file.length(), store, size));
+		usedBytes += size;
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (usedBytes > budget && it.hasNext()) {
+			usedBytes -= it.next().getValue().size;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Drops a group from the cache.
+	 *
+	 * @param file The group file.
+	 */
+	public synchronized void invalidate(File file) {
+		remove(file.getAbsolutePath());
+	}
+
+	/**
+	 * Drops all groups from the cache.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		usedBytes = 0;
+	}
+
+	/**
+	 * Returns the estimated number of bytes occupied by the cached groups.
+	 *
+	 * @return The estimated memory usage.
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	private void remove(String key) {
+		Entry old = entries.remove(key);
+		if (old != null) {
+			usedBytes -= old.size;
+		}
+	}
+
+	private static class Entry {
+		final long lastModified;
+		final long length;
+		final FlashcardStore flashcards;
+		final long size;
+
+		Entry(long lastModified, long length, FlashcardStore flashcards, long size) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.flashcards = flashcards;
+			this.size = size;
+		}
+	}
+}
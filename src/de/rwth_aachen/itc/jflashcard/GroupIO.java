@@ -0,0 +1,328 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Reads and writes group files in whatever format they are stored in. The
+ * format is determined by the file extension:
+ * <ul>
+ * <li>.xml for the XML format handled by {@link XMLHandler},</li>
+ * <li>.xml.gz for gzip-compressed XML, which gets decompressed and compressed on
+ * the fly,</li>
+ * <li>.zip for containers holding several XML groups, which can be read like a
+ * single group of all their cards, but only be written as a whole,</li>
+ * <li>.jfc for the binary format handled by {@link BinaryHandler}.</li>
+ * </ul>
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class GroupIO {
+	/**
+	 * The extension of XML group files.
+	 */
+	public static final String XML_EXTENSION = ".xml";
+	/**
+	 * The extension of binary group files.
+	 */
+	public static final String BINARY_EXTENSION = ".jfc";
+	/**
+	 * The extension of gzip-compressed XML group files.
+	 */
+	public static final String GZIP_EXTENSION = ".xml.gz";
+	/**
+	 * The extension of zip containers holding several XML groups.
+	 */
+	public static final String CONTAINER_EXTENSION = ".zip";
+
+	/**
+	 * Checks if a file is a binary group file.
+	 *
+	 * @param file The group file.
+	 * @return True for binary group files, false for XML group files.
+	 */
+	public static boolean isBinary(File file) {
+		return file.getName().toLowerCase(Locale.ROOT).endsWith(BINARY_EXTENSION);
+	}
+
+	/**
+	 * Checks if a file is a gzip-compressed XML group file.
+	 *
+	 * @param file The group file.
+	 * @return True for compressed group files.
+	 */
+	public static boolean isCompressed(File file) {
+		return file.getName().toLowerCase(Locale.ROOT).endsWith(GZIP_EXTENSION);
+	}
+
+	/**
+	 * Checks if a file is a zip container of several groups.
+	 *
+	 * @param file The file.
+	 * @return True for zip containers.
+	 */
+	public static boolean isContainer(File file) {
+		return file.getName().toLowerCase(Locale.ROOT).endsWith(CONTAINER_EXTENSION);
+	}
+
+	/**
+	 * Returns the extension of a file name, taking the double extension of
+	 * compressed groups into account.
+	 *
+	 * @param name The file name.
+	 * @return The extension including the dot, e.g. ".xml.gz", or an empty string
+	 *         if the name has none.
+	 */
+	public static String extensionOf(String name) {
+		if (name.toLowerCase(Locale.ROOT).endsWith(GZIP_EXTENSION)) {
+			return name.substring(name.length() - GZIP_EXTENSION.length());
+		}
+		int dot = name.lastIndexOf('.');
+		return dot >= 0 ? name.substring(dot) : "";
+	}
+
+	/**
+	 * Reads all flashcards of a group file.
+	 *
+	 * @param file The group file.
+	 * @return The flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read or parsed.
+	 */
+	public static List<Flashcard> read(File file) throws IOException {
+		return read(file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #read(File)}, reporting the progress of the operation.
+	 *
+	 * @param file     The group file.
+	 * @param progress Counts the work done and may cancel the operation.
+	 * @return The flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read or parsed or the operation got
+	 *                     cancelled.
+	 */
+	public static List<Flashcard> read(File file, Progress progress) throws IOException {
+		try (Metrics.Span span = Metrics.load(file)) {
+			List<Flashcard> flashcards = isBinary(file) ? BinaryHandler.readFlashcardList(file, progress)
+					: XMLHandler.readFlashcardList(file, progress);
+			span.cards(flashcards.size()).bytes(file.length());
+			return flashcards;
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse.getLocalizedMessage(), xse);
+		}
+	}
+
+	/**
+	 * Streams the flashcards of a group file to a consumer without keeping them in
+	 * a list. XML groups get parsed in a single pass, binary groups get mapped.
+	 *
+	 * @param file     The group file.
+	 * @param consumer Receives every flashcard in the order they are stored in the
+	 *                 file.
+	 * @param progress Counts the work done and may cancel the operation.
+	 * @throws IOException If the file can't be read or parsed or the operation got
+	 *                     cancelled.
+	 */
+	public static void stream(File file, Consumer<Flashcard> consumer, Progress progress) throws IOException {
+		if (isBinary(file)) {
+			// Unmapped right away, a batch run would otherwise keep every file mapped
+			// until the next garbage collection.
+			try (MappedGroup group = MappedGroup.open(file)) {
+				progress.begin(group.size());
+				for (int i = 0; i < group.size(); i++) {
+					consumer.accept(group.get(i));
+					progress.worked(1);
+				}
+			}
+			return;
+		}
+		try {
+			XMLHandler.streamFlashcardList(file, consumer, progress);
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse.getLocalizedMessage(), xse);
+		}
+	}
+
+	/**
+	 * Replaces the content of a group file.
+	 *
+	 * @param flashcards The flashcards to write.
+	 * @param file       The group file.
+	 * @throws IOException If the file couldn't be written. The old file is
+	 *                     unchanged in that case.
+	 */
+	public static void write(List<Flashcard> flashcards, File file) throws IOException {
+		write(flashcards, file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #write(List, File)}, reporting the progress of the operation.
+	 *
+	 * @param flashcards The flashcards to write.
+	 * @param file       The group file.
+	 * @param progress   Counts the work done and may cancel the operation.
+	 * @throws IOException If the file couldn't be written or the operation got
+	 *                     cancelled. The old file is unchanged in that case.
+	 */
+	public static void write(List<Flashcard> flashcards, File file, Progress progress) throws IOException {
+		if (isContainer(file)) {
+			throw new IOException(
+					"\"" + file.getName() + "\" enthlt mehrere Gruppen und kann nur als Ganzes geschrieben werden.");
+		}
+		try (Metrics.Span span = Metrics.save(file)) {
+			if (isBinary(file)) {
+				BinaryHandler.writeFlashcardList(flashcards, file, progress);
+			} else {
+				XMLHandler.writeFlashcardList(flashcards, file, progress);
+			}
+			span.cards(flashcards.size()).bytes(file.length());
+		}
+	}
+
+	/**
+	 * Reads all groups of a zip container.
+	 *
+	 * @param file     The zip container.
+	 * @param progress Counts the bytes read and may cancel the operation.
+	 * @return The flashcards of every group by the name of the group, in the order
+	 *         of the entries.
+	 * @throws IOException If the container can't be read or parsed or the
+	 *                     operation got cancelled.
+	 */
+	public static Map<String, List<Flashcard>> readContainer(File file, Progress progress) throws IOException {
+		try (Metrics.Span span = Metrics.load(file)) {
+			Map<String, List<Flashcard>> groups = new LinkedHashMap<>();
+			long[] cards = new long[1];
+			XMLHandler.streamContainer(file, group -> {
+				List<Flashcard> flashcards = groups.computeIfAbsent(group, g -> new FlashcardStore());
+				return f -> {
+					flashcards.add(f);
+					cards[0]++;
+				};
+			}, progress);
+			span.cards(cards[0]).bytes(file.length());
+			return groups;
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse.getLocalizedMessage(), xse);
+		}
+	}
+
+	/**
+	 * Replaces the content of a zip container.
+	 *
+	 * @param groups   The flashcards of every group by the name of the group.
+	 * @param file     The zip container.
+	 * @param progress Counts the work done and may cancel the operation.
+	 * @throws IOException If the container couldn't be written or the operation
+	 *                     got cancelled. The old container is unchanged in that
+	 *                     case.
+	 */
+	public static void writeContainer(Map<String, ? extends List<Flashcard>> groups, File file, Progress progress)
+			throws IOException {
+		try (Metrics.Span span = Metrics.save(file)) {
+			XMLHandler.writeContainer(groups, file, progress);
+			long cards = 0;
+			for (List<Flashcard> flashcards : groups.values()) {
+				cards += flashcards.size();
+			}
+			span.cards(cards).bytes(file.length());
+		}
+	}
+
+	/**
+	 * Converts a group file into the format of the target file, e.g. to migrate an
+	 * XML group to the binary format and back.
+	 *
+	 * @param source The group file to convert.
+	 * @param target The group file to create or replace.
+	 * @throws IOException If one of the files can't be read or written.
+	 */
+	public static void convert(File source, File target) throws IOException {
+		if (!isBinary(source) && isBinary(target)) {
+			BinaryHandler.convertXMLToBinary(source, target);
+		} else if (isBinary(source) && !isBinary(target)) {
+			BinaryHandler.convertBinaryToXML(source, target);
+		} else {
+			write(read(source), target);
+		}
+	}
+
+	/**
+	 * Opens a group file as a {@link LazyFlashcardList}, which only keeps an index
+	 * of the cards in memory. The cards get mapped from a temporary binary file,
+	 * which is deleted when the list gets closed (see
+	 * {@link LazyFlashcardList#close()}), or at the latest when the application
+	 * exits. Binary groups get copied, as the group file itself gets replaced by
+	 * every save, which Windows refuses for a mapped file. XML groups have no
+	 * offsets we could use, so they get converted.
+	 *
+	 * @param file The group file.
+	 * @return The lazily loaded flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read or parsed.
+	 */
+	public static LazyFlashcardList readLazily(File file) throws IOException {
+		return readLazily(file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #readLazily(File)}, reporting the progress of the conversion
+	 * of XML groups.
+	 *
+	 * @param file     The group file.
+	 * @param progress Counts the work done and may cancel the operation.
+	 * @return The lazily loaded flashcards in the order they are stored in the file.
+	 * @throws IOException If the file can't be read or parsed or the operation got
+	 *                     cancelled.
+	 */
+	public static LazyFlashcardList readLazily(File file, Progress progress) throws IOException {
+		try (Metrics.Span span = Metrics.load(file)) {
+			File temporary = File.createTempFile("jflashcard", BINARY_EXTENSION);
+			// Only in case the list never gets closed.
+			temporary.deleteOnExit();
+			LazyFlashcardList flashcards;
+			try {
+				if (isBinary(file)) {
+					copy(file, temporary, progress);
+				} else {
+					BinaryHandler.convertXMLToBinary(file, temporary, progress);
+				}
+				flashcards = new LazyFlashcardList(MappedGroup.open(temporary), temporary);
+			} catch (IOException ioe) {
+				temporary.delete();
+				throw ioe;
+			}
+			span.cards(flashcards.size()).bytes(file.length());
+			return flashcards;
+		}
+	}
+
+	// Copies a file in chunks, so the copy can be cancelled.
+	private static void copy(File source, File target, Progress progress) throws IOException {
+		try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = in.size();
+			progress.begin(size);
+			long position = 0;
+			while (position < size) {
+				long copied = in.transferTo(position, Math.min(size - position, 1 << 24), out);
+				if (copied <= 0) {
+					throw new IOException("Die Datei " + source + " wurde beim Kopieren verndert.");
+				}
+				position += copied;
+				progress.worked(copied);
+			}
+		}
+	}
+}
@@ -0,0 +1,715 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes made to a group. Every time a flashcard
+ * gets added, edited or deleted, a small record is appended to the file
+ * &lt;group file&gt;.journal, so a one-card change doesn't require rewriting
+ * the whole group file and survives a crash. The tasks of this class are:
+ * <ul>
+ * <li>Replay the journal on top of the flashcards read from the group
+ * file,</li>
+ * <li>Append add/edit/delete/insert records as the changes happen,</li>
+ * <li>Fold the journal into the group file, either on save or in the
+ * background once the journal grows past a threshold.</li>
+ * </ul>
+ * The indexes in the records always refer to the initial (unshuffled) order of
+ * the group. Each record carries a checksum, so a record which only got written
+ * halfway before a crash is recognized and dropped. The header holds the length
+ * and modification time of the group file the records apply to, so a journal
+ * which doesn't belong to the group file doesn't get replayed on top of it. The
+ * group file gets replaced before the journal gets cut, so the header also marks
+ * the records being folded into the group file; if the process dies in between,
+ * these records get skipped on the next open.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class GroupJournal {
+	/**
+	 * System property holding the journal size in bytes above which the journal
+	 * gets compacted into the group file.
+	 */
+	public static final String THRESHOLD_PROPERTY = "jflashcard.journal.threshold";
+
+	private static final int MAGIC = 0x4A464A33; // "JFJ3"
+	// Journals written before the header held the state of the group file.
+	private static final int MAGIC_V2 = 0x4A464A32; // "JFJ2"
+	// Journals written before the cards had IDs.
+	private static final int MAGIC_V1 = 0x4A464A31; // "JFJ1"
+	// magic, length and modification time of the group file, end of the records
+	// being compacted (0 if none)
+	private static final int HEADER_SIZE = 4 + 8 + 8 + 8;
+	private static final int PENDING_OFFSET = 20;
+	private static final int HEADER_SIZE_V2 = 4;
+	private static final byte ADD = 'A';
+	private static final byte EDIT = 'E';
+	private static final byte DELETE = 'D';
+	// A deleted card put back by undo, only written by version 1.1 and later.
+	private static final byte INSERT = 'I';
+
+	// One thread for all groups is plenty, compactions are rare.
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "JFlashcard journal compaction");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final File groupFile;
+	private final File journalFile;
+	private final long threshold;
+	// Serializes the writes of the group file (save vs. background compaction).
+	private final Object groupFileLock = new Object();
+	private FileChannel channel;
+	private long size;
+	private int replayedRecords;
+	// Where the records to keep start in the journal file read by replay().
+	private long replayStart;
+	// Whether the journal file read by replay() needs a new header.
+	private boolean staleHeader;
+	// Incremented by every save, so an outdated compaction can detect it's too late.
+	private int generation;
+	private boolean compacting;
+	private IOException compactionError;
+
+	private GroupJournal(File groupFile) {
+		this.groupFile = groupFile;
+		journalFile = getJournalFile(groupFile);
+		threshold = Long.getLong(THRESHOLD_PROPERTY, 1 << 20);
+	}
+
+	/**
+	 * Returns the journal file belonging to a group file.
+	 *
+	 * @param groupFile The group file.
+	 * @return The journal file (which doesn't necessarily exist).
+	 */
+	public static File getJournalFile(File groupFile) {
+		return new File(groupFile.getPath() + ".journal");
+	}
+
+	/**
+	 * Checks if a group has changes in its journal which aren't in the group file
+	 * yet. Such a group must not be rewritten by anything but the journal, as the
+	 * records refer to the positions of the cards.
+	 *
+	 * @param groupFile The group file.
+	 * @return True if the journal holds at least one record.
+	 */
+	public static boolean hasRecords(File groupFile) {
+		File journalFile = getJournalFile(groupFile);
+		long length = journalFile.length();
+		if (length <= HEADER_SIZE_V2) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new FileInputStream(journalFile))) {
+			return in.readInt() != MAGIC || length > HEADER_SIZE;
+		} catch (IOException ioe) {
+			// Better safe than sorry.
+			return true;
+		}
+	}
+
+	/**
+	 * Opens the journal of a group and replays it on top of the flashcards read
+	 * from the group file. A broken record at the end of the journal (from a
+	 * crash while it got written) gets cut off. A journal which belongs to another
+	 * version of the group file, e.g. because the file got replaced by hand, or
+	 * holds a record which doesn't apply to it, gets moved aside to &lt;journal
+	 * file&gt;.outdated (numbered if that exists already) instead of being
+	 * replayed.
+	 *
+	 * @param groupFile  The group file.
+	 * @param flashcards The flashcards from the group file in their initial order.
+	 *                   The list is modified by the replay.
+	 * @return The opened journal.
+	 * @throws IOException If the journal can't be read or opened.
+	 */
+	public static GroupJournal open(File groupFile, List<Flashcard> flashcards) throws IOException {
+		GroupJournal journal = new GroupJournal(groupFile);
+		long validLength = -1;
+		if (journal.journalFile.isFile()) {
+			validLength = journal.replay(flashcards);
+			if (validLength < 0) {
+				Files.move(journal.journalFile.toPath(), journal.outdatedFile().toPath());
+			}
+		}
+		if (validLength >= 0 && journal.staleHeader) {
+			// Older format or records already in the group file: the rest gets a new
+			// header.
+			journal.channel = FileChannel.open(journal.journalFile.toPath(), StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			journal.size = validLength;
+			journal.dropHead(journal.replayStart);
+		} else {
+			journal.channel = FileChannel.open(journal.journalFile.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			if (validLength < HEADER_SIZE) {
+				journal.channel.truncate(0);
+				writeFully(journal.channel, journal.header(), 0);
+				journal.size = HEADER_SIZE;
+			} else {
+				journal.channel.truncate(validLength);
+				journal.size = validLength;
+			}
+		}
+		return journal;
+	}
+
+	/*
+	 * Applies all intact records to the list and returns the length of the intact
+	 * part of the journal, or -1 if the journal doesn't belong to the group file.
+	 * The records get checked against the list before the first one is applied,
+	 * so a journal which doesn't apply leaves the list as it was.
+	 */
+	private long replay(List<Flashcard> flashcards) throws IOException {
+		int magic;
+		long start;
+		try (DataInputStream in = openJournal()) {
+			try {
+				magic = in.readInt();
+			} catch (EOFException eofe) {
+				// Cut off while it got created.
+				return 0;
+			}
+			if (magic != MAGIC && magic != MAGIC_V2 && magic != MAGIC_V1) {
+				throw new IOException("Die Datei " + journalFile + " ist kein Journal.");
+			}
+			start = HEADER_SIZE_V2;
+			staleHeader = magic != MAGIC;
+			if (magic == MAGIC) {
+				long length;
+				long modified;
+				long pending;
+				try {
+					length = in.readLong();
+					modified = in.readLong();
+					pending = in.readLong();
+				} catch (EOFException eofe) {
+					return 0;
+				}
+				start = HEADER_SIZE;
+				if (length != groupFile.length() || modified != groupFile.lastModified()) {
+					if (pending <= HEADER_SIZE || pending > journalFile.length()) {
+						return -1;
+					}
+					// The group file got replaced by the compaction, but the journal didn't get
+					// cut anymore: the records up to the mark are in the group file already.
+					start = pending;
+					staleHeader = true;
+				}
+			}
+		}
+		replayStart = start;
+		boolean hasIds = magic != MAGIC_V1;
+		long valid = start;
+		int records = 0;
+		try (DataInputStream in = openJournal(start)) {
+			int size = flashcards.size();
+			byte[] payload;
+			while ((payload = readRecord(in, valid)) != null) {
+				size = check(payload, size, hasIds);
+				if (size < 0) {
+					// The journal doesn't belong to this version of the group file.
+					return -1;
+				}
+				valid += payload.length + 8;
+				records++;
+			}
+		}
+		try (DataInputStream in = openJournal(start)) {
+			long position = start;
+			for (int i = 0; i < records; i++) {
+				byte[] payload = readRecord(in, position);
+				apply(payload, flashcards, hasIds);
+				position += payload.length + 8;
+			}
+		}
+		replayedRecords = records;
+		return valid;
+	}
+
+	private DataInputStream openJournal() throws IOException {
+		return new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile), 1 << 16));
+	}
+
+	private DataInputStream openJournal(long position) throws IOException {
+		DataInputStream in = openJournal();
+		try {
+			for (long skip = position; skip > 0;) {
+				int skipped = in.skipBytes((int) Math.min(skip, 1 << 20));
+				if (skipped == 0) {
+					throw new EOFException();
+				}
+				skip -= skipped;
+			}
+		} catch (IOException ioe) {
+			in.close();
+			throw ioe;
+		}
+		return in;
+	}
+
+	/*
+	 * Reads the record at a position of the journal file, null if there is no
+	 * intact record, e.g. because it only got written halfway before a crash.
+	 */
+	private byte[] readRecord(DataInputStream in, long position) throws IOException {
+		try {
+			int length = in.readInt();
+			if (length <= 0 || position + length + 8 > journalFile.length()) {
+				return null;
+			}
+			byte[] payload = new byte[length];
+			in.readFully(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			return (int) crc.getValue() == in.readInt() ? payload : null;
+		} catch (EOFException eofe) {
+			return null;
+		}
+	}
+
+	/*
+	 * Checks if a record applies to a list of a size and returns the size of the
+	 * list afterwards, -1 if it doesn't apply. Whether a record applies only
+	 * depends on the size, not on the cards.
+	 */
+	private static int check(byte[] payload, int size, boolean hasIds) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+			byte op = in.readByte();
+			int index = in.readInt();
+			if (op == ADD) {
+				if (hasIds) {
+					in.readLong();
+				}
+				readString(in);
+				readString(in);
+				return size + 1;
+			} else if (op == EDIT && index >= 0 && index < size) {
+				readString(in);
+				readString(in);
+				return size;
+			} else if (op == DELETE && index >= 0 && index < size) {
+				return size - 1;
+			} else if (op == INSERT && hasIds && index >= 0 && index <= size) {
+				in.readLong();
+				readString(in);
+				readString(in);
+				return size + 1;
+			}
+		} catch (IOException | RuntimeException e) {
+			// The record is too short for its texts.
+		}
+		return -1;
+	}
+
+	// Applies a record which passed check().
+	private static void apply(byte[] payload, List<Flashcard> flashcards, boolean hasIds) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte op = in.readByte();
+		int index = in.readInt();
+		if (op == ADD) {
+			long id = hasIds ? in.readLong() : Flashcard.newId();
+			Flashcard f = new Flashcard(id, readString(in), readString(in));
+			// It's not in the group file yet.
+			f.setModified(true);
+			flashcards.add(f);
+		} else if (op == EDIT) {
+			Flashcard f = flashcards.get(index);
+			f.setSide1(readString(in));
+			f.setSide2(readString(in));
+			flashcards.set(index, f);
+		} else if (op == DELETE) {
+			flashcards.remove(index);
+		} else {
+			Flashcard f = new Flashcard(in.readLong(), readString(in), readString(in));
+			f.setModified(true);
+			flashcards.add(index, f);
+		}
+	}
+
+	// Earlier outdated journals are kept, each might hold the only copy of changes.
+	private File outdatedFile() {
+		File file = new File(journalFile.getPath() + ".outdated");
+		for (int i = 2; file.exists(); i++) {
+			file = new File(journalFile.getPath() + ".outdated" + i);
+		}
+		return file;
+	}
+
+	/**
+	 * Returns how many records got replayed when the journal was opened, i.e. how
+	 * many changes weren't saved into the group file yet.
+	 *
+	 * @return The number of replayed records.
+	 */
+	public int getReplayedRecords() {
+		return replayedRecords;
+	}
+
+	/**
+	 * Records a flashcard appended to the end of the group.
+	 *
+	 * @param f The new flashcard.
+	 * @throws IOException If the record can't be written.
+	 */
+	public void recordAdd(Flashcard f) throws IOException {
+		append(ADD, -1, f);
+	}
+
+	/**
+	 * Records many flashcards appended to the end of the group, e.g. by an import.
+	 * The records get written at once and forced to the disk only once, so a
+	 * batch costs about as much as a single record.
+	 *
+	 * @param batch The new flashcards in the order they got appended.
+	 * @throws IOException If the records can't be written. A record which only
+	 *                     got written halfway gets dropped when the journal is
+	 *                     replayed, the ones before it are kept.
+	 */
+	public void recordAdds(List<Flashcard> batch) throws IOException {
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		for (Flashcard f : batch) {
+			records.write(encode(ADD, -1, f));
+		}
+		write(ByteBuffer.wrap(records.toByteArray()));
+	}
+
+	/**
+	 * Records new texts for a flashcard.
+	 *
+	 * @param index The index of the flashcard in the initial order.
+	 * @param f     The flashcard with its new texts.
+	 * @throws IOException If the record can't be written.
+	 */
+	public void recordEdit(int index, Flashcard f) throws IOException {
+		append(EDIT, index, f);
+	}
+
+	/**
+	 * Records the deletion of a flashcard.
+	 *
+	 * @param index The index of the flashcard in the initial order.
+	 * @throws IOException If the record can't be written.
+	 */
+	public void recordDelete(int index) throws IOException {
+		append(DELETE, index, null);
+	}
+
+	/**
+	 * Records a deleted flashcard put back at its old place, e.g. by undo.
+	 *
+	 * @param index The index of the flashcard in the initial order.
+	 * @param f     The flashcard, with the ID it had before.
+	 * @throws IOException If the record can't be written.
+	 */
+	public void recordInsert(int index, Flashcard f) throws IOException {
+		append(INSERT, index, f);
+	}
+
+	private void append(byte op, int index, Flashcard f) throws IOException {
+		write(ByteBuffer.wrap(encode(op, index, f)));
+	}
+
+	private synchronized void write(ByteBuffer records) throws IOException {
+		int length = records.remaining();
+		writeFully(channel, records, size);
+		// The whole point of the journal is that the change survives a crash.
+		channel.force(false);
+		size += length;
+	}
+
+	// A record: the length of the payload, the payload and its checksum.
+	private static byte[] encode(byte op, int index, Flashcard f) throws IOException {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(payload);
+		out.writeByte(op);
+		out.writeInt(index);
+		if (op == ADD || op == INSERT) {
+			// Added cards must keep their ID, other files might refer to it already.
+			out.writeLong(f.getId());
+		}
+		if (f != null) {
+			writeString(out, f.getSide1());
+			writeString(out, f.getSide2());
+		}
+		CRC32 crc = new CRC32();
+		crc.update(payload.toByteArray());
+		ByteBuffer record = ByteBuffer.allocate(payload.size() + 8);
+		record.putInt(payload.size()).put(payload.toByteArray()).putInt((int) crc.getValue());
+		return record.array();
+	}
+
+	/**
+	 * Returns true if the journal grew past the compaction threshold.
+	 *
+	 * @return True if {@link #compactInBackground(List)} should be called.
+	 */
+	public synchronized boolean needsCompaction() {
+		return size > threshold && !compacting;
+	}
+
+	/**
+	 * Writes a snapshot of the group into the group file in the background and
+	 * removes the records contained in the snapshot from the journal. Records
+	 * appended in the meantime are kept.
+	 *
+	 * @param snapshot A copy of all flashcards in their initial order, reflecting
+	 *                 every record appended so far. It must not be modified
+	 *                 afterwards.
+	 * @return False if a compaction is already running, so nothing happens.
+	 */
+	public boolean compactInBackground(List<Flashcard> snapshot) {
+		return compactInBackground(snapshot, null);
+	}
+
+	/**
+	 * Same as {@link #compactInBackground(List)}, running a callback once the
+	 * snapshot is in the group file.
+	 *
+	 * @param snapshot  A copy of all flashcards in their initial order, reflecting
+	 *                  every record appended so far. It must not be modified
+	 *                  afterwards.
+	 * @param onWritten Runs on the compaction thread after the snapshot got
+	 *                  written, may be null. It doesn't run if writing failed or
+	 *                  the snapshot was outdated.
+	 * @return False if a compaction is already running, so nothing happens.
+	 */
+	public boolean compactInBackground(List<Flashcard> snapshot, Runnable onWritten) {
+		final long mark;
+		final int snapshotGeneration;
+		synchronized (this) {
+			if (compacting) {
+				return false;
+			}
+			compacting = true;
+			mark = size;
+			snapshotGeneration = generation;
+		}
+		COMPACTOR.execute(() -> {
+			try {
+				synchronized (groupFileLock) {
+					// If the group got saved in the meantime, the snapshot is outdated.
+					if (snapshotGeneration == getGeneration()) {
+						writeGroupFile(snapshot, mark, new Progress());
+						if (onWritten != null) {
+							onWritten.run();
+						}
+					}
+				}
+			} catch (IOException ioe) {
+				// Nothing is lost, the journal is still complete.
+				synchronized (this) {
+					compactionError = ioe;
+				}
+			} finally {
+				synchronized (this) {
+					compacting = false;
+					notifyAll();
+				}
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Returns the error of the last failed background compaction.
+	 *
+	 * @return The exception or null if no compaction failed.
+	 */
+	public synchronized IOException getCompactionError() {
+		return compactionError;
+	}
+
+	/**
+	 * Saves the whole group into the group file and empties the journal.
+	 *
+	 * @param flashcards All flashcards of the group in their initial order.
+	 * @throws IOException If the group file couldn't be written. The journal is
+	 *                     kept in that case.
+	 */
+	public void save(List<Flashcard> flashcards) throws IOException {
+		save(flashcards, new Progress());
+	}
+
+	/**
+	 * Same as {@link #save(List)}, reporting the progress of writing the group
+	 * file.
+	 *
+	 * @param flashcards All flashcards of the group in their initial order.
+	 * @param progress   Counts the work done and may cancel the operation.
+	 * @throws IOException If the group file couldn't be written or the operation
+	 *                     got cancelled. The journal is kept in that case.
+	 */
+	public void save(List<Flashcard> flashcards, Progress progress) throws IOException {
+		synchronized (groupFileLock) {
+			long mark;
+			synchronized (this) {
+				mark = size;
+			}
+			writeGroupFile(flashcards, mark, progress);
+			synchronized (this) {
+				generation++;
+				// The list holds every change, also the ones recorded while it got written.
+				if (size > HEADER_SIZE) {
+					dropHead(size);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Replaces the group file and cuts the records up to mark from the journal.
+	 * The mark goes into the header first: should the process die after the group
+	 * file got replaced but before the journal got cut, the next open skips the
+	 * records which are in the group file already.
+	 */
+	private void writeGroupFile(List<Flashcard> flashcards, long mark, Progress progress) throws IOException {
+		setPending(mark);
+		try {
+			GroupIO.write(flashcards, groupFile, progress);
+		} catch (IOException ioe) {
+			// The group file is unchanged, all records still apply to it.
+			setPending(0);
+			throw ioe;
+		}
+		dropHead(mark);
+	}
+
+	private synchronized void setPending(long mark) throws IOException {
+		writeFully(channel, ByteBuffer.allocate(8).putLong(0, mark), PENDING_OFFSET);
+		channel.force(false);
+	}
+
+	/**
+	 * Deletes all records, dropping the changes which weren't saved.
+	 *
+	 * @throws IOException If the journal can't be truncated.
+	 */
+	public void discard() throws IOException {
+		synchronized (groupFileLock) {
+			synchronized (this) {
+				generation++;
+				dropHead(size);
+			}
+		}
+	}
+
+	/**
+	 * Closes the journal. A compaction which is still running gets finished
+	 * first. An empty journal file gets deleted.
+	 *
+	 * @throws IOException If the file can't be closed.
+	 */
+	public synchronized void close() throws IOException {
+		boolean interrupted = false;
+		while (compacting) {
+			try {
+				wait();
+			} catch (InterruptedException ie) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		if (size <= HEADER_SIZE) {
+			Files.deleteIfExists(journalFile.toPath());
+		}
+	}
+
+	private synchronized int getGeneration() {
+		return generation;
+	}
+
+	/*
+	 * Removes all records before mark by copying the remaining ones into a new
+	 * journal which then replaces the old one.
+	 */
+	private synchronized void dropHead(long mark) throws IOException {
+		long tail = size - mark;
+		ByteBuffer rest = ByteBuffer.allocate((int) tail);
+		while (rest.hasRemaining() && channel.read(rest, mark + rest.position()) >= 0) {
+			// keep reading
+		}
+		rest.flip();
+		ByteBuffer header = header();
+		AtomicFile.write(journalFile, out -> {
+			out.write(header.array());
+			out.write(rest.array(), 0, rest.limit());
+		});
+		channel.close();
+		channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		size = HEADER_SIZE + tail;
+	}
+
+	// A header for the current state of the group file, nothing being compacted.
+	private ByteBuffer header() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putLong(groupFile.length()).putLong(groupFile.lastModified()).putLong(0);
+		header.flip();
+		return header;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		// writeUTF() is limited to 64 KB, flashcards aren't.
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns a copy of the flashcards which is safe to hand over to
+	 * {@link #compactInBackground(List)}.
+	 *
+	 * @param flashcards The flashcards in their initial order.
+	 * @return A list of copies of the flashcards.
+	 */
+	public static List<Flashcard> snapshot(List<Flashcard> flashcards) {
+		if (flashcards instanceof FlashcardList) {
+			// These lists create the flashcards on access, so copying their columns is
+			// enough.
+			return ((FlashcardList) flashcards).copy();
+		}
+		List<Flashcard> res = new ArrayList<>(flashcards.size());
+		for (Flashcard f : flashcards) {
+			res.add(new Flashcard(f));
+		}
+		return res;
+	}
+}
@@ -0,0 +1,428 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares two versions of a group and merges them, e.g. two copies of a group
+ * file which were edited by different people. The tasks of this class are:
+ * <ul>
+ * <li>Match the cards of the versions by their ID, and cards whose IDs differ
+ * (groups saved before cards had IDs get new ones on every read) by their
+ * texts,</li>
+ * <li>Without a common base version: list the cards which are only in theirs
+ * (added), only in ours (removed) or have different texts (changed), and merge
+ * both versions into their union, keeping our texts, so no card gets
+ * lost,</li>
+ * <li>With the base version both started from: find out what each side did
+ * since and apply their additions, deletions and edits to ours. Changes both
+ * sides made differently are conflicts, which keep our card, or the edited one
+ * if the other side deleted it.</li>
+ * </ul>
+ * The cards get matched through hash tables on primitive arrays (see
+ * {@link IdIndex}), so the time is linear in the number of cards, and the cards
+ * added by them get inserted into ours after the card they follow in theirs.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class GroupMerger {
+	private GroupMerger() {
+	}
+
+	/**
+	 * The kinds of differences.
+	 */
+	public enum Kind {
+		/**
+		 * The card is only in theirs, or was added by them since the base.
+		 */
+		ADDED,
+		/**
+		 * The card is only in ours, or was deleted by them since the base.
+		 */
+		REMOVED,
+		/**
+		 * The texts of the card differ, or were edited by them since the base.
+		 */
+		CHANGED,
+		/**
+		 * Both sides changed the card differently since the base, or one deleted it
+		 * and the other edited it.
+		 */
+		CONFLICT
+	}
+
+	/**
+	 * A card which differs between the versions.
+	 */
+	public static class Change {
+		private final Kind kind;
+		private final Flashcard ours;
+		private final Flashcard theirs;
+		private final Flashcard base;
+
+		private Change(Kind kind, Flashcard ours, Flashcard theirs, Flashcard base) {
+			this.kind = kind;
+			this.ours = ours;
+			this.theirs = theirs;
+			this.base = base;
+		}
+
+		/**
+		 * Returns the kind of the difference.
+		 *
+		 * @return The kind.
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns our version of the card.
+		 *
+		 * @return The card or null if it isn't in ours.
+		 */
+		public Flashcard getOurs() {
+			return ours;
+		}
+
+		/**
+		 * Returns their version of the card.
+		 *
+		 * @return The card or null if it isn't in theirs.
+		 */
+		public Flashcard getTheirs() {
+			return theirs;
+		}
+
+		/**
+		 * Returns the version of the card in the base.
+		 *
+		 * @return The card or null if there is no base or the card isn't in it.
+		 */
+		public Flashcard getBase() {
+			return base;
+		}
+	}
+
+	/**
+	 * The differences between the versions and the merged group.
+	 */
+	public static class Result {
+		private final List<Change> changes = new ArrayList<>();
+		private final int[] counts = new int[Kind.values().length];
+		private final FlashcardStore merged;
+
+		private Result(int expectedSize) {
+			merged = new FlashcardStore(expectedSize);
+		}
+
+		private void add(Kind kind, Flashcard ours, Flashcard theirs, Flashcard base) {
+			add(new Change(kind, ours, theirs, base));
+		}
+
+		private void add(Change change) {
+			changes.add(change);
+			counts[change.kind.ordinal()]++;
+		}
+
+		/**
+		 * Returns the differences in the order of the merged group, followed by the
+		 * cards which aren't in it.
+		 *
+		 * @return The differences, an empty list if the versions are the same.
+		 */
+		public List<Change> getChanges() {
+			return Collections.unmodifiableList(changes);
+		}
+
+		/**
+		 * Counts the differences of a kind.
+		 *
+		 * @param kind The kind.
+		 * @return The number of differences.
+		 */
+		public int getCount(Kind kind) {
+			return counts[kind.ordinal()];
+		}
+
+		/**
+		 * Returns the merged group. Cards from ours keep their IDs, cards added by
+		 * them keep theirs.
+		 *
+		 * @return The flashcards of the merged group.
+		 */
+		public List<Flashcard> getMerged() {
+			return merged;
+		}
+	}
+
+	/**
+	 * Compares two versions of a group without a common base.
+	 *
+	 * @param ours   Our version.
+	 * @param theirs Their version.
+	 * @return The differences and the union of both versions.
+	 */
+	public static Result diff(List<Flashcard> ours, List<Flashcard> theirs) {
+		return merge(null, ours, theirs);
+	}
+
+	/**
+	 * Merges two versions of a group.
+	 *
+	 * @param base   The version both started from, null if it isn't known.
+	 * @param ours   Our version, which the changes get applied to.
+	 * @param theirs Their version.
+	 * @return The differences and the merged group.
+	 */
+	public static Result merge(List<Flashcard> base, List<Flashcard> ours, List<Flashcard> theirs) {
+		int o = ours.size();
+		int t = theirs.size();
+		BitSet takenOurs = new BitSet(o);
+		BitSet takenTheirs = new BitSet(t);
+		int[] baseInOurs = null;
+		int[] baseInTheirs = null;
+		BitSet theirsFromBase = new BitSet(t);
+		if (base != null) {
+			baseInOurs = match(base, new BitSet(), ours, takenOurs);
+			baseInTheirs = match(base, new BitSet(), theirs, takenTheirs);
+			for (int th : baseInTheirs) {
+				if (th >= 0) {
+					theirsFromBase.set(th);
+				}
+			}
+		}
+		// Cards new on both sides (or all cards, without a base) match each other.
+		int[] theirsInOurs = match(theirs, theirsFromBase, ours, takenOurs);
+		int[] ourBase = invert(baseInOurs, o);
+		int[] ourTheirs = invert(theirsInOurs, o);
+		if (base != null) {
+			for (int b = 0; b < base.size(); b++) {
+				if (baseInOurs[b] >= 0) {
+					ourTheirs[baseInOurs[b]] = baseInTheirs[b];
+				}
+			}
+		}
+		List<List<Change>> inserted = collectInsertions(base, ours, theirs, baseInOurs, baseInTheirs, theirsInOurs,
+				theirsFromBase);
+		Result result = new Result(Math.max(o, t));
+		insert(inserted.get(0), result);
+		List<Change> removed = new ArrayList<>();
+		for (int i = 0; i < o; i++) {
+			Flashcard our = ours.get(i);
+			int b = ourBase[i];
+			int th = ourTheirs[i];
+			Flashcard their = th >= 0 ? theirs.get(th) : null;
+			if (base == null || b < 0) {
+				// Only ours had it before, or we can't tell: it stays.
+				result.merged.add(our);
+				if (their == null) {
+					if (base == null) {
+						result.add(Kind.REMOVED, our, null, null);
+					}
+				} else if (!sameTexts(our, their)) {
+					result.add(base == null ? Kind.CHANGED : Kind.CONFLICT, our, their, null);
+				}
+			} else {
+				Flashcard original = base.get(b);
+				boolean oursChanged = !sameTexts(our, original);
+				if (their == null) {
+					if (oursChanged) {
+						// Deleted by them, edited by us: the edit shouldn't get lost.
+						result.merged.add(our);
+						result.add(Kind.CONFLICT, our, null, original);
+					} else {
+						removed.add(new Change(Kind.REMOVED, our, null, original));
+					}
+				} else if (!sameTexts(their, original) && !sameTexts(our, their)) {
+					if (oursChanged) {
+						result.merged.add(our);
+						result.add(Kind.CONFLICT, our, their, original);
+					} else {
+						result.merged.add(new Flashcard(our.getId(), their.getSide1(), their.getSide2()));
+						result.add(Kind.CHANGED, our, their, original);
+					}
+				} else {
+					result.merged.add(our);
+				}
+			}
+			insert(inserted.get(i + 1), result);
+		}
+		for (Change c : removed) {
+			result.add(c);
+		}
+		return result;
+	}
+
+	/**
+	 * Same as {@link #merge(List, List, List)}, reading the versions from group
+	 * files. Each file gets streamed through the parser once.
+	 *
+	 * @param base     The group file both started from, null if it isn't known.
+	 * @param ours     Our group file.
+	 * @param theirs   Their group file.
+	 * @param progress Counts the work done and may cancel the operation.
+	 * @return The differences and the merged group.
+	 * @throws IOException If one of the files can't be read or the operation got
+	 *                     cancelled.
+	 */
+	public static Result merge(File base, File ours, File theirs, Progress progress) throws IOException {
+		List<Flashcard> baseCards = base != null ? GroupIO.read(base, progress) : null;
+		List<Flashcard> ourCards = GroupIO.read(ours, progress);
+		List<Flashcard> theirCards = GroupIO.read(theirs, progress);
+		progress.checkCancelled();
+		return merge(baseCards, ourCards, theirCards);
+	}
+
+	/*
+	 * Finds the cards of theirs which join the merged group: the cards added by
+	 * them, and with a base the cards we deleted but they edited. Each one goes
+	 * after the last card before it in theirs which ours has as well, so the
+	 * result holds the cards to insert before the first card of ours at 0 and
+	 * after the card of ours at index i at i + 1 (null if there are none).
+	 */
+	private static List<List<Change>> collectInsertions(List<Flashcard> base, List<Flashcard> ours,
+			List<Flashcard> theirs, int[] baseInOurs, int[] baseInTheirs, int[] theirsInOurs, BitSet theirsFromBase) {
+		List<List<Change>> inserted = new ArrayList<>(Collections.nCopies(ours.size() + 1, (List<Change>) null));
+		int[] theirBase = invert(baseInTheirs, theirs.size());
+		int anchor = -1;
+		for (int i = 0; i < theirs.size(); i++) {
+			Flashcard their = theirs.get(i);
+			Change change;
+			if (theirsInOurs[i] >= 0) {
+				anchor = theirsInOurs[i];
+				continue;
+			} else if (theirsFromBase.get(i)) {
+				int b = theirBase[i];
+				if (baseInOurs[b] >= 0) {
+					anchor = baseInOurs[b];
+					continue;
+				} else if (sameTexts(their, base.get(b))) {
+					// We deleted it, they didn't touch it.
+					continue;
+				}
+				// We deleted it, they edited it meanwhile: the edit shouldn't get lost.
+				change = new Change(Kind.CONFLICT, null, their, base.get(b));
+			} else {
+				change = new Change(Kind.ADDED, null, their, null);
+			}
+			List<Change> list = inserted.get(anchor + 1);
+			if (list == null) {
+				list = new ArrayList<>(1);
+				inserted.set(anchor + 1, list);
+			}
+			list.add(change);
+		}
+		return inserted;
+	}
+
+	private static void insert(List<Change> inserted, Result result) {
+		if (inserted != null) {
+			for (Change c : inserted) {
+				result.merged.add(c.theirs);
+				result.add(c);
+			}
+		}
+	}
+
+	/*
+	 * Matches the cards of "from" with cards of "to", first by ID, then the rest
+	 * by their texts. Cards of "from" in skip and cards of "to" in taken don't
+	 * take part, the matched cards of "to" get added to taken. Returns the index
+	 * in "to" for every card of "from", -1 if there is none.
+	 */
+	private static int[] match(List<Flashcard> from, BitSet skip, List<Flashcard> to, BitSet taken) {
+		int[] res = new int[from.size()];
+		IdIndex ids = new IdIndex(to.size());
+		for (int i = 0; i < to.size(); i++) {
+			if (!taken.get(i)) {
+				ids.put(to.get(i).getId(), i);
+			}
+		}
+		boolean unmatched = false;
+		for (int i = 0; i < from.size(); i++) {
+			res[i] = -1;
+			if (skip.get(i)) {
+				continue;
+			}
+			int j = ids.get(from.get(i).getId());
+			if (j >= 0 && !taken.get(j)) {
+				res[i] = j;
+				taken.set(j);
+			} else {
+				unmatched = true;
+			}
+		}
+		if (!unmatched) {
+			return res;
+		}
+		// The texts get hashed into the same kind of table, the cards with the same
+		// hash are chained in the order of "to".
+		IdIndex heads = new IdIndex(to.size() - taken.cardinality());
+		int[] next = new int[to.size()];
+		for (int i = to.size() - 1; i >= 0; i--) {
+			if (!taken.get(i)) {
+				long hash = hash(to.get(i));
+				next[i] = heads.get(hash);
+				heads.put(hash, i);
+			}
+		}
+		for (int i = 0; i < from.size(); i++) {
+			if (res[i] >= 0 || skip.get(i)) {
+				continue;
+			}
+			Flashcard f = from.get(i);
+			long hash = hash(f);
+			int j = heads.get(hash);
+			while (j >= 0 && (taken.get(j) || !sameTexts(f, to.get(j)))) {
+				j = next[j];
+			}
+			if (j >= 0) {
+				res[i] = j;
+				taken.set(j);
+				if (heads.get(hash) == j) {
+					// Keeps runs of equal cards from getting walked again and again.
+					if (next[j] >= 0) {
+						heads.put(hash, next[j]);
+					} else {
+						heads.remove(hash);
+					}
+				}
+			}
+		}
+		return res;
+	}
+
+	// A positive hash of both sides, as the index doesn't take 0 and negative keys.
+	private static long hash(Flashcard f) {
+		long hash = ((long) f.getSide1().hashCode() << 32) ^ (f.getSide2().hashCode() & 0xFFFFFFFFL);
+		hash &= Long.MAX_VALUE;
+		return hash != 0 ? hash : 1;
+	}
+
+	private static boolean sameTexts(Flashcard a, Flashcard b) {
+		return a.getSide1().equals(b.getSide1()) && a.getSide2().equals(b.getSide2());
+	}
+
+	// The inverse of a matching: for every card of "to", the card of "from".
+	private static int[] invert(int[] matching, int size) {
+		int[] res = new int[size];
+		Arrays.fill(res, -1);
+		if (matching != null) {
+			for (int i = 0; i < matching.length; i++) {
+				if (matching[i] >= 0) {
+					res[matching[i]] = i;
+				}
+			}
+		}
+		return res;
+	}
+}
@@ -0,0 +1,235 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps flashcard IDs to positions in a list. This is a hash table with open
+ * addressing on primitive arrays, so an index over a million cards costs a few
+ * megabytes instead of a million boxed map entries, and looking a card up is
+ * O(1) instead of a scan over the list. Removing or inserting a card in the
+ * middle of the list still costs a pass over the table, as the positions of the
+ * following cards change; see {@link #removePositions(int[])} for removing
+ * many cards at once.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class IdIndex {
+	// IDs are always positive, so 0 marks a free slot.
+	private static final long FREE = 0;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates an empty index.
+	 *
+	 * @param expectedSize The number of IDs the index should hold without growing.
+	 */
+	public IdIndex(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Creates an index of the positions of all flashcards in a list. For a
+	 * {@link FlashcardList}, only the IDs get read, no flashcards get created. The
+	 * list doesn't get changed, so if two cards share an ID, only the later one is
+	 * in the index; use {@link #ofUnique(List)} for lists which get edited.
+	 *
+	 * @param flashcards The list.
+	 * @return The index.
+	 */
+	public static IdIndex of(List<Flashcard> flashcards) {
+		return of(flashcards, false);
+	}
+
+	/**
+	 * Same as {@link #of(List)}, but makes sure every ID is unique. A card whose ID
+	 * is taken by an earlier card, e.g. because the card got copied by hand in the
+	 * file, gets a new ID and counts as modified, so the new ID gets saved.
+	 *
+	 * @param flashcards The list, which gets changed if it holds duplicate IDs.
+	 * @return The index.
+	 */
+	public static IdIndex ofUnique(List<Flashcard> flashcards) {
+		return of(flashcards, true);
+	}
+
+	private static IdIndex of(List<Flashcard> flashcards, boolean unique) {
+		IdIndex index = new IdIndex(flashcards.size());
+		FlashcardList list = flashcards instanceof FlashcardList ? (FlashcardList) flashcards : null;
+		for (int i = 0; i < flashcards.size(); i++) {
+			long id = list != null ? list.getId(i) : flashcards.get(i).getId();
+			if (unique && index.get(id) >= 0) {
+				Flashcard f = flashcards.get(i);
+				Flashcard copy = new Flashcard(f.getSide1(), f.getSide2());
+				flashcards.set(i, copy);
+				id = copy.getId();
+			}
+			index.put(id, i);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the position of a flashcard.
+	 *
+	 * @param id The ID of the flashcard.
+	 * @return The position or -1 if the ID isn't in the index.
+	 */
+	public int get(long id) {
+		for (int i = slot(id);; i = (i + 1) & mask) {
+			if (keys[i] == id) {
+				return values[i];
+			} else if (keys[i] == FREE) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Sets the position of a flashcard, replacing the position it had if the ID
+	 * is in the index already.
+	 *
+	 * @param id       The ID of the flashcard (must be positive).
+	 * @param position The position of the flashcard.
+	 */
+	public void put(long id, int position) {
+		if (id <= 0) {
+			throw new IllegalArgumentException("Invalid ID: " + id);
+		}
+		int i = slot(id);
+		while (keys[i] != FREE && keys[i] != id) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == FREE) {
+			keys[i] = id;
+			size++;
+		}
+		values[i] = position;
+		// Keep the table at most half full, so the probe sequences stay short.
+		if (size * 2 > keys.length) {
+			grow();
+		}
+	}
+
+	/**
+	 * Removes a flashcard from the index.
+	 *
+	 * @param id The ID of the flashcard.
+	 * @return The position the flashcard had or -1 if the ID wasn't in the index.
+	 */
+	public int remove(long id) {
+		int i = slot(id);
+		while (keys[i] != id) {
+			if (keys[i] == FREE) {
+				return -1;
+			}
+			i = (i + 1) & mask;
+		}
+		int position = values[i];
+		size--;
+		// Move following entries back, so no probe sequence gets interrupted.
+		int j = i;
+		while (true) {
+			keys[i] = FREE;
+			long key;
+			int home;
+			do {
+				j = (j + 1) & mask;
+				key = keys[j];
+				if (key == FREE) {
+					return position;
+				}
+				home = slot(key);
+			} while (i <= j ? (i < home && home <= j) : (i < home || home <= j));
+			keys[i] = key;
+			values[i] = values[j];
+			i = j;
+		}
+	}
+
+	/**
+	 * Moves all positions after a removed flashcard one step forward, like
+	 * {@link List#remove(int)} does with the elements. This takes a pass over the
+	 * whole table.
+	 *
+	 * @param position The position of the removed flashcard.
+	 */
+	public void removePosition(int position) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE && values[i] > position) {
+				values[i]--;
+			}
+		}
+	}
+
+	/**
+	 * Moves the positions after several removed flashcards forward at once, like
+	 * {@link #removePosition(int)} called for each of them from the last to the
+	 * first, but with a single pass over the table.
+	 *
+	 * @param positions The positions of the removed flashcards, sorted ascending.
+	 */
+	public void removePositions(int[] positions) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE) {
+				// The number of removed positions before this one.
+				int before = Arrays.binarySearch(positions, values[i]);
+				values[i] -= before >= 0 ? before : -before - 1;
+			}
+		}
+	}
+
+	/**
+	 * Moves all positions from a flashcard put back into the list on one step
+	 * back, like {@link List#add(int, Object)} does with the elements. The
+	 * opposite of {@link #removePosition(int)}, taking a pass over the whole table
+	 * as well.
+	 *
+	 * @param position The position of the flashcard put back.
+	 */
+	public void insertPosition(int position) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE && values[i] >= position) {
+				values[i]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of IDs in the index.
+	 *
+	 * @return The number of IDs.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int slot(long id) {
+		// IDs from version 1 binary files are consecutive, so they need mixing.
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		mask = keys.length - 1;
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Lets the user choose delimiter, encoding and header line of a CSV file to
+ * import. Both delimiter and encoding are guessed from the file, and the first
+ * records are shown the way they would be imported, so a wrong choice is
+ * visible before anything gets imported.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class ImportDialog extends Dialog {
+	private static final String[] DELIMITER_NAMES = { "Komma (,)", "Semikolon (;)", "Tabulator" };
+	private static final char[] DELIMITERS = { ',', ';', '\t' };
+	private static final String[] CHARSETS = { "UTF-8", "windows-1252", "ISO-8859-1", "UTF-16" };
+	private static final int PREVIEW_RECORDS = 10;
+
+	private final File source;
+	private char delimiter;
+	private Charset charset;
+	private boolean header;
+	private boolean confirmed;
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell  The parent window the dialog will appear in.
+	 * @param source The CSV file to import.
+	 */
+	public ImportDialog(Shell shell, File source) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.source = source;
+		setText("Karteikarten importieren aus " + source.getName());
+		try {
+			charset = CsvImporter.guessCharset(source);
+			delimiter = CsvReader.guessDelimiter(source, charset);
+		} catch (IOException ioe) {
+			// The preview will show the error.
+			charset = StandardCharsets.UTF_8;
+			delimiter = ',';
+		}
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 *
+	 * @return True if the user wants to import, false if the dialog got canceled.
+	 */
+	public boolean open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+		return confirmed;
+	}
+
+	/**
+	 * Returns the chosen delimiter.
+	 *
+	 * @return The char between the fields.
+	 */
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * Returns the chosen encoding.
+	 *
+	 * @return The encoding of the file.
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Checks if the first record is a header to skip.
+	 *
+	 * @return True if the first record isn't a card.
+	 */
+	public boolean hasHeader() {
+		return header;
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(4, false));
+		Label delimiterLabel = new Label(shell, SWT.NONE);
+		delimiterLabel.setText("&Trennzeichen:");
+		Combo delimiterCombo = new Combo(shell, SWT.READ_ONLY);
+		delimiterCombo.setItems(DELIMITER_NAMES);
+		for (int i = 0; i < DELIMITERS.length; i++) {
+			if (DELIMITERS[i] == delimiter) {
+				delimiterCombo.select(i);
+			}
+		}
+		Label charsetLabel = new Label(shell, SWT.NONE);
+		charsetLabel.setText("&Kodierung:");
+		Combo charsetCombo = new Combo(shell, SWT.READ_ONLY);
+		charsetCombo.setItems(CHARSETS);
+		for (int i = 0; i < CHARSETS.length; i++) {
+			if (Charset.forName(CHARSETS[i]).equals(charset)) {
+				charsetCombo.select(i);
+			}
+		}
+		Button headerCheck = new Button(shell, SWT.CHECK);
+		headerCheck.setText("Die erste Zeile ist eine &berschrift");
+		GridData data = new GridData();
+		data.horizontalSpan = 4;
+		headerCheck.setLayoutData(data);
+		Label previewLabel = new Label(shell, SWT.NONE);
+		previewLabel.setText("&Vorschau (die ersten " + PREVIEW_RECORDS + " Zeilen):");
+		data = new GridData();
+		data.horizontalSpan = 4;
+		previewLabel.setLayoutData(data);
+		Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL);
+		table.setHeaderVisible(true);
+		for (String name : new String[] { "Zeile", "Seite 1", "Seite 2", "Fehler" }) {
+			new TableColumn(table, SWT.LEFT).setText(name);
+		}
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 4;
+		data.heightHint = 200;
+		data.widthHint = 500;
+		table.setLayoutData(data);
+		Button ok = new Button(shell, SWT.PUSH);
+		ok.setText("&Importieren");
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		ok.setLayoutData(data);
+		ok.addListener(SWT.Selection, event -> {
+			confirmed = true;
+			shell.close();
+		});
+		Button cancel = new Button(shell, SWT.PUSH);
+		cancel.setText("&Abbrechen");
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		cancel.setLayoutData(data);
+		cancel.addListener(SWT.Selection, event -> shell.close());
+		delimiterCombo.addListener(SWT.Selection, event -> {
+			delimiter = DELIMITERS[delimiterCombo.getSelectionIndex()];
+			fillTable(table);
+		});
+		charsetCombo.addListener(SWT.Selection, event -> {
+			charset = Charset.forName(CHARSETS[charsetCombo.getSelectionIndex()]);
+			fillTable(table);
+		});
+		headerCheck.addListener(SWT.Selection, event -> {
+			header = headerCheck.getSelection();
+			fillTable(table);
+		});
+		fillTable(table);
+		shell.setDefaultButton(ok);
+	}
+
+	private void fillTable(Table table) {
+		table.removeAll();
+		try {
+			List<CsvReader.Record> records = CsvImporter.preview(source, charset, delimiter, PREVIEW_RECORDS);
+			for (int i = 0; i < records.size(); i++) {
+				CsvReader.Record record = records.get(i);
+				List<String> fields = record.getFields();
+				String error = header && i == 0 ? "berschrift" : CsvImporter.check(record);
+				TableItem item = new TableItem(table, SWT.NONE);
+				item.setText(new String[] { Integer.toString(record.getLine()), oneLine(fields.get(0)),
+						fields.size() > 1 ? oneLine(fields.get(1)) : "", error != null ? error : "" });
+			}
+		} catch (IOException ioe) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(new String[] { "", "", "", ioe.getLocalizedMessage() });
+		}
+		for (TableColumn column : table.getColumns()) {
+			column.pack();
+		}
+	}
+
+	// Multi-line values would break the rows of the table.
+	private static String oneLine(String text) {
+		return text.replaceAll("\\s+", " ").strip();
+	}
+}
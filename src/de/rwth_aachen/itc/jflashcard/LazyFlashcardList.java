@@ -0,0 +1,340 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A list of flashcards for very large groups which only keeps an index in
+ * memory. The texts stay in a {@link MappedGroup} and get decoded when a card
+ * is accessed. The tasks of this class are:
+ * <ul>
+ * <li>Hold one int per card, referring either to a card in the mapped file or
+ * to a card added or replaced at runtime,</li>
+ * <li>Keep a small window of recently accessed cards, so stepping back and
+ * forth doesn't decode the same cards again,</li>
+ * <li>Keep cards which got edited (the UI edits flashcards in place and then
+ * puts them back with {@link #set(int, Flashcard)}).</li>
+ * </ul>
+ * Several lists created with {@link #copy()} share the mapped file and the
+ * materialized cards, so the same card is represented by the same object in all
+ * of them while it's in memory. {@link #close()} releases the mapped file once
+ * the group isn't needed anymore.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class LazyFlashcardList extends AbstractList<Flashcard> implements FlashcardList, RandomAccess {
+	/**
+	 * System property holding the file size in bytes above which groups get
+	 * opened as lazy lists.
+	 */
+	public static final String THRESHOLD_PROPERTY = "jflashcard.lazy.threshold";
+	/**
+	 * The number of cards decoded in advance on either side of the current card.
+	 */
+	public static final int READ_AHEAD = 8;
+
+	private final Source source;
+	// >= 0: index in the mapped file, < 0: -(index + 1) in source.extra
+	private int[] slots;
+	private int size;
+
+	/**
+	 * Creates a list holding all cards of a mapped group in file order.
+	 *
+	 * @param group The mapped group file.
+	 */
+	public LazyFlashcardList(MappedGroup group) {
+		this(group, null);
+	}
+
+	/**
+	 * Creates a list holding all cards of a mapped group in file order, which
+	 * owns the mapped file and deletes it on {@link #close()}.
+	 *
+	 * @param group         The mapped group file.
+	 * @param temporaryFile The file the group is mapped from, e.g. a binary copy
+	 *                      of an XML group, or null if the file should be kept.
+	 */
+	public LazyFlashcardList(MappedGroup group, File temporaryFile) {
+		source = new Source(group, temporaryFile);
+		size = group.size();
+		slots = new int[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = i;
+		}
+	}
+
+	private LazyFlashcardList(LazyFlashcardList other) {
+		source = other.source;
+		size = other.size;
+		slots = Arrays.copyOf(other.slots, Math.max(size, 10));
+	}
+
+	/**
+	 * Returns the file size above which groups should be opened lazily, taken from
+	 * {@value #THRESHOLD_PROPERTY} (16 MB if the property isn't set).
+	 *
+	 * @return The threshold in bytes.
+	 */
+	public static long getThreshold() {
+		return Long.getLong(THRESHOLD_PROPERTY, 16 << 20);
+	}
+
+	/**
+	 * Creates a second list with the same cards in the same order. Only the index
+	 * gets copied, the cards are shared.
+	 *
+	 * @return The copy.
+	 */
+	@Override
+	public LazyFlashcardList copy() {
+		return new LazyFlashcardList(this);
+	}
+
+	@Override
+	public Flashcard get(int index) {
+		checkIndex(index, size);
+		return source.get(slots[index]);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Flashcard set(int index, Flashcard f) {
+		checkIndex(index, size);
+		Flashcard old = source.get(slots[index]);
+		if (old == f && slots[index] >= 0) {
+			// The card got edited in place, so we must not forget it anymore.
+			if (f.isModified()) {
+				source.pin(slots[index]);
+			}
+		} else {
+			slots[index] = source.addExtra(f);
+		}
+		return old;
+	}
+
+	@Override
+	public void add(int index, Flashcard f) {
+		checkIndex(index, size + 1);
+		if (size == slots.length) {
+			slots = Arrays.copyOf(slots, Math.max(10, size + (size >> 1)));
+		}
+		System.arraycopy(slots, index, slots, index + 1, size - index);
+		slots[index] = source.addExtra(f);
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public Flashcard remove(int index) {
+		checkIndex(index, size);
+		Flashcard old = source.get(slots[index]);
+		System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+		size--;
+		modCount++;
+		return old;
+	}
+
+	@Override
+	public void removeIndexes(int[] indexes) {
+		int count = indexes.length;
+		if (count == 0) {
+			return;
+		}
+		checkIndex(indexes[0], size);
+		checkIndex(indexes[count - 1], size);
+		int kept = indexes[0];
+		int next = 0;
+		for (int i = indexes[0]; i < size; i++) {
+			if (next < count && indexes[next] == i) {
+				next++;
+			} else {
+				slots[kept++] = slots[i];
+			}
+		}
+		size = kept;
+		modCount++;
+	}
+
+	/**
+	 * Returns the ID of a card without decoding its texts.
+	 *
+	 * @param index The index of the card.
+	 * @return The ID of the card.
+	 */
+	@Override
+	public long getId(int index) {
+		checkIndex(index, size);
+		return source.getId(slots[index]);
+	}
+
+	/**
+	 * Marks all cards as saved. Only cards added or edited at runtime can be
+	 * modified, so the cards in the mapped file don't have to be decoded for this.
+	 * They stay in memory though, as the mapped file doesn't contain their changes.
+	 */
+	@Override
+	public void setSaved() {
+		source.setSaved();
+	}
+
+	/**
+	 * Checks if any card is modified. The cards of a version 1 file count as
+	 * modified until the list got saved, as the file doesn't store their IDs.
+	 */
+	@Override
+	public boolean isModified() {
+		return source.isModified();
+	}
+
+	/**
+	 * Releases the mapped file and deletes it if it's a temporary copy. The list
+	 * and all of its copies can't read cards from the file anymore afterwards.
+	 * Closing a list twice does nothing.
+	 */
+	public void close() {
+		source.close();
+	}
+
+	/**
+	 * Decodes the cards around a position of the presented order in advance,
+	 * wrapping around at the ends like the navigation does.
+	 *
+	 * @param order    The order the cards get presented in.
+	 * @param position The position of the current card in that order.
+	 */
+	public void prefetch(DeckOrder order, int position) {
+		int count = order.size();
+		if (count == 0) {
+			return;
+		}
+		for (int i = -READ_AHEAD; i <= READ_AHEAD; i++) {
+			source.get(slots[order.get(Math.floorMod(position + i, count))]);
+		}
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/*
+	 * The part shared between copies: the mapped file, the window of decoded cards
+	 * and the cards which got edited or added at runtime. Synchronized, as the
+	 * journal compaction reads copies in the background.
+	 */
+	private static class Source {
+		private MappedGroup group;
+		private final File temporaryFile;
+		private final Map<Integer, Flashcard> window;
+		private final Map<Integer, Flashcard> pinned = new LinkedHashMap<>();
+		private final List<Flashcard> extra = new ArrayList<>();
+		// The IDs of a version 1 file are only known to this session until a save.
+		private boolean idsSaved;
+
+		Source(MappedGroup group, File temporaryFile) {
+			this.group = group;
+			this.temporaryFile = temporaryFile;
+			window = new LinkedHashMap<Integer, Flashcard>(64, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, Flashcard> eldest) {
+					return size() > 4 * READ_AHEAD + 2;
+				}
+			};
+		}
+
+		synchronized Flashcard get(int slot) {
+			if (slot < 0) {
+				return extra.get(-slot - 1);
+			}
+			Flashcard f = pinned.get(slot);
+			if (f == null) {
+				f = window.get(slot);
+				if (f == null) {
+					f = mapped().get(slot);
+					window.put(slot, f);
+				}
+			}
+			return f;
+		}
+
+		synchronized void pin(int slot) {
+			Flashcard f = window.remove(slot);
+			if (f != null) {
+				pinned.put(slot, f);
+			}
+		}
+
+		synchronized int addExtra(Flashcard f) {
+			extra.add(f);
+			return -extra.size();
+		}
+
+		synchronized void setSaved() {
+			idsSaved = true;
+			for (Flashcard f : pinned.values()) {
+				f.setModified(false);
+			}
+			for (Flashcard f : extra) {
+				f.setModified(false);
+			}
+		}
+
+		synchronized boolean isModified() {
+			if (!idsSaved && !mapped().hasIds()) {
+				return true;
+			}
+			for (Flashcard f : pinned.values()) {
+				if (f.isModified()) {
+					return true;
+				}
+			}
+			for (Flashcard f : extra) {
+				if (f.isModified()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		synchronized long getId(int slot) {
+			if (slot < 0) {
+				return extra.get(-slot - 1).getId();
+			}
+			Flashcard f = pinned.get(slot);
+			return f != null ? f.getId() : mapped().getId(slot);
+		}
+
+		synchronized void close() {
+			if (group == null) {
+				return;
+			}
+			// Under the lock, so nobody reads the buffer while it gets unmapped.
+			group.close();
+			group = null;
+			if (temporaryFile != null) {
+				temporaryFile.delete();
+			}
+		}
+
+		private MappedGroup mapped() {
+			if (group == null) {
+				throw new IllegalStateException("Die Gruppe wurde bereits geschlossen.");
+			}
+			return group;
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * All groups below a directory, e.g. the groups of a course. The tasks of this
+ * class are:
+ * <ul>
+ * <li>Find the group files in a directory and its subdirectories,</li>
+ * <li>Describe them by their card count and a preview, taken from the
+ * {@link LibraryCatalog} for groups which didn't change since the last
+ * time,</li>
+ * <li>Read the other groups concurrently on a bounded fork/join pool, so
+ * loading hundreds of groups scales with the number of cores,</li>
+ * <li>Keep a read error instead of the description if a group couldn't be
+ * read,</li>
+ * <li>Find groups which don't match their checksum in the catalog anymore,</li>
+ * <li>Combine the cards of several groups into one deck for studying across
+ * groups.</li>
+ * </ul>
+ * Listing an unchanged library doesn't parse any group, the cards of a group
+ * are only read once they're needed. A group which can't be read doesn't stop
+ * the others from loading. Groups too
+ * big to be held in memory (see {@link LazyFlashcardList#getThreshold()}) are
+ * skipped, they have to be opened on their own. Changes which are only in the
+ * journal of a group aren't included, the groups are read as they are saved.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class Library {
+	/**
+	 * System property holding the number of groups read at the same time. The
+	 * default is the number of processors.
+	 */
+	public static final String PARALLELISM_PROPERTY = "jflashcard.library.threads";
+
+	private final File directory;
+	private final List<Group> groups;
+	private final LibraryCatalog catalog;
+
+	/**
+	 * A group of the library.
+	 */
+	public static class Group {
+		private final File file;
+		private final String name;
+		// Null until the cards are needed.
+		private List<Flashcard> flashcards;
+		private int cardCount;
+		private String preview = "";
+		private int checksum;
+		private IOException error;
+
+		private Group(File directory, File file) {
+			this.file = file;
+			// Subdirectories are part of the name, as groups in different directories may
+			// have the same file name.
+			String relative = directory.toPath().relativize(file.toPath()).toString();
+			name = relative.substring(0, relative.length() - GroupIO.extensionOf(relative).length());
+		}
+
+		/**
+		 * Returns the group file.
+		 *
+		 * @return The file.
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns the name of the group, which is its path relative to the library
+		 * directory without the extension.
+		 *
+		 * @return The name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the flashcards of the group.
+		 *
+		 * @return The flashcards, an empty list if the group couldn't be read or its
+		 *         cards weren't read yet (see {@link Library#readCards}).
+		 */
+		public List<Flashcard> getFlashcards() {
+			return flashcards != null ? flashcards : Collections.emptyList();
+		}
+
+		/**
+		 * Returns the number of flashcards in the group.
+		 *
+		 * @return The number of cards, 0 if the group couldn't be read.
+		 */
+		public int getCardCount() {
+			return error == null ? cardCount : 0;
+		}
+
+		/**
+		 * Returns the beginnings of the first cards of the group.
+		 *
+		 * @return The preview, empty if the group has no cards or couldn't be read.
+		 */
+		public String getPreview() {
+			return error == null ? preview : "";
+		}
+
+		/**
+		 * Returns why the group couldn't be read.
+		 *
+		 * @return The error or null if the group got read.
+		 */
+		public IOException getError() {
+			return error;
+		}
+
+		private void describe(LibraryCatalog.Entry entry) {
+			cardCount = entry.getCardCount();
+			preview = entry.getPreview();
+			checksum = entry.getChecksum();
+		}
+	}
+
+	/*
+	 * Does something with a single group of the library. A failure gets kept in
+	 * the group.
+	 */
+	private interface GroupTask {
+		void run(Group group) throws IOException;
+	}
+
+	private Library(File directory, List<Group> groups, LibraryCatalog catalog) {
+		this.directory = directory;
+		this.groups = groups;
+		this.catalog = catalog;
+	}
+
+	/**
+	 * Finds all group files (.xml, .xml.gz and .jfc) in a directory and its
+	 * subdirectories. Zip containers aren't included, a group of the library is
+	 * always a file of its own.
+	 *
+	 * @param directory The directory.
+	 * @return The group files, sorted by their path.
+	 * @throws IOException If the directory can't be read.
+	 */
+	public static List<File> discover(File directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			return paths.filter(Files::isRegularFile).filter(p -> {
+				String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+				return name.endsWith(GroupIO.XML_EXTENSION) || name.endsWith(GroupIO.GZIP_EXTENSION)
+						|| name.endsWith(GroupIO.BINARY_EXTENSION);
+			}).sorted().map(Path::toFile).collect(Collectors.toList());
+		} catch (UncheckedIOException uioe) {
+			throw uioe.getCause();
+		}
+	}
+
+	/**
+	 * Finds all groups of a directory. Groups described in the catalog which
+	 * didn't change since are taken from it, the others get read and the catalog
+	 * updated. Groups which are in the cache and didn't change since don't get
+	 * read again.
+	 *
+	 * @param directory The directory.
+	 * @param cache     The cache of recently read groups, may be null.
+	 * @param progress  Counts the groups read and may cancel the operation.
+	 * @return The library.
+	 * @throws IOException If the directory can't be read or the operation got
+	 *                     cancelled. Errors reading single groups are kept in the
+	 *                     groups instead.
+	 */
+	public static Library load(File directory, GroupCache cache, Progress progress) throws IOException {
+		List<File> files = discover(directory);
+		LibraryCatalog catalog = LibraryCatalog.open(directory);
+		List<Group> groups = new ArrayList<>(files.size());
+		List<Group> changed = new ArrayList<>();
+		for (File file : files) {
+			Group group = new Group(directory, file);
+			LibraryCatalog.Entry entry = catalog.get(file);
+			if (entry != null) {
+				group.describe(entry);
+			} else {
+				changed.add(group);
+			}
+			groups.add(group);
+		}
+		Library library = new Library(directory, groups, catalog);
+		forEach(changed, group -> library.read(group, cache), progress);
+		catalog.retain(files);
+		library.saveCatalog();
+		return library;
+	}
+
+	/**
+	 * Reads the cards of groups, unless they are in memory already.
+	 *
+	 * @param selected The groups of this library to read.
+	 * @param cache    The cache of recently read groups, may be null.
+	 * @param progress Counts the groups read and may cancel the operation.
+	 * @throws IOException If the operation got cancelled. Errors reading single
+	 *                     groups are kept in the groups instead.
+	 */
+	public void readCards(List<Group> selected, GroupCache cache, Progress progress) throws IOException {
+		List<Group> unread = new ArrayList<>();
+		for (Group group : selected) {
+			if (group.flashcards == null && group.error == null) {
+				unread.add(group);
+			}
+		}
+		forEach(unread, group -> read(group, cache), progress);
+		saveCatalog();
+	}
+
+	/**
+	 * Compares the checksums of all groups with those in the catalog. This only
+	 * reads the files, it doesn't parse them. Groups which don't match anymore got
+	 * changed behind the back of their modification time or are corrupted, they
+	 * are read again: changed groups get described anew, corrupted ones get the
+	 * read error.
+	 *
+	 * @param progress Counts the groups checked and may cancel the operation.
+	 * @return The groups which didn't match their checksum.
+	 * @throws IOException If the operation got cancelled. Errors reading single
+	 *                     groups are kept in the groups instead.
+	 */
+	public List<Group> verify(Progress progress) throws IOException {
+		List<Group> checked = new ArrayList<>();
+		for (Group group : groups) {
+			if (group.error == null) {
+				checked.add(group);
+			}
+		}
+		Set<Group> mismatched = Collections.synchronizedSet(new HashSet<>());
+		forEach(checked, group -> {
+			if (LibraryCatalog.checksum(group.file) != group.checksum) {
+				mismatched.add(group);
+				group.flashcards = null;
+				read(group, null);
+			}
+		}, progress);
+		saveCatalog();
+		// In the order of the library.
+		checked.retainAll(mismatched);
+		return checked;
+	}
+
+	/**
+	 * Returns the directory of the library.
+	 *
+	 * @return The directory.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the groups of the library.
+	 *
+	 * @return The groups, sorted by their path.
+	 */
+	public List<Group> getGroups() {
+		return Collections.unmodifiableList(groups);
+	}
+
+	/**
+	 * Returns the number of flashcards in all groups together.
+	 *
+	 * @return The number of cards.
+	 */
+	public int getCardCount() {
+		int count = 0;
+		for (Group group : groups) {
+			count += group.getCardCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Puts the flashcards of several groups into one deck, one group after the
+	 * other. The cards are copies, changing them doesn't change the groups. The
+	 * cards of the groups have to be read before (see {@link #readCards}).
+	 *
+	 * @param selected The groups to combine.
+	 * @return The combined deck.
+	 */
+	public static FlashcardStore combine(List<Group> selected) {
+		int size = 0;
+		for (Group group : selected) {
+			size += group.getCardCount();
+		}
+		FlashcardStore deck = new FlashcardStore(size);
+		for (Group group : selected) {
+			deck.addAll(group.getFlashcards());
+		}
+		return deck;
+	}
+
+	/*
+	 * Reads the cards of a group and describes it in the catalog.
+	 */
+	private void read(Group group, GroupCache cache) throws IOException {
+		if (group.file.length() > LazyFlashcardList.getThreshold()) {
+			throw new IOException("Die Gruppe ist zu gro fr die Bibliothek, bitte ffne sie einzeln.");
+		}
+		List<Flashcard> flashcards = cache != null ? cache.get(group.file) : null;
+		// Every group gets its own progress, the shared one only counts whole groups.
+		group.flashcards = flashcards != null ? flashcards : GroupIO.read(group.file, new Progress());
+		group.describe(catalog.update(group.file, group.flashcards));
+	}
+
+	// A catalog which can't be written (e.g. read-only directory) only costs
+	// parsing the groups next time.
+	private void saveCatalog() {
+		try {
+			catalog.save();
+		} catch (IOException ioe) {
+			// See above.
+		}
+	}
+
+	/*
+	 * Runs a task for every group on a fork/join pool.
+	 */
+	private static void forEach(List<Group> groups, GroupTask task, Progress progress) throws IOException {
+		progress.begin(groups.size());
+		if (!groups.isEmpty()) {
+			int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+			ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+			try {
+				pool.invoke(new ForkTask(groups, 0, groups.size(), task, progress));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		progress.checkCancelled();
+	}
+
+	/*
+	 * Runs the task for a range of groups, splitting it in halves until every
+	 * fork handles a single group. Idle workers steal the halves, so a few big
+	 * groups don't keep the others waiting.
+	 */
+	private static class ForkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient List<Group> groups;
+		private final int from;
+		private final int to;
+		private final transient GroupTask task;
+		private final transient Progress progress;
+
+		ForkTask(List<Group> groups, int from, int to, GroupTask task, Progress progress) {
+			this.groups = groups;
+			this.from = from;
+			this.to = to;
+			this.task = task;
+			this.progress = progress;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ForkTask(groups, from, middle, task, progress),
+						new ForkTask(groups, middle, to, task, progress));
+			} else if (to > from && !progress.isCancelled()) {
+				Group group = groups.get(from);
+				try {
+					task.run(group);
+					group.error = null;
+				} catch (IOException ioe) {
+					group.error = ioe;
+				}
+				// Outside the try above, a cancellation is no error of the group.
+				try {
+					progress.worked(1);
+				} catch (IOException ioe) {
+					// The operation got cancelled, the caller checks that.
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A small file in the directory of a {@link Library} describing its groups, so
+ * listing a library doesn't need to parse every group. The tasks of this class
+ * are:
+ * <ul>
+ * <li>Remember the size, modification time, CRC32C checksum, card count and a
+ * short preview of every group file,</li>
+ * <li>Hand out the description of a group as long as its file has the same size
+ * and modification time,</li>
+ * <li>Compute the checksums, which detect files that got changed or corrupted
+ * without touching their size and modification time,</li>
+ * <li>Save the catalog crash-safe through {@link AtomicFile}, but only if it
+ * changed.</li>
+ * </ul>
+ * The catalog file ({@value #FILE_NAME}) starts with a magic number ("JFLC"),
+ * the format version and the number of entries. Every entry holds the path of
+ * the group relative to the directory, size and modification time as longs,
+ * checksum and card count as ints and the preview. The file ends with the
+ * CRC32C of everything before it. A catalog which can't be read is simply
+ * ignored, it only costs parsing the groups once more.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class LibraryCatalog {
+	/**
+	 * The name of the catalog file in the library directory.
+	 */
+	public static final String FILE_NAME = ".jflashcard-catalog";
+
+	static final int MAGIC = 0x4A464C43; // "JFLC"
+	static final int VERSION = 1;
+	// The preview holds the beginnings of the first cards, up to this many chars.
+	static final int PREVIEW_LENGTH = 80;
+
+	private final File directory;
+	// The entries by the relative path of the group, always separated by '/'.
+	private final Map<String, Entry> entries = new HashMap<>();
+	private boolean changed;
+
+	/**
+	 * The description of a group file.
+	 */
+	public static class Entry {
+		private final long length;
+		private final long lastModified;
+		private final int checksum;
+		private final int cardCount;
+		private final String preview;
+
+		Entry(long length, long lastModified, int checksum, int cardCount, String preview) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.checksum = checksum;
+			this.cardCount = cardCount;
+			this.preview = preview;
+		}
+
+		/**
+		 * Returns the CRC32C checksum of the file.
+		 *
+		 * @return The checksum.
+		 */
+		public int getChecksum() {
+			return checksum;
+		}
+
+		/**
+		 * Returns the number of flashcards in the group.
+		 *
+		 * @return The number of cards.
+		 */
+		public int getCardCount() {
+			return cardCount;
+		}
+
+		/**
+		 * Returns the beginnings of the first cards of the group.
+		 *
+		 * @return The preview, empty if the group has no cards.
+		 */
+		public String getPreview() {
+			return preview;
+		}
+	}
+
+	private LibraryCatalog(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads the catalog of a library directory.
+	 *
+	 * @param directory The library directory.
+	 * @return The catalog, empty if the directory doesn't have one yet or it
+	 *         couldn't be read.
+	 */
+	public static LibraryCatalog open(File directory) {
+		LibraryCatalog catalog = new LibraryCatalog(directory);
+		File file = catalog.getFile();
+		if (!file.isFile()) {
+			return catalog;
+		}
+		CRC32C crc = new CRC32C();
+		try (DataInputStream in = new DataInputStream(
+				new CheckedInputStream(new BufferedInputStream(new FileInputStream(file)), crc))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Unbekanntes Format");
+			}
+			int count = in.readInt();
+			if (count < 0) {
+				throw new IOException("Ungltige Anzahl Eintrge");
+			}
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				catalog.entries.put(path,
+						new Entry(in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readUTF()));
+			}
+			int expected = (int) crc.getValue();
+			if (in.readInt() != expected || in.read() >= 0) {
+				throw new IOException("Falsche Prfsumme");
+			}
+		} catch (IOException ioe) {
+			// Truncated or corrupted, so nothing in it can be trusted. The groups get
+			// parsed again and the catalog rewritten.
+			catalog.entries.clear();
+			catalog.changed = true;
+		}
+		return catalog;
+	}
+
+	/**
+	 * Returns the catalog file.
+	 *
+	 * @return The file.
+	 */
+	public File getFile() {
+		return new File(directory, FILE_NAME);
+	}
+
+	/**
+	 * Returns the description of a group file, provided the file still has the
+	 * size and modification time it had when it got described.
+	 *
+	 * @param file The group file.
+	 * @return The description or null if the group isn't in the catalog or the
+	 *         file changed in the meantime.
+	 */
+	public synchronized Entry get(File file) {
+		Entry entry = entries.get(keyOf(file));
+		if (entry == null || entry.length != file.length() || entry.lastModified != file.lastModified()) {
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Describes a group file which just got read and puts the description into the
+	 * catalog. The checksum gets computed from the file, which is much cheaper
+	 * than parsing it.
+	 *
+	 * @param file       The group file.
+	 * @param flashcards The flashcards read from the file.
+	 * @return The new description.
+	 * @throws IOException If the file can't be read.
+	 */
+	public Entry update(File file, List<Flashcard> flashcards) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified();
+		Entry entry = new Entry(length, lastModified, checksum(file), flashcards.size(), previewOf(flashcards));
+		// If the file got written meanwhile, the checksum may not match the cards.
+		// The next time the file is listed it gets described again anyway.
+		if (file.length() == length && file.lastModified() == lastModified) {
+			synchronized (this) {
+				entries.put(keyOf(file), entry);
+				changed = true;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes the entries of all group files which aren't in the library anymore.
+	 *
+	 * @param files The group files of the library.
+	 */
+	public synchronized void retain(Collection<File> files) {
+		Set<String> keys = new HashSet<>();
+		for (File file : files) {
+			keys.add(keyOf(file));
+		}
+		changed |= entries.keySet().retainAll(keys);
+	}
+
+	/**
+	 * Writes the catalog, provided it changed since it got read.
+	 *
+	 * @throws IOException If the catalog couldn't be written. The old catalog is
+	 *                     unchanged in that case.
+	 */
+	public synchronized void save() throws IOException {
+		if (!changed) {
+			return;
+		}
+		AtomicFile.write(getFile(), out -> {
+			CRC32C crc = new CRC32C();
+			DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, crc));
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeInt(entries.size());
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				data.writeUTF(e.getKey());
+				data.writeLong(entry.length);
+				data.writeLong(entry.lastModified);
+				data.writeInt(entry.checksum);
+				data.writeInt(entry.cardCount);
+				data.writeUTF(entry.preview);
+			}
+			data.flush();
+			// The checksum itself isn't part of the checksum.
+			new DataOutputStream(out).writeInt((int) crc.getValue());
+		});
+		changed = false;
+	}
+
+	/**
+	 * Computes the CRC32C checksum of a file.
+	 *
+	 * @param file The file.
+	 * @return The checksum.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static int checksum(File file) throws IOException {
+		CRC32C crc = new CRC32C();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		return (int) crc.getValue();
+	}
+
+	private String keyOf(File file) {
+		return directory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+	}
+
+	/*
+	 * Side 1 of the first cards, separated by commas. Line breaks would break the
+	 * table rows the preview gets shown in.
+	 */
+	private static String previewOf(List<Flashcard> flashcards) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < flashcards.size() && sb.length() < PREVIEW_LENGTH; i++) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(flashcards.get(i).getSide1().replaceAll("\\s+", " ").trim());
+		}
+		if (sb.length() > PREVIEW_LENGTH) {
+			sb.setLength(PREVIEW_LENGTH - 3);
+			sb.append("...");
+		}
+		return sb.toString();
+	}
+}
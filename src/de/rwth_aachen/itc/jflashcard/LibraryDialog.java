@@ -0,0 +1,178 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Shows the groups of a {@link Library} with their card counts and lets the
+ * user check the groups to study together. Groups which couldn't be read show
+ * the error instead of the count and can't be checked. All readable groups are
+ * checked initially. Clicking a column header sorts the groups by that column,
+ * clicking it again reverses the order.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class LibraryDialog extends Dialog {
+	private final Library library;
+	// The checked groups, null if the dialog got canceled.
+	private List<Library.Group> selected;
+	// The groups in the order they are shown and the checked ones among them.
+	private final List<Library.Group> rows;
+	private final Set<Library.Group> checked = new HashSet<>();
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell   The parent window the dialog will appear in.
+	 * @param library The library to show.
+	 */
+	public LibraryDialog(Shell shell, Library library) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.library = library;
+		rows = new ArrayList<>(library.getGroups());
+		for (Library.Group group : rows) {
+			if (group.getError() == null && group.getCardCount() > 0) {
+				checked.add(group);
+			}
+		}
+		setText("Bibliothek " + library.getDirectory().getName());
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 *
+	 * @return The checked groups or null if the dialog got canceled.
+	 */
+	public List<Library.Group> open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+		return selected;
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(2, true));
+		Label label = new Label(shell, SWT.NONE);
+		label.setText("&Gruppen (" + library.getGroups().size() + " Gruppen, " + library.getCardCount()
+				+ " Karteikarten):");
+		GridData data = new GridData();
+		data.horizontalSpan = 2;
+		label.setLayoutData(data);
+		// Screen readers announce the check state and both columns of each row.
+		Table table = new Table(shell, SWT.CHECK | SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL);
+		table.setHeaderVisible(true);
+		TableColumn nameColumn = new TableColumn(table, SWT.LEFT);
+		nameColumn.setText("Gruppe");
+		TableColumn countColumn = new TableColumn(table, SWT.RIGHT);
+		countColumn.setText("Karteikarten");
+		TableColumn previewColumn = new TableColumn(table, SWT.LEFT);
+		previewColumn.setText("Vorschau");
+		Collator collator = Collator.getInstance(Locale.GERMAN);
+		addSorting(table, nameColumn, Comparator.comparing(Library.Group::getName, collator));
+		addSorting(table, countColumn, Comparator.comparingInt(Library.Group::getCardCount));
+		addSorting(table, previewColumn, Comparator.comparing(Library.Group::getPreview, collator));
+		fillTable(table);
+		// Unreadable groups must stay unchecked.
+		table.addListener(SWT.Selection, event -> {
+			if (event.detail == SWT.CHECK) {
+				TableItem item = (TableItem) event.item;
+				if (item.getGrayed()) {
+					item.setChecked(false);
+				} else if (item.getChecked()) {
+					checked.add((Library.Group) item.getData());
+				} else {
+					checked.remove(item.getData());
+				}
+			}
+		});
+		nameColumn.pack();
+		countColumn.pack();
+		previewColumn.pack();
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 2;
+		data.heightHint = 300;
+		table.setLayoutData(data);
+		Button ok = new Button(shell, SWT.PUSH);
+		ok.setText("Gemeinsam &lernen");
+		ok.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		ok.addListener(SWT.Selection, event -> {
+			// In the order of the library, not the one shown.
+			selected = new ArrayList<>(library.getGroups());
+			selected.retainAll(checked);
+			shell.close();
+		});
+		Button cancel = new Button(shell, SWT.PUSH);
+		cancel.setText("&Abbrechen");
+		cancel.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		cancel.addListener(SWT.Selection, event -> {
+			selected = null;
+			shell.close();
+		});
+		shell.setDefaultButton(ok);
+		table.setFocus();
+	}
+
+	private void fillTable(Table table) {
+		table.removeAll();
+		for (Library.Group group : rows) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setData(group);
+			if (group.getError() == null) {
+				item.setText(new String[] { group.getName(), Integer.toString(group.getCardCount()),
+						group.getPreview() });
+				item.setChecked(checked.contains(group));
+			} else {
+				item.setText(new String[] { group.getName(), "Fehler: " + group.getError().getLocalizedMessage(),
+						"" });
+				item.setGrayed(true);
+			}
+		}
+	}
+
+	/*
+	 * Sorts the rows by the column when its header gets clicked. The descriptions
+	 * are all in memory, so sorting doesn't read any group.
+	 */
+	private void addSorting(Table table, TableColumn column, Comparator<Library.Group> comparator) {
+		column.addListener(SWT.Selection, event -> {
+			boolean up = table.getSortColumn() != column || table.getSortDirection() != SWT.UP;
+			rows.sort(up ? comparator : comparator.reversed());
+			table.setSortColumn(column);
+			table.setSortDirection(up ? SWT.UP : SWT.DOWN);
+			Library.Group focused = table.getSelectionCount() > 0 ? (Library.Group) table.getSelection()[0].getData()
+					: null;
+			fillTable(table);
+			// Keep the focus on the same group, otherwise screen readers lose track.
+			if (focused != null) {
+				table.setSelection(rows.indexOf(focused));
+			}
+		});
+	}
+}
@@ -1,17 +1,31 @@
 package de.rwth_aachen.itc.jflashcard;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.DateFormat;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.MessageBox;
+import org.eclipse.swt.widgets.ProgressBar;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 
@@ -25,6 +39,20 @@ import org.eclipse.swt.widgets.Text;
  * @since 1.0
  */
 public class MainGUI {
+	/**
+	 * System property holding the number of seconds without changes after which
+	 * a changed group gets saved automatically. 0 turns the autosave off.
+	 */
+	public static final String AUTOSAVE_PROPERTY = "jflashcard.autosave.delay";
+
+	// Groups get read and written here, one operation at a time, so the window
+	// stays responsive while big groups load or save.
+	private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "JFlashcard group I/O");
+		t.setDaemon(true);
+		return t;
+	});
+
 	// UI elements
 	private Shell shell;
 	private Label groupLabel;
@@ -33,6 +61,11 @@ public class MainGUI {
 	private Text flashcardText;
 	private Button newGroupButton;
 	private Button openGroupButton;
+	private Button libraryButton;
+	private Button importButton;
+	private Label searchLabel;
+	private Text searchText;
+	private Button nextMatchButton;
 	private Button prevButton;
 	private Button nextButton;
 	private Button shuffleButton;
@@ -41,15 +74,68 @@ public class MainGUI {
 	private Button removeItemButton;
 	private Button editItemButton;
 	private Button flipFlashcardButton;
+	private Button convertButton;
+	private Button mergeButton;
+	private Button overviewButton;
+	private Button statisticsButton;
+	private Button diagnosticsButton;
+	private Button duplicatesButton;
+	private Button undoButton;
+	private Button redoButton;
+	private Button studyButton;
+	private Button notKnownButton;
+	private Button hardButton;
+	private Button knownButton;
+	private Label statusLabel;
+	private ProgressBar progressBar;
+	private Button cancelButton;
 
 	// internal stuff
 	private String currentPath;
 	private String currentGroup;
+	private String currentExtension;
 	private int currentIndex;
 	private boolean displaySide1;
 	private Flashcard currentFlashcard;
+	// All flashcards of the group in their initial order, which is also the order
+	// they get saved in.
 	private List<Flashcard> flashcards;
-	private List<Flashcard> initialOrder;
+	// The order the flashcards get presented in, currentIndex is a position in it.
+	private DeckOrder order;
+	// Where each card is in flashcards, by ID.
+	private IdIndex positions;
+	private GroupCache groupCache;
+	private GroupJournal journal;
+	// null if the group is too big to be searched.
+	private SearchIndex search;
+	// The positions in flashcards matching the search text, null if they have to
+	// be searched again.
+	private BitSet matches;
+	// The review state of the group, null if it couldn't be opened.
+	private ReviewScheduler scheduler;
+	// The history of the answers, null if it couldn't be opened.
+	private ReviewLog reviewLog;
+	// When the current card got presented in study mode, to time the answer.
+	private long shownAt;
+	// In study mode, the due cards get presented instead of the deck order.
+	private boolean studyMode;
+	// Set while the cards of several groups of a library are presented. They can't
+	// be changed, as they don't belong to a single group file.
+	private boolean libraryMode;
+	// The groups studied together in library mode, null otherwise.
+	private List<Library.Group> librarySelection;
+	// Set if the user declined to save, the journal gets dropped when leaving the
+	// group.
+	private boolean discardChanges;
+	// The number of changes which aren't in the group file yet. The save prompt
+	// and the autosave only do something if it's > 0.
+	private int unsavedChanges;
+	private final Runnable autosave = this::autosave;
+	// The changes of the current group which can be undone and redone.
+	private UndoLog undoLog;
+	// The read or write currently running in the background, null if there's
+	// none.
+	private Progress operation;
 
 	/**
 	 * The constructor of the GUI. A display is required for the creation, you can
@@ -64,9 +150,13 @@ public class MainGUI {
 		// null are fine.
 		currentGroup = "Keine Gruppe ausgewhlt";
 		currentPath = "";
+		currentExtension = GroupIO.XML_EXTENSION;
 		displaySide1 = true;
-		flashcards = new ArrayList<>();
-		initialOrder = new ArrayList<>();
+		flashcards = new FlashcardStore();
+		order = new DeckOrder(0);
+		positions = new IdIndex(16);
+		groupCache = new GroupCache();
+		undoLog = new UndoLog();
 		// I moved all the UI setup to another place so the constructor is less messy.
 		doGUISetup(display);
 	}
@@ -81,8 +171,24 @@ public class MainGUI {
 		 */
 		shell.setLayout(new GridLayout(4, false));
 		shell.setText("JFlashcards"); // window title
-		shell.addListener(SWT.Close, event -> saveList(event)); // When the window gets closed, the saveList(Event e)
-		// method gets called. Lambdas rock.
+		shell.addListener(SWT.Close, event -> {
+			// The window only gets closed once the group is saved, which happens in the
+			// background. So we keep it open for now and dispose it when we're done.
+			// Lambdas rock.
+			event.doit = false;
+			if (operation != null) {
+				// Closing while loading or saving cancels that first.
+				operation.cancel();
+			} else {
+				saveList(() -> {
+					closeJournal();
+					closeReviews();
+					closeCards();
+					exportMetrics();
+					shell.dispose();
+				});
+			}
+		});
 		groupLabel = new Label(shell, SWT.NONE);
 		// the & means that you can move focus to the text field or "click" the buttons
 		// by pressing alt (or option) + the letter after the &.
@@ -94,7 +200,38 @@ public class MainGUI {
 		newGroupButton.addListener(SWT.Selection, event -> createNewGroup());
 		openGroupButton = new Button(shell, SWT.PUSH);
 		openGroupButton.setText("Gruppe &ffnen...");
-		openGroupButton.addListener(SWT.Selection, event -> openGroupOnSelection(event));
+		openGroupButton.addListener(SWT.Selection, event -> openGroupOnSelection());
+		importButton = new Button(shell, SWT.PUSH);
+		importButton.setText("&CSV importieren...");
+		importButton.addListener(SWT.Selection, event -> importCsv());
+		importButton.setEnabled(false);
+		libraryButton = new Button(shell, SWT.PUSH);
+		libraryButton.setText("B&ibliothek ffnen...");
+		libraryButton.addListener(SWT.Selection, event -> openLibrary());
+		duplicatesButton = new Button(shell, SWT.PUSH);
+		duplicatesButton.setText("Du&plikate suchen...");
+		duplicatesButton.addListener(SWT.Selection, event -> findDuplicates());
+		duplicatesButton.setEnabled(false);
+		diagnosticsButton = new Button(shell, SWT.PUSH);
+		diagnosticsButton.setText("&Diagnose...");
+		diagnosticsButton.addListener(SWT.Selection, event -> new DiagnosticsDialog(shell).open());
+		// The search jumps to the first match while typing, enter jumps to the next.
+		searchLabel = new Label(shell, SWT.NONE);
+		searchLabel.setText("&Suchen:");
+		searchText = new Text(shell, SWT.BORDER | SWT.SEARCH);
+		GridData searchData = new GridData(GridData.FILL_HORIZONTAL);
+		searchData.horizontalSpan = 2;
+		searchText.setLayoutData(searchData);
+		searchText.addListener(SWT.Modify, timed("search", () -> {
+			matches = null;
+			jumpToMatch(0);
+		}));
+		searchText.addListener(SWT.DefaultSelection, timed("nextMatch", () -> jumpToMatch(1)));
+		searchText.setEnabled(false);
+		nextMatchButton = new Button(shell, SWT.PUSH);
+		nextMatchButton.setText("Nchster &Treffer");
+		nextMatchButton.addListener(SWT.Selection, timed("nextMatch", () -> jumpToMatch(1)));
+		nextMatchButton.setEnabled(false);
 		flashcardLabel = new Label(shell, SWT.NONE);
 		flashcardLabel.setText("&Karteikartentext:");
 		flashcardText = new Text(shell, SWT.BORDER | SWT.MULTI | SWT.WRAP | SWT.V_SCROLL | SWT.READ_ONLY); // This is a
@@ -119,21 +256,21 @@ public class MainGUI {
 		data.horizontalAlignment = SWT.RIGHT;
 		prevButton.setLayoutData(data);
 		prevButton.setEnabled(false);
-		prevButton.addListener(SWT.Selection, event -> getOtherFlashcard(-1));
+		prevButton.addListener(SWT.Selection, timed("previous", () -> getOtherFlashcard(-1)));
 		nextButton = new Button(shell, SWT.PUSH);
 		nextButton.setText("N&chste Karte");
 		data = new GridData(GridData.FILL_HORIZONTAL);
 		data.horizontalAlignment = SWT.LEFT;
 		nextButton.setLayoutData(data);
 		nextButton.setEnabled(false);
-		nextButton.addListener(SWT.Selection, event -> getOtherFlashcard(1));
+		nextButton.addListener(SWT.Selection, timed("next", () -> getOtherFlashcard(1)));
 		// The shuffle button spans two columns and is aligned center.
 		shuffleButton = new Button(shell, SWT.PUSH);
 		shuffleButton.setText("Karteikarten &mischen");
-		shuffleButton.addListener(SWT.Selection, event -> shuffleFlashcards());
+		shuffleButton.addListener(SWT.Selection, timed("shuffle", this::shuffleFlashcards));
 		unshuffleButton = new Button(shell, SWT.PUSH);
 		unshuffleButton.setText("Ursprngliche Ordnung &wiederherstellen");
-		unshuffleButton.addListener(SWT.Selection, event -> unshuffle());
+		unshuffleButton.addListener(SWT.Selection, timed("unshuffle", this::unshuffle));
 		shuffleButton.setEnabled(false);
 		unshuffleButton.setEnabled(false);
 		addItemButton = new Button(shell, SWT.PUSH);
@@ -142,7 +279,7 @@ public class MainGUI {
 		addItemButton.setEnabled(false);
 		flipFlashcardButton = new Button(shell, SWT.PUSH);
 		flipFlashcardButton.setText("Karteikarte &umdrehen");
-		flipFlashcardButton.addListener(SWT.Selection, event -> flipFlashcard());
+		flipFlashcardButton.addListener(SWT.Selection, timed("flip", this::flipFlashcard));
 		flipFlashcardButton.setEnabled(false);
 		editItemButton = new Button(shell, SWT.PUSH);
 		editItemButton.setText("Karteikarte &bearbeiten...");
@@ -152,6 +289,91 @@ public class MainGUI {
 		removeItemButton.setText("Karteikarte &entfernen");
 		removeItemButton.addListener(SWT.Selection, event -> deleteFlashcard());
 		removeItemButton.setEnabled(false);
+		// Undo and redo share a row with the overview and the statistics.
+		undoButton = new Button(shell, SWT.PUSH);
+		undoButton.setText("&Rckgngig");
+		undoButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		undoButton.addListener(SWT.Selection, timed("undo", this::undo));
+		undoButton.setEnabled(false);
+		redoButton = new Button(shell, SWT.PUSH);
+		redoButton.setText("Wiederh&olen");
+		redoButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		redoButton.addListener(SWT.Selection, timed("redo", this::redo));
+		redoButton.setEnabled(false);
+		overviewButton = new Button(shell, SWT.PUSH);
+		overviewButton.setText("Alle Karteikarten &zeigen...");
+		overviewButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		overviewButton.addListener(SWT.Selection, event -> showOverview());
+		overviewButton.setEnabled(false);
+		statisticsButton = new Button(shell, SWT.PUSH);
+		statisticsButton.setText("Lernstatisti&k...");
+		statisticsButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		statisticsButton.addListener(SWT.Selection, event -> showStatistics());
+		statisticsButton.setEnabled(false);
+		// Ctrl+Z and Ctrl+Y (or Ctrl+Shift+Z) work everywhere but in the search
+		// field, which has its own undo.
+		display.addFilter(SWT.KeyDown, event -> {
+			if (shell.isDisposed() || display.getActiveShell() != shell || event.widget == searchText
+					|| (event.stateMask & SWT.MOD1) == 0) {
+				return;
+			}
+			boolean shift = (event.stateMask & SWT.SHIFT) != 0;
+			if (event.keyCode == 'z' && !shift && undoButton.isEnabled()) {
+				event.doit = false;
+				undo();
+			} else if ((event.keyCode == 'y' || event.keyCode == 'z' && shift) && redoButton.isEnabled()) {
+				event.doit = false;
+				redo();
+			}
+		});
+		// Study mode: the buttons rate how well the current card was known, then the
+		// next due card shows up.
+		studyButton = new Button(shell, SWT.TOGGLE);
+		studyButton.setText("&Lernmodus");
+		studyButton.addListener(SWT.Selection, timed("studyMode", this::toggleStudyMode));
+		studyButton.setEnabled(false);
+		notKnownButton = new Button(shell, SWT.PUSH);
+		notKnownButton.setText("&1 Nicht gewusst");
+		notKnownButton.addListener(SWT.Selection, timed("answer", () -> answer(1)));
+		notKnownButton.setEnabled(false);
+		hardButton = new Button(shell, SWT.PUSH);
+		hardButton.setText("&2 Mit Mhe gewusst");
+		hardButton.addListener(SWT.Selection, timed("answer", () -> answer(3)));
+		hardButton.setEnabled(false);
+		knownButton = new Button(shell, SWT.PUSH);
+		knownButton.setText("&3 Gewusst");
+		knownButton.addListener(SWT.Selection, timed("answer", () -> answer(4)));
+		knownButton.setEnabled(false);
+		convertButton = new Button(shell, SWT.PUSH);
+		convertButton.setText("Gruppe in anderes &Format konvertieren...");
+		convertButton.addListener(SWT.Selection, event -> convertGroup());
+		convertButton.setEnabled(false);
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		convertButton.setLayoutData(data);
+		mergeButton = new Button(shell, SWT.PUSH);
+		mergeButton.setText("Mit anderer &Version abgleichen...");
+		mergeButton.addListener(SWT.Selection, event -> mergeGroup());
+		mergeButton.setEnabled(false);
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		mergeButton.setLayoutData(data);
+		// Shows what's going on while a group gets loaded or saved.
+		statusLabel = new Label(shell, SWT.NONE);
+		statusLabel.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		progressBar = new ProgressBar(shell, SWT.HORIZONTAL);
+		data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		progressBar.setLayoutData(data);
+		progressBar.setEnabled(false);
+		cancelButton = new Button(shell, SWT.PUSH);
+		cancelButton.setText("Vorgang &abbrechen");
+		cancelButton.addListener(SWT.Selection, event -> {
+			if (operation != null) {
+				operation.cancel();
+			}
+		});
+		cancelButton.setEnabled(false);
 		shell.open(); // Opens the window.
 		/*
 		 * Here is the so-called message loop. While the shell isn't disposed, so the
@@ -182,103 +404,527 @@ public class MainGUI {
 	 * to be saved, then displays a file dialog so the user can select the desired
 	 * group (aka file).
 	 */
-	private void openGroupOnSelection(Event e) {
-		boolean cont = saveList(e);
+	private void openGroupOnSelection() {
 		// If cancel gets selected on save, cancel the file dialog also.
-		if (cont) {
+		saveList(() -> {
 			String[] data = FileHandler.getGroupFileInfo(shell);
 			if (data.length > 0) {
 				// update attributes
 				currentPath = data[0];
-				currentGroup = data[1].substring(0, data[1].lastIndexOf("."));
+				currentExtension = GroupIO.extensionOf(data[1]);
+				currentGroup = data[1].substring(0, data[1].length() - currentExtension.length());
 				group.setText(currentGroup);
 				// Update the flashcard-related UI.
 				retrieveGroupData();
 			}
+		});
+	}
+
+	/*
+	 * Lets the user select a directory and reads all groups in it in the
+	 * background. Afterwards the user picks the groups to study together.
+	 */
+	private void openLibrary() {
+		saveList(() -> {
+			String path = FileHandler.getLibraryPath(shell);
+			if (path != null) {
+				runInBackground("Bibliothek wird geladen...",
+						progress -> Library.load(new File(path), groupCache, progress), this::showLibrary,
+						ioe -> showFailure("Die Bibliothek konnte nicht geladen werden:", ioe));
+			}
+		});
+	}
+
+	// Back on the UI thread: shows the groups of the library and their card counts.
+	private void showLibrary(Library library) {
+		if (library.getGroups().isEmpty()) {
+			MessageBox infoMB = new MessageBox(shell, SWT.ICON_INFORMATION);
+			infoMB.setText("Im Ordner \"" + library.getDirectory() + "\" wurden keine Gruppen gefunden.");
+			infoMB.open();
+			return;
+		}
+		List<Library.Group> selected = new LibraryDialog(shell, library).open();
+		if (selected == null || selected.isEmpty()) {
+			return;
+		}
+		closeJournal();
+		closeReviews();
+		closeCards();
+		currentGroup = "Bibliothek " + library.getDirectory().getName() + " (" + selected.size() + " Gruppen)";
+		currentPath = library.getDirectory().getPath();
+		currentExtension = GroupIO.XML_EXTENSION;
+		group.setText(currentGroup);
+		// Reading and indexing hundreds of groups takes a moment, so it happens in the
+		// background like loading a group.
+		runInBackground("Karteikarten werden zusammengestellt...", progress -> {
+			library.readCards(selected, groupCache, progress);
+			LoadedGroup res = new LoadedGroup();
+			res.flashcards = Library.combine(selected);
+			// Groups copied within the library share their IDs.
+			res.positions = IdIndex.ofUnique(res.flashcards);
+			res.search = SearchIndex.of(res.flashcards);
+			res.library = true;
+			return res;
+		}, loaded -> {
+			showGroup(loaded);
+			librarySelection = selected;
+			showLibraryErrors(selected);
+		}, ioe -> {
+			clearGroup();
+			showFailure("Ein Fehler ist aufgetreten:", ioe);
+		});
+	}
+
+	// Groups may have become unreadable since the library got listed.
+	private void showLibraryErrors(List<Library.Group> selected) {
+		StringBuilder sb = new StringBuilder();
+		for (Library.Group g : selected) {
+			if (g.getError() != null) {
+				sb.append(System.lineSeparator()).append(g.getName()).append(": ")
+						.append(g.getError().getLocalizedMessage());
+			}
+		}
+		if (sb.length() > 0) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Diese Gruppen konnten nicht gelesen werden:" + sb);
+			errorMB.open();
+		}
+	}
+
+	/*
+	 * Wraps the handler of a quick action, so its latency shows up in the metrics.
+	 * Actions which open dialogs aren't timed, they'd measure the user.
+	 */
+	private static Listener timed(String action, Runnable handler) {
+		return event -> {
+			Metrics.Span span = Metrics.action(action);
+			try {
+				handler.run();
+			} finally {
+				span.close();
+			}
+		};
+	}
+
+	// Writes the metrics to the file named by the system property, if any.
+	private void exportMetrics() {
+		String path = System.getProperty(Metrics.EXPORT_PROPERTY);
+		if (path != null && !path.isEmpty()) {
+			try {
+				Metrics.export(new File(path));
+			} catch (IOException ioe) {
+				// The window is about to close, there's nobody left to tell.
+			}
 		}
 	}
 
+	/*
+	 * Loads the current group in the background. The window stays usable for
+	 * screen readers meanwhile, only the controls get disabled until the group is
+	 * there.
+	 */
 	private void retrieveGroupData() {
-		// If it's null, an error occured while reading the file.
-		if (XMLHandler.readFlashcardList(currentGroup, currentPath, shell) != null) {
-			flashcards = XMLHandler.readFlashcardList(currentGroup, currentPath, shell);
-			initialOrder = new ArrayList<>(flashcards);
-			if (flashcards.size() > 0) {
-				currentFlashcard = flashcards.get(0);
-				flashcardText.setText(getCurrentSide());
-				flashcardText.setFocus();
-				currentIndex = 0;
+		closeJournal();
+		closeReviews();
+		closeCards();
+		File file = getCurrentFile();
+		runInBackground("Gruppe wird geladen...", progress -> loadGroup(file, progress), this::showGroup, ioe -> {
+			// Whatever was shown before belongs to the group we just left.
+			clearGroup();
+			showFailure("Ein Fehler ist aufgetreten:", ioe);
+		});
+	}
+
+	/*
+	 * Runs in the background: reads the flashcards and replays the journal on top
+	 * of them. Recently opened groups are still in the cache, unless their file
+	 * changed.
+	 */
+	private LoadedGroup loadGroup(File file, Progress progress) throws IOException {
+		LoadedGroup res = new LoadedGroup();
+		boolean lazy = file.length() > LazyFlashcardList.getThreshold();
+		if (!lazy) {
+			res.flashcards = groupCache.get(file);
+		}
+		if (res.flashcards == null) {
+			if (lazy) {
+				// Huge groups only get indexed, the cards are read when they're needed.
+				res.flashcards = GroupIO.readLazily(file, progress);
 			} else {
-				flashcardText.setText("Keine Karteikarte ausgewhlt.");
-				group.setFocus();
+				res.flashcards = GroupIO.read(file, progress);
+			}
+			// Before saving the new IDs, as cards with a duplicate ID get a new one too.
+			res.positions = IdIndex.ofUnique(res.flashcards);
+			res.idsUnsaved = saveNewIds(file, res.flashcards, progress);
+			if (!lazy) {
+				groupCache.put(file, res.flashcards);
 			}
 		}
+		try {
+			res.journal = GroupJournal.open(file, res.flashcards);
+		} catch (IOException ioe) {
+			res.journalError = ioe;
+		}
+		if (res.positions == null || res.journal != null && res.journal.getReplayedRecords() > 0) {
+			res.positions = IdIndex.ofUnique(res.flashcards);
+		}
+		if (!lazy) {
+			// Indexing a huge group would read all of it, which is what lazy loading
+			// avoids.
+			res.search = SearchIndex.of(res.flashcards);
+		}
+		try {
+			// After the journal, so the restored cards get scheduled as well.
+			res.scheduler = ReviewScheduler.open(file, res.flashcards);
+		} catch (IOException ioe) {
+			res.reviewError = ioe;
+		}
+		try {
+			res.reviewLog = ReviewLog.open(file);
+		} catch (IOException ioe) {
+			res.historyError = ioe;
+		}
+		return res;
+	}
+
+	/*
+	 * Runs in the background: cards without an ID in the file (older groups and
+	 * version 1 binary files) got a new one while being read. The study progress
+	 * refers to these IDs, so they get written right away, otherwise the cards
+	 * get other IDs next time and their progress is lost. With a journal, the
+	 * group file can't be replaced before the journal got replayed, so the group
+	 * only counts as unsaved then. Returns true in that case.
+	 */
+	private static boolean saveNewIds(File file, List<Flashcard> flashcards, Progress progress) throws IOException {
+		if (!(flashcards instanceof FlashcardList) || !((FlashcardList) flashcards).isModified()) {
+			return false;
+		}
+		if (GroupJournal.hasRecords(file)) {
+			return true;
+		}
+		GroupIO.write(flashcards, file, progress);
+		((FlashcardList) flashcards).setSaved();
+		return false;
+	}
+
+	// Back on the UI thread: presents a group loaded by loadGroup().
+	private void showGroup(LoadedGroup loaded) {
+		libraryMode = loaded.library;
+		journal = loaded.journal;
+		// The restored changes are only in the journal, not in the group file, and new
+		// IDs only in memory if they couldn't be saved yet.
+		setUnsavedChanges((journal != null ? journal.getReplayedRecords() : 0) + (loaded.idsUnsaved ? 1 : 0));
+		flashcards = loaded.flashcards;
+		order = new DeckOrder(flashcards.size());
+		positions = loaded.positions;
+		undoLog.clear();
+		search = loaded.search;
+		matches = null;
+		searchText.setText("");
+		scheduler = loaded.scheduler;
+		reviewLog = loaded.reviewLog;
+		if (flashcards.size() > 0) {
+			currentFlashcard = flashcards.get(0);
+			flashcardText.setText(getCurrentSide());
+			flashcardText.setFocus();
+			currentIndex = 0;
+		} else {
+			currentFlashcard = null;
+			flashcardText.setText("Keine Karteikarte ausgewhlt.");
+			group.setFocus();
+		}
 		toggleButtons();
+		if (studyMode) {
+			showDueCard();
+		}
+		if (loaded.reviewError != null) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Der Lernstand der Gruppe konnte nicht geffnet werden, der Lernmodus ist nicht verfgbar:"
+					+ System.lineSeparator() + loaded.reviewError.getLocalizedMessage());
+			errorMB.open();
+		}
+		if (loaded.historyError != null) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Der Lernverlauf der Gruppe konnte nicht geffnet werden, Antworten werden nicht aufgezeichnet:"
+					+ System.lineSeparator() + loaded.historyError.getLocalizedMessage());
+			errorMB.open();
+		}
+		if (loaded.journalError != null) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Das Journal der Gruppe konnte nicht geffnet werden, nderungen werden erst beim Speichern gesichert:"
+					+ System.lineSeparator() + loaded.journalError.getLocalizedMessage());
+			errorMB.open();
+		} else if (journal != null && journal.getReplayedRecords() > 0) {
+			MessageBox infoMB = new MessageBox(shell, SWT.ICON_INFORMATION);
+			infoMB.setText(journal.getReplayedRecords()
+					+ " nicht gespeicherte nderungen an der Gruppe wurden wiederhergestellt.");
+			infoMB.open();
+		}
 	}
 
-	private void flipFlashcard() {
-		// Just get the other String (aka side) of the card.
-		displaySide1 = !displaySide1;
+	// Goes back to the state without a group, e.g. if a group couldn't be loaded.
+	private void clearGroup() {
+		currentGroup = "Keine Gruppe ausgewhlt";
+		currentPath = "";
+		currentExtension = GroupIO.XML_EXTENSION;
+		group.setText(currentGroup);
+		closeCards();
+		flashcards = new FlashcardStore();
+		order = new DeckOrder(0);
+		positions = new IdIndex(16);
+		undoLog.clear();
+		search = null;
+		matches = null;
+		searchText.setText("");
+		scheduler = null;
+		libraryMode = false;
+		librarySelection = null;
+		currentFlashcard = null;
+		currentIndex = 0;
+		setUnsavedChanges(0);
 		flashcardText.setText(getCurrentSide());
-		flashcardText.setFocus();
+		toggleButtons();
+	}
+
+	private void closeJournal() {
+		if (journal != null) {
+			try {
+				if (discardChanges) {
+					journal.discard();
+				}
+				journal.close();
+			} catch (IOException ioe) {
+				// Nothing we can do, the journal will be replayed next time.
+			}
+			journal = null;
+		}
+		discardChanges = false;
 	}
 
 	/*
-	 * Displays a simple confirmation dialog for save/don't save/cancel. The event
-	 * parameter is necessary to abort the close event of the window.
+	 * A huge group is mapped from its file or a temporary copy, which goes with
+	 * the group. After the journal, whose compaction may still read the cards.
 	 */
-	private boolean saveList(Event e) {
-		unshuffle();
-		if (currentGroup != "Keine Gruppe ausgewhlt") {
-			MessageBox mb = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO | SWT.CANCEL);
-			mb.setText("Mchtest du etwaige nderungen an der Gruppe \"" + currentGroup + "\" speichern?");
-			int dialogResult = mb.open();
-			if (dialogResult == SWT.YES) {
-				String res = XMLHandler.writeFlashcardList(flashcards, currentGroup, currentPath);
-				if (res == "success") {
-					MessageBox successMB = new MessageBox(shell, SWT.ICON_INFORMATION);
-					successMB.setText("Gruppe erfolgreich gespeichert!");
-					successMB.open();
-				} else {
-					MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
-					errorMB.setText("Ein Fehler ist beim Speichern aufgetreten:" + System.lineSeparator() + res);
-					errorMB.open();
-					e.doit = false;
+	private void closeCards() {
+		if (flashcards instanceof LazyFlashcardList) {
+			((LazyFlashcardList) flashcards).close();
+		}
+	}
+
+	private void closeReviews() {
+		if (scheduler != null) {
+			try {
+				scheduler.close();
+			} catch (IOException ioe) {
+				// The answers are already in the file.
+			}
+			scheduler = null;
+		}
+		if (reviewLog != null) {
+			try {
+				reviewLog.close();
+			} catch (IOException ioe) {
+				// The answers are already in the file.
+			}
+			reviewLog = null;
+		}
+	}
+
+	/*
+	 * Stops journaling if a record couldn't be written, as any further record
+	 * would refer to a state the journal doesn't know about.
+	 */
+	private void journalFailed(IOException ioe) {
+		try {
+			journal.close();
+		} catch (IOException ioe2) {
+			// We're giving up on the journal anyway.
+		}
+		journal = null;
+		MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+		errorMB.setText("Die nderung konnte nicht ins Journal geschrieben werden, bitte speichere die Gruppe:"
+				+ System.lineSeparator() + ioe.getLocalizedMessage());
+		errorMB.open();
+	}
+
+	/*
+	 * Gets called after every change of the group. The autosave waits until there
+	 * were no changes for a while, so a burst of edits gets saved only once.
+	 */
+	private void groupChanged() {
+		unsavedChanges++;
+		// The positions of the matches may have changed.
+		matches = null;
+		scheduleAutosave();
+		if (journal != null && journal.needsCompaction()) {
+			saveInBackground();
+		}
+	}
+
+	private void setUnsavedChanges(int changes) {
+		unsavedChanges = changes;
+		if (changes > 0) {
+			scheduleAutosave();
+		} else {
+			// Nothing to save, so a pending autosave can go.
+			shell.getDisplay().timerExec(-1, autosave);
+		}
+	}
+
+	// (Re)starts the countdown of the autosave.
+	private void scheduleAutosave() {
+		int delay = Integer.getInteger(AUTOSAVE_PROPERTY, 30);
+		if (delay > 0) {
+			shell.getDisplay().timerExec(delay * 1000, autosave);
+		}
+	}
+
+	private void autosave() {
+		if (shell.isDisposed() || unsavedChanges == 0) {
+			return;
+		}
+		if (operation != null) {
+			// Don't get in the way of loading or saving, try again later.
+			scheduleAutosave();
+			return;
+		}
+		saveInBackground();
+	}
+
+	/*
+	 * Writes a snapshot of the group into the group file without blocking the UI,
+	 * the user may go on editing meanwhile. With a journal this is a compaction,
+	 * which keeps the records added after the snapshot. Without one, it's an
+	 * operation like any other save, so the group can't be switched (and a lazy
+	 * group closed) while it's being written.
+	 */
+	private void saveInBackground() {
+		List<Flashcard> cards = flashcards;
+		List<Flashcard> snapshot = GroupJournal.snapshot(cards);
+		int changes = unsavedChanges;
+		Display display = shell.getDisplay();
+		Runnable onWritten = () -> {
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> changesSaved(cards, changes));
+			}
+		};
+		if (journal != null) {
+			if (!journal.compactInBackground(snapshot, onWritten)) {
+				// A compaction is running already, its snapshot may be older.
+				scheduleAutosave();
+			}
+		} else {
+			File file = getCurrentFile();
+			// The controls get disabled meanwhile, the focus should stay where it was.
+			Control focus = display.getFocusControl();
+			runInBackground("Gruppe wird automatisch gespeichert...", progress -> {
+				writeGroup(snapshot, file, null, progress);
+				return null;
+			}, result -> {
+				changesSaved(cards, changes);
+				restoreFocus(focus);
+			}, ioe -> {
+				// The changes are still in memory, the next save tries again.
+				if (!(ioe instanceof InterruptedIOException)) {
+					statusLabel.setText("Automatisches Speichern fehlgeschlagen: " + ioe.getLocalizedMessage());
+				}
+				scheduleAutosave();
+				restoreFocus(focus);
+			});
+		}
+	}
+
+	private static void restoreFocus(Control focus) {
+		if (focus != null && !focus.isDisposed() && focus.isEnabled()) {
+			focus.setFocus();
+		}
+	}
+
+	/*
+	 * Back on the UI thread after a save: the changes counted until the snapshot
+	 * are in the file now, unless the user switched to another group meanwhile.
+	 */
+	private void changesSaved(List<Flashcard> cards, int changes) {
+		if (shell.isDisposed() || cards != flashcards) {
+			return;
+		}
+		unsavedChanges = Math.max(unsavedChanges - changes, 0);
+		if (unsavedChanges == 0) {
+			if (flashcards instanceof FlashcardList) {
+				((FlashcardList) flashcards).setSaved();
+			} else {
+				for (Flashcard f : flashcards) {
+					f.setModified(false);
 				}
-			} else if (dialogResult == SWT.CANCEL) {
-				e.doit = false;
 			}
 		}
-		return e.doit;
 	}
 
-	// Same, just without event as parameter.
-	private boolean saveList() {
-		unshuffle();
-		boolean success = true;
-		if (currentGroup != "Keine Gruppe ausgewhlt") {
+	/*
+	 * Runs in the background: writes the group either through the journal or
+	 * directly.
+	 */
+	private void writeGroup(List<Flashcard> cards, File file, GroupJournal j, Progress progress) throws IOException {
+		if (j != null) {
+			j.save(cards, progress);
+		} else {
+			GroupIO.write(cards, file, progress);
+			// A journal left over from a failure doesn't match the new file anymore.
+			GroupJournal.getJournalFile(file).delete();
+		}
+		if (!(cards instanceof LazyFlashcardList)) {
+			groupCache.put(file, cards);
+		}
+	}
+
+	private File getCurrentFile() {
+		return new File(currentPath + File.separator + currentGroup + currentExtension);
+	}
+
+	private void flipFlashcard() {
+		// Just get the other String (aka side) of the card.
+		displaySide1 = !displaySide1;
+		flashcardText.setText(getCurrentSide());
+		flashcardText.setFocus();
+	}
+
+	/*
+	 * Displays a simple confirmation dialog for save/don't save/cancel if the
+	 * group has unsaved changes. The group gets saved in the background,
+	 * afterwards onContinue runs - unless the user canceled or the group couldn't
+	 * be saved.
+	 */
+	private void saveList(Runnable onContinue) {
+		// Without changes there's nothing to ask and nothing to write.
+		if (currentGroup != "Keine Gruppe ausgewhlt" && unsavedChanges > 0) {
 			MessageBox mb = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO | SWT.CANCEL);
-			mb.setText("Mchtest du etwaige nderungen an der Gruppe \"" + currentGroup + "\" speichern?");
+			mb.setText("Mchtest du die nderungen an der Gruppe \"" + currentGroup + "\" speichern?");
 			int dialogResult = mb.open();
 			if (dialogResult == SWT.YES) {
-				String res = XMLHandler.writeFlashcardList(flashcards, currentGroup, currentPath);
-				if (res == "success") {
+				// The controls are disabled while saving, so nobody changes the list
+				// meanwhile.
+				List<Flashcard> cards = flashcards;
+				File file = getCurrentFile();
+				GroupJournal j = journal;
+				int changes = unsavedChanges;
+				runInBackground("Gruppe wird gespeichert...", progress -> {
+					writeGroup(cards, file, j, progress);
+					return null;
+				}, result -> {
+					discardChanges = false;
+					changesSaved(cards, changes);
 					MessageBox successMB = new MessageBox(shell, SWT.ICON_INFORMATION);
 					successMB.setText("Gruppe erfolgreich gespeichert!");
 					successMB.open();
-					success = true;
-				} else {
-					MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
-					errorMB.setText("Ein Fehler ist beim Speichern aufgetreten:" + System.lineSeparator() + res);
-					errorMB.open();
-				}
-			} else {
-				success = true;
+					onContinue.run();
+				}, ioe -> showFailure("Ein Fehler ist beim Speichern aufgetreten:", ioe));
+			} else if (dialogResult == SWT.NO) {
+				discardChanges = true;
+				onContinue.run();
 			}
 		} else {
-			success = true;
+			onContinue.run();
 		}
-		return success;
 	}
 
 	/*
@@ -288,8 +934,7 @@ public class MainGUI {
 	 * canceled or the value is not an empty String (or series of spaces).
 	 */
 	private void createNewGroup() {
-		boolean saveSuccessful = saveList();
-		if (saveSuccessful) {
+		saveList(() -> {
 			String path = FileHandler.getPath(shell);
 			if (path != null) {
 				InputDialog dialog = new InputDialog(shell);
@@ -304,6 +949,7 @@ public class MainGUI {
 							group.setText(name);
 							currentGroup = name;
 							currentPath = path;
+							currentExtension = GroupIO.XML_EXTENSION;
 							retrieveGroupData();
 							break;
 						} else {
@@ -322,48 +968,70 @@ public class MainGUI {
 					}
 				}
 			}
-		}
+		});
 	}
 
 	// Get the previous/next flashcard
 	// or a flashcard a couple of numbers ahead in the list.
 	private void getOtherFlashcard(int moveBy) {
 		if ((currentIndex + moveBy) < 0) {
-			currentFlashcard = flashcards.get(flashcards.size() - 1);
-			currentIndex = flashcards.size() - 1;
+			currentIndex = order.size() - 1;
+			currentFlashcard = cardAt(currentIndex);
 			flashcardText.setText(getCurrentSide());
 			flashcardText.setFocus();
-		} else if (currentIndex + moveBy >= flashcards.size()) {
-			currentFlashcard = flashcards.get(0);
+		} else if (currentIndex + moveBy >= order.size()) {
 			currentIndex = 0;
+			currentFlashcard = cardAt(currentIndex);
 			flashcardText.setText(getCurrentSide());
 			flashcardText.setFocus();
 		} else {
 			currentIndex += moveBy;
-			currentFlashcard = flashcards.get(currentIndex);
+			currentFlashcard = cardAt(currentIndex);
 			flashcardText.setText(getCurrentSide());
 			flashcardText.setFocus();
 		}
+		if (flashcards instanceof LazyFlashcardList) {
+			// Decode the neighbours now, so the next step is instant.
+			((LazyFlashcardList) flashcards).prefetch(order, currentIndex);
+		}
+	}
+
+	// The flashcard at a position of the presented order.
+	private Flashcard cardAt(int position) {
+		return flashcards.get(order.get(position));
 	}
 
 	private void shuffleFlashcards() {
-		Collections.shuffle(flashcards);
-		currentFlashcard = flashcards.get(0);
+		// Only the int array of the order gets shuffled, the cards stay where they are.
+		// The seed is all it takes to undo the shuffle.
+		long seed = new Random().nextLong();
+		undoLog.shuffled(seed, order.isShuffled());
+		try (Metrics.Span span = Metrics.shuffle()) {
+			order.shuffle(seed);
+			span.cards(order.size());
+		}
+		toggleButtons();
+		currentFlashcard = cardAt(0);
 		flashcardText.setText(getCurrentSide());
 		flashcardText.setFocus();
 		currentIndex = 0;
 	}
 
 	private void unshuffle() {
-		flashcards = new ArrayList<>(initialOrder);
+		if (order.isShuffled()) {
+			undoLog.unshuffled(true);
+			toggleButtons();
+		}
+		order.unshuffle();
+		// Stay at the current card, in the initial order its position is its index.
+		currentIndex = currentFlashcard != null ? Math.max(positions.get(currentFlashcard.getId()), 0) : 0;
 		if (flashcards.size() > 0) {
-			currentFlashcard = flashcards.get(0);
+			currentFlashcard = cardAt(currentIndex);
 		} else {
 			currentFlashcard = null;
 		}
 		flashcardText.setText(getCurrentSide());
 		flashcardText.setFocus();
-		currentIndex = 0;
 	}
 
 	private void addNewItem() {
@@ -412,22 +1080,50 @@ public class MainGUI {
 			}
 		}
 		if (!aborted) {
-			flashcards.add(new Flashcard(side1, side2));
-			currentIndex = flashcards.size() - 1;
-			currentFlashcard = flashcards.get(currentIndex);
+			Flashcard added = new Flashcard(side1, side2);
+			appendCard(added);
+			undoLog.added(flashcards.size() - 1, new Flashcard(added));
+			currentIndex = order.size() - 1;
+			currentFlashcard = cardAt(currentIndex);
 			flashcardText.setText(getCurrentSide());
 			flashcardText.setFocus();
-			initialOrder.add(new Flashcard(side1, side2));
 			toggleButtons();
 		}
 	}
 
+	// Appends a card to the group and all indexes.
+	private void appendCard(Flashcard f) {
+		flashcards.add(f);
+		order.add();
+		positions.put(f.getId(), flashcards.size() - 1);
+		if (search != null) {
+			search.add(f);
+		}
+		if (scheduler != null) {
+			scheduler.add(f.getId());
+		}
+		if (journal != null) {
+			try {
+				journal.recordAdd(f);
+			} catch (IOException ioe) {
+				journalFailed(ioe);
+			}
+		}
+		groupChanged();
+	}
+
 	// enable/disable buttons as appropriate.
 	private void toggleButtons() {
-		if (group.getText() != "Keine Gruppe ausgewhlt") {
+		if (group.getText() != "Keine Gruppe ausgewhlt" && !libraryMode) {
 			addItemButton.setEnabled(true);
+			convertButton.setEnabled(true);
+			mergeButton.setEnabled(true);
+			importButton.setEnabled(true);
 		} else {
 			addItemButton.setEnabled(false);
+			convertButton.setEnabled(false);
+			mergeButton.setEnabled(false);
+			importButton.setEnabled(false);
 		}
 		if (flashcards.size() > 0) {
 			prevButton.setEnabled(true);
@@ -446,6 +1142,311 @@ public class MainGUI {
 			flipFlashcardButton.setEnabled(false);
 			removeItemButton.setEnabled(false);
 		}
+		if (libraryMode) {
+			// The cards are copies, changes would get lost.
+			editItemButton.setEnabled(false);
+			removeItemButton.setEnabled(false);
+		}
+		studyButton.setEnabled(scheduler != null && flashcards.size() > 0);
+		undoButton.setEnabled(undoLog.canUndo() && !libraryMode);
+		redoButton.setEnabled(undoLog.canRedo() && !libraryMode);
+		undoButton.setToolTipText(undoLog.describeUndo());
+		redoButton.setToolTipText(undoLog.describeRedo());
+		duplicatesButton.setEnabled(flashcards.size() > 1);
+		overviewButton.setEnabled(flashcards.size() > 0);
+		statisticsButton.setEnabled(reviewLog != null);
+		notKnownButton.setEnabled(studyMode && scheduler != null && currentFlashcard != null);
+		hardButton.setEnabled(studyMode && scheduler != null && currentFlashcard != null);
+		knownButton.setEnabled(studyMode && scheduler != null && currentFlashcard != null);
+		searchText.setEnabled(search != null && flashcards.size() > 0);
+		nextMatchButton.setEnabled(search != null && flashcards.size() > 0);
+		searchText.setToolTipText(search == null && flashcards.size() > 0
+				? "Die Suche ist bei sehr groen Gruppen nicht verfgbar."
+				: null);
+	}
+
+	private void toggleStudyMode() {
+		studyMode = studyButton.getSelection();
+		if (studyMode) {
+			showDueCard();
+		} else {
+			statusLabel.setText("");
+		}
+		toggleButtons();
+	}
+
+	/*
+	 * Presents the card the scheduler wants to see next, question side first. If
+	 * no card is due, the current card stays and the status tells when the next
+	 * one will be due.
+	 */
+	private void showDueCard() {
+		if (scheduler == null || flashcards.size() == 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long id = scheduler.next(now);
+		if (id == 0) {
+			String next = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT, Locale.GERMAN)
+					.format(new Date(scheduler.getNextDue()));
+			statusLabel.setText("Keine Karteikarten fllig, die nchste ist am " + next + " fllig.");
+			return;
+		}
+		int index = positions.get(id);
+		currentIndex = order.positionOf(index);
+		currentFlashcard = flashcards.get(index);
+		displaySide1 = true;
+		flashcardText.setText(getCurrentSide());
+		flashcardText.setFocus();
+		shownAt = System.nanoTime();
+		statusLabel.setText(scheduler.getDueCount(now) + " Karteikarten fllig.");
+	}
+
+	/*
+	 * Rates how well the current card was known (0 to 5, see ReviewScheduler) and
+	 * moves on to the next due card. Only the card's record in the review file
+	 * gets written.
+	 */
+	private void answer(int quality) {
+		if (scheduler == null || currentFlashcard == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		try {
+			scheduler.answer(currentFlashcard.getId(), quality, now);
+			if (reviewLog != null) {
+				reviewLog.append(currentFlashcard.getId(), now, quality, (System.nanoTime() - shownAt) / 1_000_000);
+			}
+		} catch (IOException ioe) {
+			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+			errorMB.setText("Der Lernstand konnte nicht gespeichert werden:" + System.lineSeparator()
+					+ ioe.getLocalizedMessage());
+			errorMB.open();
+		}
+		showDueCard();
+	}
+
+	/*
+	 * Shows the first card matching the search text, starting offset positions
+	 * after the current one in the presented order. Wraps around like the
+	 * navigation does. The focus stays in the search field.
+	 */
+	private void jumpToMatch(int offset) {
+		if (search == null || order.size() == 0 || operation != null) {
+			return;
+		}
+		if (searchText.getText().strip().isEmpty()) {
+			statusLabel.setText("");
+			return;
+		}
+		if (matches == null) {
+			try (Metrics.Span span = Metrics.search(searchText.getText())) {
+				matches = search.search(searchText.getText(), positions);
+				span.cards(matches.cardinality());
+			}
+		}
+		if (matches.isEmpty()) {
+			statusLabel.setText("Keine Treffer.");
+			return;
+		}
+		int size = order.size();
+		int start = (currentIndex + offset) % size;
+		int best = -1;
+		if (!order.isShuffled()) {
+			// Positions and indexes are the same.
+			best = matches.nextSetBit(start);
+			if (best < 0) {
+				best = matches.nextSetBit(0);
+			}
+		} else {
+			int bestDistance = size;
+			for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+				int position = order.positionOf(i);
+				int distance = Math.floorMod(position - start, size);
+				if (distance < bestDistance) {
+					bestDistance = distance;
+					best = position;
+				}
+			}
+		}
+		currentIndex = best;
+		currentFlashcard = cardAt(currentIndex);
+		flashcardText.setText(getCurrentSide());
+		statusLabel.setText(matches.cardinality() + " Treffer.");
+	}
+
+	/*
+	 * Writes the current group into a file of the other format next to the
+	 * original, so big groups can be migrated to the binary format and exported
+	 * back to XML. Unsaved changes are included in the converted file.
+	 */
+	private void convertGroup() {
+		String extension = GroupIO.isBinary(getCurrentFile()) ? GroupIO.XML_EXTENSION : GroupIO.BINARY_EXTENSION;
+		File target = new File(currentPath + File.separator + currentGroup + extension);
+		if (target.exists()) {
+			MessageBox mb = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO);
+			mb.setText("Die Datei \"" + target.getName() + "\" existiert bereits. Mchtest du sie berschreiben?");
+			if (mb.open() != SWT.YES) {
+				return;
+			}
+		}
+		List<Flashcard> cards = flashcards;
+		runInBackground("Gruppe wird konvertiert...", progress -> {
+			GroupIO.write(cards, target, progress);
+			return null;
+		}, result -> {
+			MessageBox successMB = new MessageBox(shell, SWT.ICON_INFORMATION);
+			successMB.setText("Die Gruppe wurde als \"" + target.getName() + "\" gespeichert.");
+			successMB.open();
+		}, ioe -> showFailure("Ein Fehler ist beim Konvertieren aufgetreten:", ioe));
+	}
+
+	/*
+	 * Compares the current group with another version of it, e.g. a copy somebody
+	 * else edited, and merges that version in once the user saw the differences.
+	 * With the version both started from, the deletions and edits made since can
+	 * be told apart from additions. Unsaved changes are part of our version.
+	 */
+	private void mergeGroup() {
+		String path = FileHandler.getVersionPath(shell, "Andere Version der Gruppe auswhlen");
+		if (path == null) {
+			return;
+		}
+		MessageBox mb = new MessageBox(shell, SWT.ICON_QUESTION | SWT.YES | SWT.NO | SWT.CANCEL);
+		mb.setText("Gibt es eine Ausgangsversion, von der beide Versionen abstammen? "
+				+ "Dann lassen sich gelschte und bearbeitete Karteikarten erkennen.");
+		int answer = mb.open();
+		if (answer == SWT.CANCEL) {
+			return;
+		}
+		File base = null;
+		if (answer == SWT.YES) {
+			String basePath = FileHandler.getVersionPath(shell, "Ausgangsversion der Gruppe auswhlen");
+			if (basePath == null) {
+				return;
+			}
+			base = new File(basePath);
+		}
+		File theirs = new File(path);
+		File baseFile = base;
+		List<Flashcard> ours = GroupJournal.snapshot(flashcards);
+		runInBackground("Versionen werden verglichen...", progress -> {
+			List<Flashcard> baseCards = baseFile != null ? GroupIO.read(baseFile, progress) : null;
+			List<Flashcard> theirCards = GroupIO.read(theirs, progress);
+			return GroupMerger.merge(baseCards, ours, theirCards);
+		}, result -> showMerge(result, baseFile != null),
+				ioe -> showFailure("Die Versionen konnten nicht verglichen werden:", ioe));
+	}
+
+	/*
+	 * Back on the UI thread: shows the differences. If the user agrees, the merged
+	 * group gets saved and loaded again, like a group changed by the command line
+	 * tool, so all indexes start from scratch and nothing can be undone.
+	 */
+	private void showMerge(GroupMerger.Result result, boolean withBase) {
+		if (result.getChanges().isEmpty()) {
+			MessageBox infoMB = new MessageBox(shell, SWT.ICON_INFORMATION);
+			infoMB.setText("Die Versionen unterscheiden sich nicht.");
+			infoMB.open();
+			return;
+		}
+		if (!new MergeDialog(shell, result, withBase).open()) {
+			return;
+		}
+		File file = getCurrentFile();
+		GroupJournal j = journal;
+		List<Flashcard> merged = result.getMerged();
+		runInBackground("Gruppe wird gespeichert...", progress -> {
+			writeGroup(merged, file, j, progress);
+			return null;
+		}, saved -> retrieveGroupData(),
+				ioe -> showFailure("Die abgeglichene Gruppe konnte nicht gespeichert werden:", ioe));
+	}
+
+	/*
+	 * Runs an operation on the I/O thread. The controls are disabled and the
+	 * progress bar is updated until the operation is done, then either onSuccess or
+	 * onFailure gets called on the UI thread.
+	 */
+	private <T> void runInBackground(String description, Operation<T> op, Consumer<T> onSuccess,
+			Consumer<IOException> onFailure) {
+		Progress progress = new Progress();
+		setBusy(description, progress);
+		Display display = shell.getDisplay();
+		IO_EXECUTOR.execute(() -> {
+			T result = null;
+			IOException error = null;
+			try {
+				result = op.run(progress);
+			} catch (IOException ioe) {
+				error = ioe;
+			} catch (RuntimeException re) {
+				error = new IOException(re.toString(), re);
+			}
+			T finalResult = result;
+			IOException finalError = error;
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> {
+					if (shell.isDisposed()) {
+						return;
+					}
+					setIdle();
+					if (finalError == null) {
+						onSuccess.accept(finalResult);
+					} else {
+						onFailure.accept(finalError);
+					}
+				});
+			}
+		});
+	}
+
+	private void setBusy(String description, Progress progress) {
+		operation = progress;
+		statusLabel.setText(description);
+		progressBar.setSelection(0);
+		progressBar.setEnabled(true);
+		cancelButton.setEnabled(true);
+		for (Button b : new Button[] { newGroupButton, openGroupButton, libraryButton, prevButton, nextButton, shuffleButton,
+				unshuffleButton, addItemButton, removeItemButton, editItemButton, flipFlashcardButton,
+				convertButton, nextMatchButton, studyButton, notKnownButton, hardButton, knownButton,
+				duplicatesButton, undoButton, redoButton, importButton, mergeButton, overviewButton, statisticsButton }) {
+			b.setEnabled(false);
+		}
+		searchText.setEnabled(false);
+		cancelButton.setFocus();
+		updateProgressBar(progress);
+	}
+
+	private void setIdle() {
+		operation = null;
+		statusLabel.setText("");
+		progressBar.setSelection(0);
+		progressBar.setEnabled(false);
+		cancelButton.setEnabled(false);
+		newGroupButton.setEnabled(true);
+		openGroupButton.setEnabled(true);
+		libraryButton.setEnabled(true);
+		toggleButtons();
+	}
+
+	// Polls the progress ten times a second while the operation is running.
+	private void updateProgressBar(Progress progress) {
+		if (shell.isDisposed() || operation != progress) {
+			return;
+		}
+		progressBar.setSelection(Math.max(progress.getPercent(), 0));
+		shell.getDisplay().timerExec(100, () -> updateProgressBar(progress));
+	}
+
+	// A cancelled operation needs no error message, the user knows what happened.
+	private void showFailure(String message, IOException ioe) {
+		if (ioe instanceof InterruptedIOException) {
+			return;
+		}
+		MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
+		errorMB.setText(message + System.lineSeparator() + ioe.getLocalizedMessage());
+		errorMB.open();
 	}
 
 	/*
@@ -499,14 +1500,34 @@ public class MainGUI {
 			s2.replace("\\", "\\\\");
 			s2.replace("\"", "\\\"");
 			s2.replace("\'", "\\\'");
-			currentFlashcard.setSide1(s1);
-			currentFlashcard.setSide2(s2);
+			Flashcard before = new Flashcard(currentFlashcard);
+			int index = positions.get(currentFlashcard.getId());
+			changeCard(index, currentFlashcard, s1, s2);
+			undoLog.edited(index, before, new Flashcard(currentFlashcard));
 			flashcardText.setText(getCurrentSide());
 			flashcardText.setFocus();
-			int matchingIndex = findMatchingFlashcard(currentFlashcard);
-			initialOrder.get(matchingIndex).setSide1(s1);
-			initialOrder.get(matchingIndex).setSide2(s2);
+			toggleButtons();
+		}
+	}
+
+	// Sets new texts for a card of the group and updates all indexes.
+	private void changeCard(int index, Flashcard f, String side1, String side2) {
+		Flashcard before = new Flashcard(f);
+		f.setSide1(side1);
+		f.setSide2(side2);
+		if (search != null) {
+			search.update(before, f);
+		}
+		// Lazy lists only keep edited cards if they get put back.
+		flashcards.set(index, f);
+		if (journal != null) {
+			try {
+				journal.recordEdit(index, f);
+			} catch (IOException ioe) {
+				journalFailed(ioe);
+			}
 		}
+		groupChanged();
 	}
 
 	/*
@@ -520,29 +1541,403 @@ public class MainGUI {
 				+ "Dies lscht die Karteikarte aus der aktuellen Liste, erst nach dem Speichern der Liste ist die Lschung endgltig.");
 		int res = mb.open();
 		if (res == SWT.YES) {
-			int toDelete = currentIndex;
-			Flashcard deleteObj = new Flashcard(currentFlashcard);
-			getOtherFlashcard(1);
-			flashcards.remove(toDelete);
-			initialOrder.remove(findMatchingFlashcard(deleteObj));
+			deleteCard(currentIndex, currentFlashcard);
 			if (flashcards.size() == 0) {
 				currentFlashcard = null;
-				toggleButtons();
+				currentIndex = 0;
+			} else {
+				// The next card moved up to the current position (or we wrap around).
+				currentIndex = currentIndex % order.size();
+				currentFlashcard = cardAt(currentIndex);
 			}
+			toggleButtons();
 			flashcardText.setText(getCurrentSide());
 		}
 	}
 
-	// Helper function to find the object to delete
-	// indexOf uses equals, so doesn't work for clones.
-	private int findMatchingFlashcard(Flashcard f) {
-		int index = -1;
-		for (int i = 0; i < initialOrder.size(); i++) {
-			if (f.getSide1() == initialOrder.get(i).getSide1() && f.getSide2() == initialOrder.get(i).getSide2()) {
-				index = i;
-				break;
+	// Removes a card like removeCard() and records it for undo.
+	private void deleteCard(int position, Flashcard f) {
+		int shuffledPosition = order.shuffledPositionOf(position);
+		int index = removeCard(position, f);
+		undoLog.deleted(index, shuffledPosition, new Flashcard(f));
+	}
+
+	/*
+	 * Removes several cards like deleteCard(), but with one pass over the group
+	 * and every index instead of one per card. The journal and the undo log get
+	 * the deletions from the highest index to the lowest, as if the cards got
+	 * deleted one by one.
+	 */
+	private void deleteCards(List<Flashcard> cards) {
+		int[] indexes = new int[cards.size()];
+		int count = 0;
+		for (Flashcard f : cards) {
+			int index = positions.get(f.getId());
+			if (index >= 0) {
+				indexes[count++] = index;
+			}
+		}
+		indexes = Arrays.stream(indexes, 0, count).sorted().distinct().toArray();
+		count = indexes.length;
+		if (count == 0) {
+			return;
+		}
+		List<Flashcard> removed = new ArrayList<>(count);
+		for (int index : indexes) {
+			Flashcard f = flashcards.get(index);
+			removed.add(f);
+			positions.remove(f.getId());
+			if (scheduler != null) {
+				scheduler.remove(f.getId());
+			}
+		}
+		if (search != null) {
+			search.removeAll(removed);
+		}
+		int[] shuffledPositions = order.removeIndexes(indexes);
+		if (flashcards instanceof FlashcardList) {
+			((FlashcardList) flashcards).removeIndexes(indexes);
+		} else {
+			for (int i = count - 1; i >= 0; i--) {
+				flashcards.remove(indexes[i]);
+			}
+		}
+		positions.removePositions(indexes);
+		for (int i = count - 1; i >= 0; i--) {
+			if (journal != null) {
+				try {
+					journal.recordDelete(indexes[i]);
+				} catch (IOException ioe) {
+					journalFailed(ioe);
+				}
 			}
+			undoLog.deleted(indexes[i], shuffledPositions[i], new Flashcard(removed.get(i)));
+		}
+		unsavedChanges += count - 1;
+		groupChanged();
+	}
+
+	/*
+	 * Removes the card at a position of the presented order from the group and
+	 * all indexes. Returns the index the card had.
+	 */
+	private int removeCard(int position, Flashcard f) {
+		positions.remove(f.getId());
+		if (search != null) {
+			search.remove(f);
+		}
+		if (scheduler != null) {
+			scheduler.remove(f.getId());
 		}
+		int index = order.remove(position);
+		flashcards.remove(index);
+		positions.removePosition(index);
+		if (journal != null) {
+			try {
+				journal.recordDelete(index);
+			} catch (IOException ioe) {
+				journalFailed(ioe);
+			}
+		}
+		groupChanged();
 		return index;
 	}
+
+	/*
+	 * Puts a deleted card back at its old index and position, the opposite of
+	 * removeCard(). Its review progress is gone, it starts over as a new card.
+	 */
+	private void insertCard(int index, int shuffledPosition, Flashcard f) {
+		f.setModified(true);
+		flashcards.add(index, f);
+		order.insert(index, shuffledPosition);
+		positions.insertPosition(index);
+		positions.put(f.getId(), index);
+		if (search != null) {
+			search.add(f);
+		}
+		if (scheduler != null) {
+			scheduler.add(f.getId());
+		}
+		if (journal != null) {
+			try {
+				journal.recordInsert(index, f);
+			} catch (IOException ioe) {
+				journalFailed(ioe);
+			}
+		}
+		groupChanged();
+	}
+
+	// Undoes the last step, the newest command first.
+	private void undo() {
+		if (libraryMode || operation != null) {
+			return;
+		}
+		for (UndoLog.Command c : undoLog.undo()) {
+			switch (c.getKind()) {
+			case ADD:
+				removeCard(order.positionOf(c.getIndex()), c.getFlashcard());
+				break;
+			case EDIT:
+				changeCard(c.getIndex(), flashcards.get(c.getIndex()), c.getBefore().getSide1(),
+						c.getBefore().getSide2());
+				break;
+			case DELETE:
+				insertCard(c.getIndex(), c.getShuffledPosition(), new Flashcard(c.getFlashcard()));
+				break;
+			case SHUFFLE:
+				order.undoShuffle(c.getSeed(), c.wasShuffled());
+				break;
+			case UNSHUFFLE:
+				order.reshuffle();
+				break;
+			}
+		}
+		undoneOrRedone();
+	}
+
+	// Redoes the last undone step, the oldest command first.
+	private void redo() {
+		if (libraryMode || operation != null) {
+			return;
+		}
+		for (UndoLog.Command c : undoLog.redo()) {
+			switch (c.getKind()) {
+			case ADD:
+				appendCard(new Flashcard(c.getFlashcard()));
+				break;
+			case EDIT:
+				changeCard(c.getIndex(), flashcards.get(c.getIndex()), c.getFlashcard().getSide1(),
+						c.getFlashcard().getSide2());
+				break;
+			case DELETE:
+				removeCard(order.positionOf(c.getIndex()), c.getFlashcard());
+				break;
+			case SHUFFLE:
+				order.shuffle(c.getSeed());
+				break;
+			case UNSHUFFLE:
+				order.unshuffle();
+				break;
+			}
+		}
+		undoneOrRedone();
+	}
+
+	// Stays at the current card if it's still there, its text may have changed.
+	private void undoneOrRedone() {
+		if (flashcards.size() == 0) {
+			currentFlashcard = null;
+			currentIndex = 0;
+		} else {
+			int index = currentFlashcard != null ? positions.get(currentFlashcard.getId()) : -1;
+			currentIndex = index >= 0 ? order.positionOf(index) : Math.min(currentIndex, order.size() - 1);
+			currentFlashcard = cardAt(currentIndex);
+		}
+		flashcardText.setText(getCurrentSide());
+		toggleButtons();
+	}
+
+	/*
+	 * Imports the cards of a CSV file into the current group in the background.
+	 * Every batch of cards gets committed to the journal right away, the cards
+	 * join the group once the import is over - even if it failed halfway, as the
+	 * batches committed so far are in the journal already.
+	 */
+	private void importCsv() {
+		String path = FileHandler.getImportPath(shell);
+		if (path == null) {
+			return;
+		}
+		File source = new File(path);
+		ImportDialog dialog = new ImportDialog(shell, source);
+		if (!dialog.open()) {
+			return;
+		}
+		GroupJournal j = journal;
+		FlashcardStore imported = new FlashcardStore();
+		IOException[] journalError = new IOException[1];
+		runInBackground("Karteikarten werden importiert...",
+				progress -> CsvImporter.read(source, dialog.getCharset(), dialog.getDelimiter(), dialog.hasHeader(),
+						batch -> {
+							if (j != null) {
+								try {
+									j.recordAdds(batch);
+								} catch (IOException ioe) {
+									journalError[0] = ioe;
+									throw ioe;
+								}
+							}
+							imported.addAll(batch);
+						}, progress),
+				report -> {
+					appendImported(imported);
+					showImportReport(report);
+				}, ioe -> {
+					appendImported(imported);
+					if (journalError[0] != null && journal == j) {
+						journalFailed(journalError[0]);
+					} else {
+						showFailure("Ein Fehler ist beim Importieren aufgetreten, " + imported.size()
+								+ " Karteikarten wurden importiert:", ioe);
+					}
+				});
+	}
+
+	/*
+	 * Appends imported cards to the group and all indexes. They are in the
+	 * journal already. The import can't be undone, the undo steps before it would
+	 * refer to a group without the imported cards.
+	 */
+	private void appendImported(List<Flashcard> imported) {
+		if (imported.isEmpty()) {
+			return;
+		}
+		int first = flashcards.size();
+		for (Flashcard f : imported) {
+			flashcards.add(f);
+			order.add();
+			positions.put(f.getId(), flashcards.size() - 1);
+			if (search != null) {
+				search.add(f);
+			}
+			if (scheduler != null) {
+				scheduler.add(f.getId());
+			}
+		}
+		undoLog.clear();
+		groupChanged();
+		currentIndex = order.positionOf(first);
+		currentFlashcard = cardAt(currentIndex);
+		flashcardText.setText(getCurrentSide());
+		toggleButtons();
+	}
+
+	// Tells how many cards got imported and lists the first broken records.
+	private void showImportReport(CsvImporter.Report report) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(report.getImported()).append(" Karteikarten importiert.");
+		if (report.getErrorCount() > 0) {
+			sb.append(System.lineSeparator()).append(report.getErrorCount())
+					.append(" Zeilen konnten nicht importiert werden:");
+			List<String> errors = report.getErrors();
+			for (int i = 0; i < Math.min(errors.size(), 10); i++) {
+				sb.append(System.lineSeparator()).append(errors.get(i));
+			}
+			if (report.getErrorCount() > 10) {
+				sb.append(System.lineSeparator()).append("...");
+			}
+		}
+		MessageBox mb = new MessageBox(shell, report.getErrorCount() > 0 ? SWT.ICON_WARNING : SWT.ICON_INFORMATION);
+		mb.setText(sb.toString());
+		mb.open();
+	}
+
+	/*
+	 * Lists all cards in a table and shows the one picked there. The table shows
+	 * the initial order, the card keeps its position in a shuffled deck.
+	 */
+	private void showOverview() {
+		int index = new CardTableDialog(shell, flashcards, currentFlashcard == null ? -1 : order.get(currentIndex))
+				.open();
+		if (index < 0) {
+			return;
+		}
+		currentIndex = order.positionOf(index);
+		currentFlashcard = cardAt(currentIndex);
+		flashcardText.setText(getCurrentSide());
+		toggleButtons();
+	}
+
+	/*
+	 * Computes the statistics from the history in the background and shows them.
+	 * The history only gets read, answers given later aren't in the statistics.
+	 */
+	private void showStatistics() {
+		File file = getCurrentFile();
+		List<Flashcard> cards = flashcards;
+		runInBackground("Lernstatistik wird berechnet...",
+				progress -> ReviewLog.computeStatistics(file, cards, 30, 20, ZoneId.systemDefault()),
+				statistics -> new StatisticsDialog(shell, statistics).open(),
+				ioe -> showFailure("Die Lernstatistik konnte nicht berechnet werden:", ioe));
+	}
+
+	/*
+	 * Looks for duplicate cards in the background, in library mode across all
+	 * groups studied together.
+	 */
+	private void findDuplicates() {
+		List<Flashcard> cards = flashcards;
+		List<Library.Group> groups = librarySelection;
+		runInBackground("Duplikate werden gesucht...", progress -> {
+			if (groups == null) {
+				return DuplicateFinder.find(cards, DuplicateFinder.DEFAULT_THRESHOLD, progress);
+			}
+			List<List<Flashcard>> sources = new ArrayList<>();
+			for (Library.Group g : groups) {
+				sources.add(g.getFlashcards());
+			}
+			return DuplicateFinder.findAcross(sources, DuplicateFinder.DEFAULT_THRESHOLD, progress);
+		}, clusters -> showDuplicates(clusters, groups),
+				ioe -> showFailure("Die Suche nach Duplikaten ist fehlgeschlagen:", ioe));
+	}
+
+	// Back on the UI thread: lets the user resolve the duplicates.
+	private void showDuplicates(List<DuplicateFinder.Cluster> clusters, List<Library.Group> groups) {
+		if (clusters.isEmpty()) {
+			MessageBox infoMB = new MessageBox(shell, SWT.ICON_INFORMATION);
+			infoMB.setText("Keine doppelten Karteikarten gefunden.");
+			infoMB.open();
+			return;
+		}
+		List<String> names = null;
+		if (groups != null) {
+			names = new ArrayList<>();
+			for (Library.Group g : groups) {
+				names.add(g.getName());
+			}
+		}
+		List<Flashcard> deleted = new DuplicatesDialog(shell, clusters, names, !libraryMode).open();
+		if (deleted == null || deleted.isEmpty() || libraryMode) {
+			return;
+		}
+		// All deletions get undone together.
+		undoLog.beginStep();
+		deleteCards(deleted);
+		undoLog.endStep();
+		if (flashcards.size() == 0) {
+			currentFlashcard = null;
+			currentIndex = 0;
+			toggleButtons();
+		} else {
+			// Stay at the current card if it's still there.
+			int index = currentFlashcard != null ? positions.get(currentFlashcard.getId()) : -1;
+			currentIndex = index >= 0 ? order.positionOf(index) : Math.min(currentIndex, order.size() - 1);
+			currentFlashcard = cardAt(currentIndex);
+			toggleButtons();
+		}
+		flashcardText.setText(getCurrentSide());
+		statusLabel.setText(deleted.size() + " Karteikarten gelscht.");
+	}
+
+	// An operation for runInBackground().
+	private interface Operation<T> {
+		T run(Progress progress) throws IOException;
+	}
+
+	// What loadGroup() hands over to the UI thread.
+	private static class LoadedGroup {
+		private List<Flashcard> flashcards;
+		private GroupJournal journal;
+		private IOException journalError;
+		private boolean idsUnsaved;
+		private IdIndex positions;
+		private SearchIndex search;
+		private ReviewScheduler scheduler;
+		private IOException reviewError;
+		private ReviewLog reviewLog;
+		private IOException historyError;
+		private boolean library;
+	}
 }
\ No newline at end of file
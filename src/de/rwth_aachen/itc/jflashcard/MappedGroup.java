@@ -0,0 +1,230 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A binary group file mapped into memory. Thanks to the offset table in the
+ * file, every flashcard can be decoded on its own without looking at the other
+ * cards. See {@link BinaryHandler} for a description of the format.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class MappedGroup implements Closeable {
+	private final MappedByteBuffer buffer;
+	private final int count;
+	private final boolean hasIds;
+	// Version 1 files have no IDs, their cards get consecutive IDs from here on.
+	private final long idBase;
+
+	private MappedGroup(File file, MappedByteBuffer buffer, int count, boolean hasIds) throws IOException {
+		this.buffer = buffer;
+		this.count = count;
+		this.hasIds = hasIds;
+		idBase = hasIds ? 0 : Flashcard.newId() >>> 1;
+		checkBounds(file);
+	}
+
+	/**
+	 * Maps a binary group file and checks its header, its offset table and the
+	 * lengths of all texts, so a damaged file gets rejected right away instead of
+	 * failing when one of its cards gets read.
+	 *
+	 * @param file The binary group file.
+	 * @return The mapped group.
+	 * @throws IOException If the file can't be mapped or isn't a valid binary
+	 *                     group.
+	 */
+	public static MappedGroup open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Die Datei " + file + " ist zu gro.");
+			}
+			// The mapping stays valid after the channel got closed.
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			try {
+				// FileHandler.createGroup() creates empty files, which are valid empty groups.
+				if (length == 0) {
+					return new MappedGroup(file, buffer, 0, true);
+				}
+				if (length < BinaryHandler.HEADER_SIZE || buffer.getInt(0) != BinaryHandler.MAGIC) {
+					throw new IOException("Die Datei " + file + " ist keine binre Gruppe.");
+				}
+				int version = buffer.getInt(4);
+				if (version != 1 && version != BinaryHandler.VERSION) {
+					throw new IOException("Die Datei " + file + " hat eine unbekannte Version: " + buffer.getInt(4));
+				}
+				return new MappedGroup(file, buffer, buffer.getInt(8), version >= 2);
+			} catch (IOException | RuntimeException e) {
+				// Nobody else can unmap a file we reject.
+				unmap(buffer);
+				throw e;
+			}
+		}
+	}
+
+	/*
+	 * Checks that the offset table and every card lie within the file. This reads
+	 * a few bytes per card, but decodes no texts.
+	 */
+	private void checkBounds(File file) throws IOException {
+		long limit = buffer.limit();
+		long tableEnd = BinaryHandler.HEADER_SIZE + 4L * count;
+		if (count < 0 || count > 0 && tableEnd > limit) {
+			throw new IOException("Die Datei " + file + " ist beschdigt: ungltige Anzahl von Karteikarten.");
+		}
+		for (int i = 0; i < count; i++) {
+			long offset = getOffset(i);
+			if (offset < tableEnd) {
+				throw damaged(file, i);
+			}
+			if (hasIds) {
+				offset += 8;
+			}
+			for (int side = 0; side < 2; side++) {
+				if (offset + 4 > limit) {
+					throw damaged(file, i);
+				}
+				int length = buffer.getInt((int) offset);
+				if (length < 0 || offset + 4 + length > limit) {
+					throw damaged(file, i);
+				}
+				offset += 4 + length;
+			}
+		}
+	}
+
+	private static IOException damaged(File file, int index) {
+		return new IOException("Die Datei " + file + " ist beschdigt: Karteikarte " + (index + 1)
+				+ " liegt nicht vollstndig in der Datei.");
+	}
+
+	/**
+	 * Returns the number of flashcards in the group.
+	 *
+	 * @return The number of flashcards.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Checks if the file stores the IDs of the cards. The cards of version 1 files
+	 * get new IDs every time the file gets opened.
+	 *
+	 * @return False for version 1 files.
+	 */
+	public boolean hasIds() {
+		return hasIds;
+	}
+
+	/**
+	 * Decodes a flashcard. Cards of version 1 files count as modified, as their
+	 * IDs aren't in the file.
+	 *
+	 * @param index The index of the flashcard in the file.
+	 * @return A new flashcard object holding the texts of the card.
+	 */
+	public Flashcard get(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		}
+		// Absolute reads only, so several threads can share the buffer.
+		int offset = getOffset(index);
+		long id = idBase + index;
+		if (hasIds) {
+			id = buffer.getLong(offset);
+			offset += 8;
+		}
+		int length1 = buffer.getInt(offset);
+		String side1 = decode(offset + 4, length1);
+		int offset2 = offset + 4 + length1;
+		String side2 = decode(offset2 + 4, buffer.getInt(offset2));
+		Flashcard f = new Flashcard(id, side1, side2);
+		f.setModified(!hasIds);
+		return f;
+	}
+
+	/**
+	 * Returns the ID of a flashcard without decoding its texts.
+	 *
+	 * @param index The index of the flashcard in the file.
+	 * @return The ID of the flashcard.
+	 */
+	public long getId(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		}
+		return hasIds ? buffer.getLong(getOffset(index)) : idBase + index;
+	}
+
+	private int getOffset(int index) {
+		return buffer.getInt(BinaryHandler.HEADER_SIZE + 4 * index);
+	}
+
+	private String decode(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Unmaps the file right away instead of when the buffer gets garbage
+	 * collected, so the file can be deleted (Windows refuses to delete mapped
+	 * files). The group must not be used anymore afterwards, reading it would
+	 * crash the JVM.
+	 */
+	@Override
+	public void close() {
+		unmap(buffer);
+	}
+
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			// There is no public API for this before Java 19.
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Then the mapping goes away with the buffer.
+		}
+	}
+
+	/**
+	 * Returns a read-only list view of the group. The flashcards are decoded every
+	 * time they are accessed.
+	 *
+	 * @return The list view.
+	 */
+	public List<Flashcard> asList() {
+		return new ListView();
+	}
+
+	private class ListView extends AbstractList<Flashcard> implements RandomAccess {
+		@Override
+		public Flashcard get(int index) {
+			return MappedGroup.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Shows the differences the {@link GroupMerger} found between the current group
+ * and another version of it, before the merged group replaces the current one.
+ * The table is virtual, so even a merge with a hundred thousand differences
+ * only creates the rows which are visible.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class MergeDialog extends Dialog {
+	private final GroupMerger.Result result;
+	private final boolean withBase;
+	private boolean confirmed;
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell    The parent window the dialog will appear in.
+	 * @param result   The differences and the merged group.
+	 * @param withBase Whether the versions got merged with their common base.
+	 */
+	public MergeDialog(Shell shell, GroupMerger.Result result, boolean withBase) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.result = result;
+		this.withBase = withBase;
+		setText("Versionen abgleichen");
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 *
+	 * @return True if the merged group should replace the current one, false if
+	 *         the dialog got canceled.
+	 */
+	public boolean open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+		return confirmed;
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(2, true));
+		Label summary = new Label(shell, SWT.WRAP);
+		summary.setText(describeResult());
+		GridData data = new GridData(GridData.FILL_HORIZONTAL);
+		data.horizontalSpan = 2;
+		data.widthHint = 600;
+		summary.setLayoutData(data);
+		List<GroupMerger.Change> changes = result.getChanges();
+		Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.VIRTUAL);
+		table.setHeaderVisible(true);
+		for (String name : new String[] { "Art", "Unsere Version", "Ihre Version" }) {
+			TableColumn column = new TableColumn(table, SWT.LEFT);
+			column.setText(name);
+			column.setWidth(name.equals("Art") ? 110 : 250);
+		}
+		table.addListener(SWT.SetData, event -> {
+			TableItem item = (TableItem) event.item;
+			GroupMerger.Change c = changes.get(table.indexOf(item));
+			item.setText(new String[] { describeKind(c.getKind()), describe(c.getOurs()), describe(c.getTheirs()) });
+		});
+		table.setItemCount(changes.size());
+		data = new GridData(GridData.FILL_BOTH);
+		data.horizontalSpan = 2;
+		data.heightHint = 300;
+		table.setLayoutData(data);
+		Button ok = new Button(shell, SWT.PUSH);
+		ok.setText("nderungen &bernehmen");
+		ok.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		ok.addListener(SWT.Selection, event -> {
+			confirmed = true;
+			shell.close();
+		});
+		Button cancel = new Button(shell, SWT.PUSH);
+		cancel.setText("&Abbrechen");
+		cancel.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		cancel.addListener(SWT.Selection, event -> shell.close());
+		shell.setDefaultButton(ok);
+		table.setFocus();
+	}
+
+	private String describeResult() {
+		StringBuilder sb = new StringBuilder();
+		for (GroupMerger.Kind kind : GroupMerger.Kind.values()) {
+			if (withBase || kind != GroupMerger.Kind.CONFLICT) {
+				sb.append(describeKind(kind)).append(": ").append(result.getCount(kind)).append(". ");
+			}
+		}
+		if (withBase) {
+			sb.append("Ihre nderungen seit der Ausgangsversion werden bernommen. Bei Konflikten bleibt unsere "
+					+ "Karteikarte erhalten, oder die bearbeitete, wenn die andere Seite sie gelscht hat.");
+		} else {
+			sb.append("Ohne Ausgangsversion geht keine Karteikarte verloren: Karteikarten, die nur in ihrer "
+					+ "Version sind, werden hinzugefgt, bei unterschiedlichen Texten bleiben unsere erhalten.");
+		}
+		sb.append(" Die Gruppe hat danach ").append(result.getMerged().size()).append(" Karteikarten.");
+		return sb.toString();
+	}
+
+	// Without a base, the kinds only tell where a card is, not who changed it.
+	private String describeKind(GroupMerger.Kind kind) {
+		switch (kind) {
+		case ADDED:
+			return withBase ? "Hinzugefgt" : "Nur in ihrer";
+		case REMOVED:
+			return withBase ? "Entfernt" : "Nur in unserer";
+		case CHANGED:
+			return withBase ? "Gendert" : "Unterschiedlich";
+		default:
+			return "Konflikt";
+		}
+	}
+
+	private static String describe(Flashcard f) {
+		if (f == null) {
+			return "";
+		}
+		return (f.getSide1() + " = " + f.getSide2()).replaceAll("\\s+", " ");
+	}
+}
@@ -0,0 +1,403 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Measures where the time goes: loading and saving groups, the phases of the XML
+ * parser, shuffling, searching and the actions of the user. The tasks of this
+ * class are:
+ * <ul>
+ * <li>Time operations with a {@link Span} and emit a Java Flight Recorder event
+ * for each of them, so slow groups can be found in a recording,</li>
+ * <li>Collect count, total and maximum duration, cards and bytes of every kind
+ * of operation in memory, together with the slowest file or action,</li>
+ * <li>Export the collected numbers to a CSV file.</li>
+ * </ul>
+ * The events are in the category "JFlashcard" and only cost anything while a
+ * recording is running, e.g. one started with
+ * {@code -XX:StartFlightRecording=filename=jflashcard.jfr}. The collected
+ * numbers are shown in the {@link DiagnosticsDialog}. If the system property
+ * {@value #EXPORT_PROPERTY} holds a file name, they get written to that file
+ * when the application exits.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class Metrics {
+	/**
+	 * System property holding the file the metrics get exported to on exit.
+	 */
+	public static final String EXPORT_PROPERTY = "jflashcard.metrics.file";
+
+	/**
+	 * The name of the metric of reading a group file.
+	 */
+	public static final String GROUP_LOAD = "group.load";
+	/**
+	 * The name of the metric of writing a group file.
+	 */
+	public static final String GROUP_SAVE = "group.save";
+	/**
+	 * The prefix of the metrics of the XML parser phases.
+	 */
+	public static final String XML_PREFIX = "xml.";
+	/**
+	 * The name of the metric of shuffling the deck.
+	 */
+	public static final String SHUFFLE = "deck.shuffle";
+	/**
+	 * The name of the metric of searching the cards.
+	 */
+	public static final String SEARCH = "search";
+	/**
+	 * The prefix of the metrics of user actions.
+	 */
+	public static final String ACTION_PREFIX = "ui.";
+
+	// Sorted by name, so related metrics stay together in the dialog and export.
+	private static final Map<String, Stat> STATS = new TreeMap<>();
+
+	private Metrics() {
+	}
+
+	/**
+	 * The collected numbers of one kind of operation.
+	 */
+	public static class Stat {
+		private final String name;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private String slowest = "";
+		private long cards;
+		private long bytes;
+
+		private Stat(String name) {
+			this.name = name;
+		}
+
+		private Stat(Stat other) {
+			name = other.name;
+			count = other.count;
+			totalNanos = other.totalNanos;
+			maxNanos = other.maxNanos;
+			slowest = other.slowest;
+			cards = other.cards;
+			bytes = other.bytes;
+		}
+
+		/**
+		 * Returns the name of the metric, e.g. {@value Metrics#GROUP_LOAD}.
+		 *
+		 * @return The name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns how often the operation was measured.
+		 *
+		 * @return The count.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the duration of all measured operations together.
+		 *
+		 * @return The total duration in nanoseconds.
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Returns the duration of the slowest operation.
+		 *
+		 * @return The maximum duration in nanoseconds.
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * Returns what the slowest operation worked on, e.g. the name of a group file.
+		 *
+		 * @return The details of the slowest operation.
+		 */
+		public String getSlowest() {
+			return slowest;
+		}
+
+		/**
+		 * Returns the number of flashcards of all measured operations together.
+		 *
+		 * @return The number of cards.
+		 */
+		public long getCards() {
+			return cards;
+		}
+
+		/**
+		 * Returns the number of bytes of all measured operations together.
+		 *
+		 * @return The number of bytes.
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Times an operation from its creation until it gets closed. Use it in a
+	 * try-with-resources statement and report the cards and bytes on the way.
+	 */
+	public static class Span implements AutoCloseable {
+		private final String name;
+		private final String detail;
+		private final TimedEvent event;
+		private final long start;
+		private long cards;
+		private long bytes;
+
+		private Span(String name, String detail, TimedEvent event) {
+			this.name = name;
+			this.detail = detail;
+			this.event = event;
+			event.begin();
+			start = System.nanoTime();
+		}
+
+		/**
+		 * Sets the number of flashcards the operation worked on.
+		 *
+		 * @param cards The number of cards.
+		 * @return This span.
+		 */
+		public Span cards(long cards) {
+			this.cards = cards;
+			return this;
+		}
+
+		/**
+		 * Sets the number of bytes the operation read or wrote.
+		 *
+		 * @param bytes The number of bytes.
+		 * @return This span.
+		 */
+		public Span bytes(long bytes) {
+			this.bytes = bytes;
+			return this;
+		}
+
+		/**
+		 * Ends the operation, records it and emits the event.
+		 */
+		@Override
+		public void close() {
+			long duration = System.nanoTime() - start;
+			event.end();
+			record(name, detail, duration, cards, bytes);
+			if (event.shouldCommit()) {
+				event.detail = detail;
+				event.cards = cards;
+				event.bytes = bytes;
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Starts timing the reading of a group file.
+	 *
+	 * @param file The group file.
+	 * @return The span to close when the group is read.
+	 */
+	public static Span load(File file) {
+		return new Span(GROUP_LOAD, file.getPath(), new GroupLoadEvent());
+	}
+
+	/**
+	 * Starts timing the writing of a group file.
+	 *
+	 * @param file The group file.
+	 * @return The span to close when the group is written.
+	 */
+	public static Span save(File file) {
+		return new Span(GROUP_SAVE, file.getPath(), new GroupSaveEvent());
+	}
+
+	/**
+	 * Starts timing a phase of the XML parser.
+	 *
+	 * @param phase The name of the phase, e.g. "setup".
+	 * @param file  The group file being parsed.
+	 * @return The span to close when the phase is over.
+	 */
+	public static Span parse(String phase, File file) {
+		return new Span(XML_PREFIX + phase, file.getPath(), new XmlParseEvent());
+	}
+
+	/**
+	 * Starts timing shuffling the deck.
+	 *
+	 * @return The span to close when the deck is shuffled.
+	 */
+	public static Span shuffle() {
+		return new Span(SHUFFLE, "", new ShuffleEvent());
+	}
+
+	/**
+	 * Starts timing a search.
+	 *
+	 * @param query The query as typed by the user.
+	 * @return The span to close when the matches are found.
+	 */
+	public static Span search(String query) {
+		return new Span(SEARCH, query, new SearchEvent());
+	}
+
+	/**
+	 * Starts timing an action of the user, from the click until the window is
+	 * ready for the next one.
+	 *
+	 * @param action The name of the action, e.g. "next".
+	 * @return The span to close when the action is handled.
+	 */
+	public static Span action(String action) {
+		return new Span(ACTION_PREFIX + action, action, new ActionEvent());
+	}
+
+	private static synchronized void record(String name, String detail, long duration, long cards, long bytes) {
+		Stat stat = STATS.computeIfAbsent(name, Stat::new);
+		stat.count++;
+		stat.totalNanos += duration;
+		stat.cards += cards;
+		stat.bytes += bytes;
+		if (duration >= stat.maxNanos) {
+			stat.maxNanos = duration;
+			stat.slowest = detail;
+		}
+	}
+
+	/**
+	 * Returns the numbers collected so far.
+	 *
+	 * @return Copies of the metrics, sorted by name.
+	 */
+	public static synchronized List<Stat> getStats() {
+		List<Stat> res = new ArrayList<>(STATS.size());
+		for (Stat stat : STATS.values()) {
+			res.add(new Stat(stat));
+		}
+		return res;
+	}
+
+	/**
+	 * Forgets all numbers collected so far.
+	 */
+	public static synchronized void reset() {
+		STATS.clear();
+	}
+
+	/**
+	 * Writes the numbers collected so far to a CSV file (UTF-8, separated by
+	 * semicolons, durations in milliseconds).
+	 *
+	 * @param file The file to write.
+	 * @throws IOException If the file couldn't be written.
+	 */
+	public static void export(File file) throws IOException {
+		List<Stat> stats = getStats();
+		AtomicFile.write(file, out -> {
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			writer.write("Messung;Anzahl;Summe (ms);Durchschnitt (ms);Maximum (ms);Langsamste;Karteikarten;Bytes\n");
+			for (Stat stat : stats) {
+				writer.write(String.join(";", stat.name, Long.toString(stat.count), toMillis(stat.totalNanos),
+						toMillis(stat.totalNanos / Math.max(stat.count, 1)), toMillis(stat.maxNanos),
+						stat.slowest.replace(';', ','), Long.toString(stat.cards), Long.toString(stat.bytes)));
+				writer.write('\n');
+			}
+			writer.flush();
+		});
+	}
+
+	/**
+	 * Formats a duration in milliseconds with three decimals.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The formatted duration.
+	 */
+	public static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	/*
+	 * The events of the flight recorder. The fields are filled when the span gets
+	 * closed, only if the event is recorded at all.
+	 */
+	@Category("JFlashcard")
+	abstract static class TimedEvent extends Event {
+		@Label("Details")
+		String detail;
+		@Label("Karteikarten")
+		long cards;
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.GroupLoad")
+	@Label("Gruppe gelesen")
+	@Description("Eine Gruppendatei wurde gelesen, Details ist der Pfad.")
+	static class GroupLoadEvent extends TimedEvent {
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.GroupSave")
+	@Label("Gruppe gespeichert")
+	@Description("Eine Gruppendatei wurde geschrieben, Details ist der Pfad.")
+	static class GroupSaveEvent extends TimedEvent {
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.XmlParse")
+	@Label("XML-Phase")
+	@Description("Eine Phase des XML-Parsers, Details ist der Pfad.")
+	static class XmlParseEvent extends TimedEvent {
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.Shuffle")
+	@Label("Karteikarten gemischt")
+	static class ShuffleEvent extends TimedEvent {
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.Search")
+	@Label("Suche")
+	@Description("Eine Suche, Details ist die Anfrage, Karteikarten die Anzahl Treffer.")
+	static class SearchEvent extends TimedEvent {
+	}
+
+	@Name("de.rwth_aachen.itc.jflashcard.Action")
+	@Label("Benutzeraktion")
+	@Description("Die Verarbeitung eines Klicks oder einer Taste, Details ist die Aktion.")
+	static class ActionEvent extends TimedEvent {
+	}
+}
@@ -0,0 +1,129 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * The progress of a long running read or write operation, shared between the
+ * thread doing the work and the UI showing it. The tasks of this class are:
+ * <ul>
+ * <li>Count the work done so far, in bytes or in cards, against a total,</li>
+ * <li>Let the UI cancel the operation, which the worker notices the next time
+ * it reports progress.</li>
+ * </ul>
+ * Cancelling doesn't interrupt the worker thread, as an interrupt closes any
+ * file channel the thread is using. The readers and writers check
+ * {@link #checkCancelled()} instead and stop with an
+ * {@link InterruptedIOException}, leaving the files as they were.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class Progress {
+	private volatile long total;
+	private volatile long done;
+	private volatile boolean cancelled;
+
+	/**
+	 * Sets the amount of work of the operation and resets the work done. An
+	 * operation consisting of several steps starts again at 0 for every step.
+	 *
+	 * @param total The amount of work, 0 if it isn't known.
+	 */
+	public void begin(long total) {
+		this.total = total;
+		done = 0;
+	}
+
+	/**
+	 * Reports work done and stops the operation if it got cancelled. Several
+	 * worker threads may report work for the same operation.
+	 *
+	 * @param amount The amount of work done since the last call.
+	 * @throws InterruptedIOException If the operation got cancelled.
+	 */
+	public synchronized void worked(long amount) throws InterruptedIOException {
+		done += amount;
+		checkCancelled();
+	}
+
+	/**
+	 * Stops the operation if it got cancelled.
+	 *
+	 * @throws InterruptedIOException If the operation got cancelled.
+	 */
+	public void checkCancelled() throws InterruptedIOException {
+		if (cancelled) {
+			throw new InterruptedIOException("Der Vorgang wurde abgebrochen.");
+		}
+	}
+
+	/**
+	 * Asks the operation to stop as soon as possible.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Checks if the operation got cancelled.
+	 *
+	 * @return True if {@link #cancel()} got called.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns the progress of the current step.
+	 *
+	 * @return The percentage of work done (0 to 100), or -1 if the total isn't
+	 *         known.
+	 */
+	public int getPercent() {
+		long t = total;
+		if (t <= 0) {
+			return -1;
+		}
+		return (int) Math.min(100, done * 100 / t);
+	}
+
+	/**
+	 * Wraps a stream so every read counts as work done and stops the operation once
+	 * it got cancelled.
+	 *
+	 * @param in The stream to track.
+	 * @return The tracking stream. Closing it closes the original stream.
+	 */
+	public InputStream track(InputStream in) {
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					worked(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					worked(n);
+				}
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				worked(skipped);
+				return skipped;
+			}
+		};
+	}
+}
@@ -0,0 +1,552 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The history of all answers given in study mode, kept in the file &lt;group
+ * file&gt;.history. The tasks of this class are:
+ * <ul>
+ * <li>Append a fixed-size record (card ID, time, quality of the answer and
+ * response time) for every answer, without ever rewriting the file,</li>
+ * <li>Read the file through a memory mapping, so millions of records get
+ * evaluated without copying them onto the heap,</li>
+ * <li>Compute the statistics of a group in parallel: the accuracy of every card,
+ * the reviews of the last days and the hardest cards.</li>
+ * </ul>
+ * Unlike the review file of the {@link ReviewScheduler}, which holds the
+ * current state of every card, the history only grows. A record which only got
+ * written halfway before a crash is cut off at the end of the file and gets
+ * overwritten by the next answer; records of cards which are no longer in the
+ * group still count for the daily reviews.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class ReviewLog implements Closeable {
+	/**
+	 * The size of a record in bytes.
+	 */
+	public static final int RECORD_SIZE = 24;
+	/**
+	 * The number of reviews a card needs at least to count as one of the hardest
+	 * cards. A card which got answered wrong once isn't hard yet.
+	 */
+	public static final int MIN_REVIEWS_FOR_HARDEST = 3;
+
+	private static final int MAGIC = 0x4A464831; // "JFH1"
+	// magic, record size
+	private static final int HEADER_SIZE = 8;
+	// A mapping can't be larger than 2 GB, so big files get mapped in chunks.
+	private static final int CHUNK_RECORDS = 1 << 26;
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	// Every thread counts per card on its own, this limits the memory it takes.
+	private static final long COUNTING_MEMORY = 64L << 20;
+	// Fewer records aren't worth another thread.
+	private static final int MIN_PART_RECORDS = 1 << 16;
+
+	private final File logFile;
+	private final FileChannel channel;
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+	private long recordCount;
+
+	private ReviewLog(File logFile, FileChannel channel, long recordCount) {
+		this.logFile = logFile;
+		this.channel = channel;
+		this.recordCount = recordCount;
+	}
+
+	/**
+	 * The statistics of the answers given for a group.
+	 */
+	public static class Statistics {
+		private final List<Flashcard> flashcards;
+		private final long reviews;
+		private final long passed;
+		private final long responseMillis;
+		private final long invalid;
+		private final int[] cardReviews;
+		private final int[] cardPassed;
+		private final long[] cardResponseMillis;
+		private final LocalDate firstDay;
+		private final int[] dayReviews;
+		private final int[] dayPassed;
+		private final List<Integer> hardest;
+
+		private Statistics(List<Flashcard> flashcards, Totals totals, int[] cardReviews, int[] cardPassed,
+				long[] cardResponseMillis, LocalDate firstDay, List<Integer> hardest) {
+			this.flashcards = flashcards;
+			reviews = totals.reviews;
+			passed = totals.passed;
+			responseMillis = totals.responseMillis;
+			invalid = totals.invalid;
+			this.cardReviews = cardReviews;
+			this.cardPassed = cardPassed;
+			this.cardResponseMillis = cardResponseMillis;
+			this.firstDay = firstDay;
+			dayReviews = totals.dayReviews;
+			dayPassed = totals.dayPassed;
+			this.hardest = hardest;
+		}
+
+		/**
+		 * Returns the number of answers in the history, including the ones for cards
+		 * which are no longer in the group.
+		 *
+		 * @return The number of answers.
+		 */
+		public long getReviews() {
+			return reviews;
+		}
+
+		/**
+		 * Returns the number of answers which were good enough to pass (see
+		 * {@link ReviewScheduler#QUALITY_PASSED}).
+		 *
+		 * @return The number of passed answers.
+		 */
+		public long getPassed() {
+			return passed;
+		}
+
+		/**
+		 * Returns the share of passed answers.
+		 *
+		 * @return The accuracy from 0 to 1, 0 if there are no answers.
+		 */
+		public double getAccuracy() {
+			return reviews > 0 ? (double) passed / reviews : 0;
+		}
+
+		/**
+		 * Returns the average time it took to answer.
+		 *
+		 * @return The time in milliseconds, 0 if there are no answers.
+		 */
+		public long getAverageResponseMillis() {
+			return reviews > 0 ? responseMillis / reviews : 0;
+		}
+
+		/**
+		 * Returns the number of broken records, which got skipped.
+		 *
+		 * @return The number of records.
+		 */
+		public long getInvalid() {
+			return invalid;
+		}
+
+		/**
+		 * Counts the cards of the group which got answered at least once.
+		 *
+		 * @return The number of cards.
+		 */
+		public int getReviewedCards() {
+			int count = 0;
+			for (int r : cardReviews) {
+				if (r > 0) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Returns the number of answers given for a card.
+		 *
+		 * @param index The index of the card in the group.
+		 * @return The number of answers.
+		 */
+		public int getReviews(int index) {
+			return cardReviews[index];
+		}
+
+		/**
+		 * Returns the number of passed answers for a card.
+		 *
+		 * @param index The index of the card in the group.
+		 * @return The number of passed answers.
+		 */
+		public int getPassed(int index) {
+			return cardPassed[index];
+		}
+
+		/**
+		 * Returns the share of passed answers for a card.
+		 *
+		 * @param index The index of the card in the group.
+		 * @return The accuracy from 0 to 1, 0 if the card never got answered.
+		 */
+		public double getAccuracy(int index) {
+			return cardReviews[index] > 0 ? (double) cardPassed[index] / cardReviews[index] : 0;
+		}
+
+		/**
+		 * Returns the average time it took to answer a card.
+		 *
+		 * @param index The index of the card in the group.
+		 * @return The time in milliseconds, 0 if the card never got answered.
+		 */
+		public long getAverageResponseMillis(int index) {
+			return cardReviews[index] > 0 ? cardResponseMillis[index] / cardReviews[index] : 0;
+		}
+
+		/**
+		 * Returns the first day of the daily counts.
+		 *
+		 * @return The day, the daily counts end today.
+		 */
+		public LocalDate getFirstDay() {
+			return firstDay;
+		}
+
+		/**
+		 * Returns the number of days with daily counts.
+		 *
+		 * @return The number of days.
+		 */
+		public int getDays() {
+			return dayReviews.length;
+		}
+
+		/**
+		 * Returns the number of answers given on a day.
+		 *
+		 * @param day The day, 0 is {@link #getFirstDay()}.
+		 * @return The number of answers.
+		 */
+		public int getDayReviews(int day) {
+			return dayReviews[day];
+		}
+
+		/**
+		 * Returns the number of passed answers given on a day.
+		 *
+		 * @param day The day, 0 is {@link #getFirstDay()}.
+		 * @return The number of passed answers.
+		 */
+		public int getDayPassed(int day) {
+			return dayPassed[day];
+		}
+
+		/**
+		 * Returns the hardest cards: those with the lowest accuracy among the cards
+		 * which got answered at least {@value ReviewLog#MIN_REVIEWS_FOR_HARDEST}
+		 * times and not always passed.
+		 *
+		 * @return The indexes of the cards in the group, the hardest first.
+		 */
+		public List<Integer> getHardest() {
+			return hardest;
+		}
+
+		/**
+		 * Returns a card of the group the statistics belong to.
+		 *
+		 * @param index The index of the card.
+		 * @return The card.
+		 */
+		public Flashcard getFlashcard(int index) {
+			return flashcards.get(index);
+		}
+	}
+
+	/*
+	 * Adds up the records of one part of the history. Every thread counts its
+	 * part on its own, the counts get added up afterwards.
+	 */
+	private static class Totals {
+		private long reviews;
+		private long passed;
+		private long responseMillis;
+		private long invalid;
+		private final int[] dayReviews;
+		private final int[] dayPassed;
+		private final int[] cardReviews;
+		private final int[] cardPassed;
+		private final long[] cardResponse;
+
+		Totals(int days, int cards) {
+			dayReviews = new int[days];
+			dayPassed = new int[days];
+			cardReviews = new int[cards];
+			cardPassed = new int[cards];
+			cardResponse = new long[cards];
+		}
+
+		// Adds all but the counts per card, which are added up by card range.
+		void combine(Totals other) {
+			reviews += other.reviews;
+			passed += other.passed;
+			responseMillis += other.responseMillis;
+			invalid += other.invalid;
+			for (int d = 0; d < dayReviews.length; d++) {
+				dayReviews[d] += other.dayReviews[d];
+				dayPassed[d] += other.dayPassed[d];
+			}
+		}
+	}
+
+	/**
+	 * Returns the history file belonging to a group file.
+	 *
+	 * @param groupFile The group file.
+	 * @return The history file (which doesn't necessarily exist).
+	 */
+	public static File getLogFile(File groupFile) {
+		return new File(groupFile.getPath() + ".history");
+	}
+
+	/**
+	 * Opens the history of a group for appending answers. The file gets created if
+	 * it doesn't exist yet.
+	 *
+	 * @param groupFile The group file.
+	 * @return The history.
+	 * @throws IOException If the file can't be opened or isn't a history.
+	 */
+	public static ReviewLog open(File groupFile) throws IOException {
+		File logFile = getLogFile(groupFile);
+		FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long count = checkHeader(channel, logFile);
+			if (channel.size() < HEADER_SIZE) {
+				writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC).putInt(4, RECORD_SIZE), 0);
+			}
+			return new ReviewLog(logFile, channel, count);
+		} catch (IOException ioe) {
+			channel.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Appends an answer to the history.
+	 *
+	 * @param id             The ID of the flashcard.
+	 * @param time           When the answer was given, in milliseconds since the
+	 *                       epoch.
+	 * @param quality        How well the card was known, from
+	 *                       {@link ReviewScheduler#QUALITY_MIN} to
+	 *                       {@link ReviewScheduler#QUALITY_MAX}.
+	 * @param responseMillis How long it took to answer, in milliseconds.
+	 * @throws IOException If the record couldn't be written.
+	 */
+	public void append(long id, long time, int quality, long responseMillis) throws IOException {
+		if (quality < ReviewScheduler.QUALITY_MIN || quality > ReviewScheduler.QUALITY_MAX) {
+			throw new IllegalArgumentException("Invalid quality: " + quality);
+		}
+		record.clear();
+		record.putLong(id).putLong(time).putInt((int) Math.min(Math.max(responseMillis, 0), Integer.MAX_VALUE))
+				.putInt(quality);
+		record.flip();
+		// Behind the last complete record, so a cut off one gets overwritten.
+		writeFully(channel, record, HEADER_SIZE + recordCount * RECORD_SIZE);
+		recordCount++;
+	}
+
+	/**
+	 * Returns the number of answers in the history.
+	 *
+	 * @return The number of records.
+	 */
+	public long getCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Closes the history. A file without records gets deleted.
+	 *
+	 * @throws IOException If the file can't be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		if (recordCount == 0) {
+			Files.deleteIfExists(logFile.toPath());
+		}
+	}
+
+	/**
+	 * Computes the statistics of a group from its history. The records get read
+	 * from a memory mapping of the file in parts by parallel threads, each with
+	 * its own counts per card, so the heap taken doesn't grow with the history.
+	 *
+	 * @param groupFile  The group file.
+	 * @param flashcards The flashcards of the group in their initial order. For a
+	 *                   {@link FlashcardList}, only the IDs get read.
+	 * @param days       The number of days to count the answers of, ending today.
+	 * @param hardest    The number of hardest cards to find.
+	 * @param zone       The time zone the days begin and end in.
+	 * @return The statistics, all zero if the group has no history.
+	 * @throws IOException If the history can't be read or has more than
+	 *                     {@link Integer#MAX_VALUE} records.
+	 */
+	public static Statistics computeStatistics(File groupFile, List<Flashcard> flashcards, int days, int hardest,
+			ZoneId zone) throws IOException {
+		File logFile = getLogFile(groupFile);
+		ByteBuffer[] chunks = new ByteBuffer[0];
+		long count = 0;
+		if (logFile.isFile()) {
+			try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+				count = checkHeader(channel, logFile);
+				chunks = new ByteBuffer[(int) ((count + CHUNK_RECORDS - 1) / CHUNK_RECORDS)];
+				for (int c = 0; c < chunks.length; c++) {
+					long first = (long) c * CHUNK_RECORDS;
+					long size = Math.min(CHUNK_RECORDS, count - first) * RECORD_SIZE;
+					// The mapping stays valid after the channel got closed.
+					chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, size);
+				}
+			}
+		}
+		return computeStatistics(chunks, count, flashcards, days, hardest, zone);
+	}
+
+	private static Statistics computeStatistics(ByteBuffer[] chunks, long count, List<Flashcard> flashcards,
+			int days, int hardest, ZoneId zone) throws IOException {
+		if (count > Integer.MAX_VALUE) {
+			throw new IOException("Der Lernverlauf ist zu gro: " + count + " Eintrge.");
+		}
+		int records = (int) count;
+		IdIndex positions = IdIndex.of(flashcards);
+		int cards = flashcards.size();
+		LocalDate firstDay = LocalDate.now(zone).minusDays(days - 1);
+		// The days don't always have 24 hours, so their beginnings get looked up.
+		long[] starts = new long[days + 1];
+		for (int d = 0; d <= days; d++) {
+			starts[d] = firstDay.plusDays(d).atStartOfDay(zone).toInstant().toEpochMilli();
+		}
+		/*
+		 * Every part of the history gets counted by its own thread into its own
+		 * arrays, so each record is read once and no thread waits for another. A
+		 * huge group gets fewer parts, the counts per card take 16 bytes a card.
+		 */
+		long perCard = 16L * Math.max(cards, 1);
+		int parts = (int) Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(),
+				records / MIN_PART_RECORDS), COUNTING_MEMORY / perCard));
+		Totals[] counted = IntStream.range(0, parts).parallel().mapToObj(part -> {
+			Totals t = new Totals(days, cards);
+			int from = (int) ((long) records * part / parts);
+			int to = (int) ((long) records * (part + 1) / parts);
+			for (int r = from; r < to; r++) {
+				ByteBuffer chunk = chunks[r / CHUNK_RECORDS];
+				int offset = r % CHUNK_RECORDS * RECORD_SIZE;
+				long id = chunk.getLong(offset);
+				int response = chunk.getInt(offset + 16);
+				int quality = chunk.getInt(offset + 20);
+				if (id <= 0 || response < 0 || quality < ReviewScheduler.QUALITY_MIN
+						|| quality > ReviewScheduler.QUALITY_MAX) {
+					t.invalid++;
+					continue;
+				}
+				int pass = quality >= ReviewScheduler.QUALITY_PASSED ? 1 : 0;
+				t.reviews++;
+				t.passed += pass;
+				t.responseMillis += response;
+				int day = dayOf(starts, chunk.getLong(offset + 8));
+				if (day >= 0) {
+					t.dayReviews[day]++;
+					t.dayPassed[day] += pass;
+				}
+				int index = positions.get(id);
+				if (index >= 0) {
+					t.cardReviews[index]++;
+					t.cardPassed[index] += pass;
+					t.cardResponse[index] += response;
+				}
+			}
+			return t;
+		}).toArray(Totals[]::new);
+		Totals totals = counted[0];
+		for (int part = 1; part < parts; part++) {
+			totals.combine(counted[part]);
+		}
+		// The counts per card get added up in ranges of cards, each by one thread.
+		int[] reviews = totals.cardReviews;
+		int[] passed = totals.cardPassed;
+		long[] response = totals.cardResponse;
+		if (parts > 1) {
+			IntStream.range(0, parts).parallel().forEach(range -> {
+				int from = (int) ((long) cards * range / parts);
+				int to = (int) ((long) cards * (range + 1) / parts);
+				for (int part = 1; part < parts; part++) {
+					Totals t = counted[part];
+					for (int i = from; i < to; i++) {
+						reviews[i] += t.cardReviews[i];
+						passed[i] += t.cardPassed[i];
+						response[i] += t.cardResponse[i];
+					}
+				}
+			});
+		}
+		// The lowest accuracy first, among equal ones the card answered more often.
+		// Compared as fractions, so there are no rounding errors.
+		Comparator<Integer> harder = (x, y) -> {
+			int byAccuracy = Long.compare((long) passed[x] * reviews[y], (long) passed[y] * reviews[x]);
+			if (byAccuracy != 0) {
+				return byAccuracy;
+			}
+			return reviews[x] != reviews[y] ? Integer.compare(reviews[y], reviews[x]) : Integer.compare(x, y);
+		};
+		List<Integer> hardestCards = IntStream.range(0, cards).parallel()
+				.filter(i -> reviews[i] >= MIN_REVIEWS_FOR_HARDEST && passed[i] < reviews[i]).boxed().sorted(harder)
+				.limit(hardest).collect(Collectors.toCollection(ArrayList::new));
+		return new Statistics(flashcards, totals, reviews, passed, response, firstDay, hardestCards);
+	}
+
+	// The day a time belongs to, -1 if it's outside the days.
+	private static int dayOf(long[] starts, long time) {
+		int days = starts.length - 1;
+		if (time < starts[0] || time >= starts[days]) {
+			return -1;
+		}
+		// Off by at most one where the clocks get changed.
+		int day = (int) Math.min((time - starts[0]) / DAY, days - 1);
+		while (time < starts[day]) {
+			day--;
+		}
+		while (time >= starts[day + 1]) {
+			day++;
+		}
+		return day;
+	}
+
+	/*
+	 * Checks the header of a history file and returns the number of complete
+	 * records in it. An empty file is a new history.
+	 */
+	private static long checkHeader(FileChannel channel, File logFile) throws IOException {
+		long size = channel.size();
+		if (size == 0) {
+			return 0;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+			// Read until the header is complete.
+		}
+		if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != RECORD_SIZE) {
+			throw new IOException("Die Datei " + logFile + " enthlt keinen Lernverlauf.");
+		}
+		return (size - HEADER_SIZE) / RECORD_SIZE;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+}
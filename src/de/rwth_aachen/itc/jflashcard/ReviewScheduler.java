@@ -0,0 +1,499 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Decides which flashcard of a group is due next, using the SM-2 algorithm of
+ * spaced repetition: every answer moves a card further into the future the
+ * better it was known. The tasks of this class are:
+ * <ul>
+ * <li>Keep the review state of every card (due date, interval, repetitions and
+ * easiness factor) in the file &lt;group file&gt;.review,</li>
+ * <li>Serve the next due card from a priority heap, so finding it is
+ * O(log n) instead of a scan over the whole group,</li>
+ * <li>Update the state of a card after an answer by overwriting its record in
+ * place, without rewriting the group file or the other records.</li>
+ * </ul>
+ * Every card has a fixed-size record in the review file once it got answered
+ * for the first time. Cards which never got answered are new; they are served
+ * in the order of the group once no reviewed card is due. A record which only
+ * got written halfway before a crash fails its checksum and the card counts as
+ * new again. Records of cards which are no longer in the group get reused for
+ * other cards.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class ReviewScheduler {
+	/**
+	 * The worst answer: the card wasn't known at all.
+	 */
+	public static final int QUALITY_MIN = 0;
+	/**
+	 * The best answer: the card was known without thinking.
+	 */
+	public static final int QUALITY_MAX = 5;
+	/**
+	 * Answers below this count as not known, the card starts over.
+	 */
+	public static final int QUALITY_PASSED = 3;
+
+	private static final int MAGIC = 0x4A465231; // "JFR1"
+	private static final int HEADER_SIZE = 4;
+	// id, due, interval, repetitions, easiness, checksum
+	private static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 4 + 4;
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	// A card which wasn't known comes back in the same session.
+	private static final long RETRY_DELAY = 10L * 60 * 1000;
+	// The easiness factors are stored in thousandths.
+	private static final int INITIAL_EASINESS = 2500;
+	private static final int MIN_EASINESS = 1300;
+	private static final int MAX_INTERVAL = 100 * 365;
+
+	private final File reviewFile;
+	private FileChannel channel;
+	// Card ID -> entry. Entries are appended in the order of the group and never
+	// reused, so for new cards the entry number is also their place in the
+	// queue.
+	private final IdIndex entries;
+	private long[] ids;
+	private long[] due;
+	private int[] interval;
+	private int[] repetitions;
+	private int[] easiness;
+	// The record of the card in the review file, -1 for new cards.
+	private int[] slots;
+	// Where the entry is in its heap, -1 if the card got removed.
+	private int[] heapPositions;
+	private int entryCount;
+	private int recordCount;
+	private int[] freeSlots = new int[0];
+	private int freeSlotCount;
+	private final Heap reviews = new Heap(true);
+	private final Heap newCards = new Heap(false);
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+	private final CRC32 crc = new CRC32();
+
+	private ReviewScheduler(File groupFile, int expectedSize) {
+		reviewFile = getReviewFile(groupFile);
+		entries = new IdIndex(expectedSize);
+		int capacity = Math.max(expectedSize, 16);
+		ids = new long[capacity];
+		due = new long[capacity];
+		interval = new int[capacity];
+		repetitions = new int[capacity];
+		easiness = new int[capacity];
+		slots = new int[capacity];
+		heapPositions = new int[capacity];
+	}
+
+	/**
+	 * Returns the review file belonging to a group file.
+	 *
+	 * @param groupFile The group file.
+	 * @return The review file (which doesn't necessarily exist).
+	 */
+	public static File getReviewFile(File groupFile) {
+		return new File(groupFile.getPath() + ".review");
+	}
+
+	/**
+	 * Opens the review state of a group. For a {@link FlashcardList}, only the IDs
+	 * get read, no flashcards get created.
+	 *
+	 * @param groupFile  The group file.
+	 * @param flashcards The flashcards of the group in their initial order.
+	 * @return The scheduler.
+	 * @throws IOException If the review file can't be read or opened.
+	 */
+	public static ReviewScheduler open(File groupFile, List<Flashcard> flashcards) throws IOException {
+		ReviewScheduler scheduler = new ReviewScheduler(groupFile, flashcards.size());
+		if (flashcards instanceof FlashcardList) {
+			FlashcardList list = (FlashcardList) flashcards;
+			for (int i = 0; i < list.size(); i++) {
+				scheduler.addEntry(list.getId(i));
+			}
+		} else {
+			for (Flashcard f : flashcards) {
+				scheduler.addEntry(f.getId());
+			}
+		}
+		if (scheduler.reviewFile.isFile()) {
+			scheduler.readRecords();
+		}
+		scheduler.reviews.build();
+		scheduler.newCards.build();
+		scheduler.channel = FileChannel.open(scheduler.reviewFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (scheduler.channel.size() < HEADER_SIZE) {
+			writeFully(scheduler.channel, ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC), 0);
+		}
+		return scheduler;
+	}
+
+	/*
+	 * Assigns the records to the entries. Broken records and records of cards
+	 * which aren't in the group anymore become free slots.
+	 */
+	private void readRecords() throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(reviewFile), 1 << 16))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Die Datei " + reviewFile + " enthlt keinen Lernstand.");
+			}
+			byte[] bytes = record.array();
+			for (int slot = 0;; slot++) {
+				try {
+					in.readFully(bytes);
+				} catch (EOFException eofe) {
+					// A record cut off at the end gets overwritten by the next new one.
+					break;
+				}
+				recordCount++;
+				record.clear();
+				long id = record.getLong();
+				int e = id > 0 ? entries.get(id) : -1;
+				if (e < 0 || slots[e] >= 0 || checksum() != record.getInt(RECORD_SIZE - 4)) {
+					freeSlot(slot);
+					continue;
+				}
+				slots[e] = slot;
+				due[e] = record.getLong();
+				interval[e] = record.getInt();
+				repetitions[e] = record.getInt();
+				easiness[e] = record.getInt();
+			}
+		}
+	}
+
+	/**
+	 * Adds a new flashcard to the end of the queue of new cards.
+	 *
+	 * @param id The ID of the flashcard.
+	 */
+	public void add(long id) {
+		int e = addEntry(id);
+		newCards.insert(e);
+	}
+
+	/**
+	 * Removes a flashcard, e.g. because it got deleted. Its record stays in the
+	 * file until another card needs it, so the state is still there if the
+	 * deletion doesn't get saved.
+	 *
+	 * @param id The ID of the flashcard.
+	 */
+	public void remove(long id) {
+		int e = entries.remove(id);
+		if (e < 0) {
+			return;
+		}
+		heapOf(e).remove(e);
+		if (slots[e] >= 0) {
+			freeSlot(slots[e]);
+			slots[e] = -1;
+		}
+	}
+
+	/**
+	 * Returns the card to study next: the reviewed card which has been due the
+	 * longest, or the first new card if no reviewed card is due.
+	 *
+	 * @param now The current time in milliseconds since the epoch.
+	 * @return The ID of the card, 0 if no card is due.
+	 */
+	public long next(long now) {
+		int e = reviews.peek();
+		if (e >= 0 && due[e] <= now) {
+			return ids[e];
+		}
+		e = newCards.peek();
+		return e >= 0 ? ids[e] : 0;
+	}
+
+	/**
+	 * Returns when the next reviewed card gets due.
+	 *
+	 * @return The time in milliseconds since the epoch, {@link Long#MAX_VALUE} if
+	 *         no card got reviewed yet.
+	 */
+	public long getNextDue() {
+		int e = reviews.peek();
+		return e >= 0 ? due[e] : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Counts the cards which are due, including the new ones. Only the part of the
+	 * heap holding due cards gets visited.
+	 *
+	 * @param now The current time in milliseconds since the epoch.
+	 * @return The number of due cards.
+	 */
+	public int getDueCount(long now) {
+		return reviews.countUpTo(now) + newCards.size;
+	}
+
+	/**
+	 * Checks if a flashcard never got answered.
+	 *
+	 * @param id The ID of the flashcard.
+	 * @return True if the card is new.
+	 */
+	public boolean isNew(long id) {
+		int e = entries.get(id);
+		return e >= 0 && slots[e] < 0;
+	}
+
+	/**
+	 * Records an answer and schedules the card accordingly (SM-2). A card which
+	 * wasn't known comes back after a few minutes and starts over with an interval
+	 * of one day. The record of the card gets overwritten in place.
+	 *
+	 * @param id      The ID of the flashcard.
+	 * @param quality How well the card was known, from {@value #QUALITY_MIN} to
+	 *                {@value #QUALITY_MAX}.
+	 * @param now     The current time in milliseconds since the epoch.
+	 * @throws IOException If the record couldn't be written. The card is
+	 *                     rescheduled anyway.
+	 */
+	public void answer(long id, int quality, long now) throws IOException {
+		int e = entries.get(id);
+		if (e < 0) {
+			throw new IllegalArgumentException("Unknown ID: " + id);
+		}
+		if (quality < QUALITY_MIN || quality > QUALITY_MAX) {
+			throw new IllegalArgumentException("Invalid quality: " + quality);
+		}
+		heapOf(e).remove(e);
+		if (slots[e] < 0) {
+			easiness[e] = INITIAL_EASINESS;
+			slots[e] = allocateSlot();
+		}
+		int miss = QUALITY_MAX - quality;
+		easiness[e] = Math.max(MIN_EASINESS, easiness[e] + 100 - miss * (80 + miss * 20));
+		if (quality < QUALITY_PASSED) {
+			repetitions[e] = 0;
+			interval[e] = 1;
+			due[e] = now + RETRY_DELAY;
+		} else {
+			if (repetitions[e] == 0) {
+				interval[e] = 1;
+			} else if (repetitions[e] == 1) {
+				interval[e] = 6;
+			} else {
+				interval[e] = (int) Math.min(MAX_INTERVAL, Math.round(interval[e] * (easiness[e] / 1000.0)));
+			}
+			repetitions[e]++;
+			due[e] = now + interval[e] * DAY;
+		}
+		reviews.insert(e);
+		writeRecord(e);
+	}
+
+	/**
+	 * Closes the review file. A file without records gets deleted.
+	 *
+	 * @throws IOException If the file can't be closed.
+	 */
+	public void close() throws IOException {
+		channel.close();
+		if (recordCount == 0) {
+			Files.deleteIfExists(reviewFile.toPath());
+		}
+	}
+
+	private int addEntry(long id) {
+		if (entryCount == ids.length) {
+			int capacity = entryCount + (entryCount >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			due = Arrays.copyOf(due, capacity);
+			interval = Arrays.copyOf(interval, capacity);
+			repetitions = Arrays.copyOf(repetitions, capacity);
+			easiness = Arrays.copyOf(easiness, capacity);
+			slots = Arrays.copyOf(slots, capacity);
+			heapPositions = Arrays.copyOf(heapPositions, capacity);
+		}
+		int e = entryCount++;
+		ids[e] = id;
+		slots[e] = -1;
+		heapPositions[e] = -1;
+		entries.put(id, e);
+		return e;
+	}
+
+	private Heap heapOf(int e) {
+		return slots[e] >= 0 ? reviews : newCards;
+	}
+
+	private void freeSlot(int slot) {
+		if (freeSlotCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlotCount * 2));
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	private int allocateSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		return recordCount++;
+	}
+
+	private void writeRecord(int e) throws IOException {
+		record.clear();
+		record.putLong(ids[e]).putLong(due[e]).putInt(interval[e]).putInt(repetitions[e]).putInt(easiness[e]);
+		record.putInt(checksum());
+		record.flip();
+		writeFully(channel, record, HEADER_SIZE + (long) slots[e] * RECORD_SIZE);
+	}
+
+	// The checksum over everything but the last four bytes of the record.
+	private int checksum() {
+		crc.reset();
+		crc.update(record.array(), 0, RECORD_SIZE - 4);
+		return (int) crc.getValue();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/*
+	 * A binary min-heap of entries which knows where each entry is
+	 * (heapPositions), so any card can be removed or rescheduled in O(log n).
+	 * Reviewed cards are ordered by their due date, new cards by their entry
+	 * number.
+	 */
+	private class Heap {
+		private final boolean byDue;
+		private int[] heap = new int[16];
+		private int size;
+
+		Heap(boolean byDue) {
+			this.byDue = byDue;
+		}
+
+		// Fills the heap with all entries belonging to it in O(n).
+		void build() {
+			for (int e = 0; e < entryCount; e++) {
+				if (heapOf(e) == this) {
+					append(e);
+				}
+			}
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+		}
+
+		int peek() {
+			return size > 0 ? heap[0] : -1;
+		}
+
+		void insert(int e) {
+			append(e);
+			siftUp(size - 1);
+		}
+
+		void remove(int e) {
+			int i = heapPositions[e];
+			heapPositions[e] = -1;
+			size--;
+			if (i == size) {
+				return;
+			}
+			set(i, heap[size]);
+			siftDown(i);
+			siftUp(i);
+		}
+
+		// Counts the entries due up to a time. Below an entry that's not due yet
+		// there are only entries that aren't due either.
+		int countUpTo(long time) {
+			int count = 0;
+			int[] stack = new int[32];
+			int top = 0;
+			if (size > 0) {
+				stack[top++] = 0;
+			}
+			while (top > 0) {
+				int i = stack[--top];
+				if (i >= size || due[heap[i]] > time) {
+					continue;
+				}
+				count++;
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = 2 * i + 1;
+				stack[top++] = 2 * i + 2;
+			}
+			return count;
+		}
+
+		private void append(int e) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+			}
+			set(size++, e);
+		}
+
+		private boolean less(int a, int b) {
+			if (byDue && due[a] != due[b]) {
+				return due[a] < due[b];
+			}
+			return a < b;
+		}
+
+		private void set(int i, int e) {
+			heap[i] = e;
+			heapPositions[e] = i;
+		}
+
+		private void siftUp(int i) {
+			int e = heap[i];
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (!less(e, heap[parent])) {
+					break;
+				}
+				set(i, heap[parent]);
+				i = parent;
+			}
+			set(i, e);
+		}
+
+		private void siftDown(int i) {
+			int e = heap[i];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && less(heap[child + 1], heap[child])) {
+					child++;
+				}
+				if (!less(heap[child], e)) {
+					break;
+				}
+				set(i, heap[child]);
+				i = child;
+			}
+			set(i, e);
+		}
+	}
+}
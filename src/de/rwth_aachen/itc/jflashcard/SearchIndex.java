@@ -0,0 +1,295 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the texts of the flashcards of a group, used to find
+ * cards by the words on their sides. The tasks of this class are:
+ * <ul>
+ * <li>Split the texts into words and normalize them, so "rger", "rger" and
+ * "Aerger" are the same word,</li>
+ * <li>Map every word to the IDs of the cards containing it,</li>
+ * <li>Keep the index up to date when cards get added, edited or deleted,
+ * without rebuilding it,</li>
+ * <li>Answer queries in which every word may be the beginning of a word on
+ * the card, so the results can be shown while the user types.</li>
+ * </ul>
+ * The words are kept sorted in a {@link TreeMap}, so all words starting with
+ * a prefix are one range of the map.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class SearchIndex {
+	private final TreeMap<String, Postings> words = new TreeMap<>();
+
+	/**
+	 * Creates an index over all flashcards of a list.
+	 *
+	 * @param flashcards The flashcards.
+	 * @return The index.
+	 */
+	public static SearchIndex of(List<Flashcard> flashcards) {
+		SearchIndex index = new SearchIndex();
+		for (Flashcard f : flashcards) {
+			index.add(f);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds a flashcard to the index.
+	 *
+	 * @param f The flashcard.
+	 */
+	public void add(Flashcard f) {
+		for (String word : wordsOf(f)) {
+			words.computeIfAbsent(word, w -> new Postings()).add(f.getId());
+		}
+	}
+
+	/**
+	 * Removes a flashcard from the index.
+	 *
+	 * @param f The flashcard with the texts it had when it got added.
+	 */
+	public void remove(Flashcard f) {
+		for (String word : wordsOf(f)) {
+			Postings postings = words.get(word);
+			if (postings != null && postings.remove(f.getId()) && postings.size == 0) {
+				words.remove(word);
+			}
+		}
+	}
+
+	/**
+	 * Removes several flashcards from the index at once. The IDs of every word get
+	 * filtered once, instead of once per flashcard containing the word.
+	 *
+	 * @param flashcards The flashcards with the texts they had when they got
+	 *                   added.
+	 */
+	public void removeAll(Collection<Flashcard> flashcards) {
+		long[] ids = new long[flashcards.size()];
+		Set<String> removedWords = new HashSet<>();
+		int i = 0;
+		for (Flashcard f : flashcards) {
+			ids[i++] = f.getId();
+			removedWords.addAll(wordsOf(f));
+		}
+		Arrays.sort(ids);
+		for (String word : removedWords) {
+			Postings postings = words.get(word);
+			if (postings != null && postings.removeAll(ids) && postings.size == 0) {
+				words.remove(word);
+			}
+		}
+	}
+
+	/**
+	 * Updates the index after a flashcard got edited.
+	 *
+	 * @param before The flashcard with its old texts.
+	 * @param after  The flashcard with its new texts.
+	 */
+	public void update(Flashcard before, Flashcard after) {
+		remove(before);
+		add(after);
+	}
+
+	/**
+	 * Returns the number of distinct words in the index.
+	 *
+	 * @return The number of words.
+	 */
+	public int getWordCount() {
+		return words.size();
+	}
+
+	/**
+	 * Finds all flashcards containing every word of a query, each word of the
+	 * query matching the beginning of a word on the card.
+	 *
+	 * @param query     The query as typed by the user.
+	 * @param positions The positions of the flashcards in their list.
+	 * @return The positions of the matching flashcards, empty if the query doesn't
+	 *         contain any words.
+	 */
+	public BitSet search(String query, IdIndex positions) {
+		BitSet result = new BitSet();
+		Set<String> terms = tokenize(query);
+		if (terms.isEmpty()) {
+			return result;
+		}
+		// Start with the term matching the fewest cards, so we can stop early.
+		List<Collection<Postings>> ranges = new ArrayList<>();
+		Map<Collection<Postings>, Long> counts = new IdentityHashMap<>();
+		for (String term : terms) {
+			Collection<Postings> range = prefixRange(term).values();
+			ranges.add(range);
+			counts.put(range, count(range));
+		}
+		ranges.sort(Comparator.comparing(counts::get));
+		for (int r = 0; r < ranges.size(); r++) {
+			// A card is in several postings if it contains several matching words, the
+			// bit set doesn't care.
+			BitSet matches = r == 0 ? result : new BitSet();
+			for (Postings postings : ranges.get(r)) {
+				for (int i = 0; i < postings.size; i++) {
+					int position = positions.get(postings.ids[i]);
+					if (position >= 0) {
+						matches.set(position);
+					}
+				}
+			}
+			if (r > 0) {
+				result.and(matches);
+			}
+			if (result.isEmpty()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static long count(Collection<Postings> range) {
+		long res = 0;
+		for (Postings postings : range) {
+			res += postings.size;
+		}
+		return res;
+	}
+
+	private Map<String, Postings> prefixRange(String prefix) {
+		// Every word starting with the prefix sorts before prefix + the last char.
+		return words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+	}
+
+	private static Set<String> wordsOf(Flashcard f) {
+		Set<String> res = tokenize(f.getSide1());
+		res.addAll(tokenize(f.getSide2()));
+		return res;
+	}
+
+	/**
+	 * Splits a text into normalized words. Everything that's not a letter or a
+	 * digit separates words.
+	 *
+	 * @param text The text.
+	 * @return The distinct normalized words in the order they appear.
+	 */
+	public static Set<String> tokenize(String text) {
+		Set<String> res = new LinkedHashSet<>();
+		String normalized = normalize(text);
+		int start = -1;
+		for (int i = 0; i <= normalized.length(); i++) {
+			boolean partOfWord = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+			if (partOfWord && start < 0) {
+				start = i;
+			} else if (!partOfWord && start >= 0) {
+				res.add(normalized.substring(start, i));
+				start = -1;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Normalizes a text for the search: lower case, umlauts written as two
+	 * letters (&auml; becomes ae, &szlig; becomes ss) and other accents removed.
+	 *
+	 * @param text The text.
+	 * @return The normalized text.
+	 */
+	public static String normalize(String text) {
+		String lower = text.toLowerCase(Locale.GERMAN);
+		StringBuilder sb = new StringBuilder(lower.length() + 8);
+		boolean ascii = true;
+		for (int i = 0; i < lower.length(); i++) {
+			char c = lower.charAt(i);
+			switch (c) {
+			case '':
+				sb.append("ae");
+				break;
+			case '':
+				sb.append("oe");
+				break;
+			case '':
+				sb.append("ue");
+				break;
+			case '':
+				sb.append("ss");
+				break;
+			default:
+				sb.append(c);
+				ascii &= c < 0x80;
+			}
+		}
+		if (ascii) {
+			return sb.toString();
+		}
+		// Split the remaining accented letters (&eacute;, &ccedil;, ...) into letter
+		// and accent, then drop the accents.
+		String decomposed = Normalizer.normalize(sb, Normalizer.Form.NFD);
+		sb.setLength(0);
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (Character.getType(c) != Character.NON_SPACING_MARK) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * The IDs of the cards containing a word. Most words are on few cards, so an
+	 * unsorted array is small and fast enough.
+	 */
+	private static class Postings {
+		private long[] ids = new long[2];
+		private int size;
+
+		void add(long id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		boolean remove(long id) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					ids[i] = ids[--size];
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean removeAll(long[] sortedIds) {
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				if (Arrays.binarySearch(sortedIds, ids[i]) < 0) {
+					ids[kept++] = ids[i];
+				}
+			}
+			boolean changed = kept < size;
+			size = kept;
+			return changed;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+import java.util.Locale;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Shows the statistics computed from the {@link ReviewLog} of a group: the
+ * totals, the answers of the last days and the hardest cards. Everything gets
+ * computed before the dialog opens, the dialog only displays it.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class StatisticsDialog extends Dialog {
+	private final ReviewLog.Statistics statistics;
+
+	/**
+	 * Creates the dialog with the default styles.
+	 *
+	 * @param shell      The parent window the dialog will appear in.
+	 * @param statistics The statistics to show.
+	 */
+	public StatisticsDialog(Shell shell, ReviewLog.Statistics statistics) {
+		super(shell, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL | SWT.RESIZE);
+		this.statistics = statistics;
+		setText("Lernstatistik");
+	}
+
+	/**
+	 * Creates the dialog contents and displays them on the screen.
+	 */
+	public void open() {
+		Shell shell = new Shell(getParent(), getStyle());
+		shell.setText(getText());
+		createContents(shell);
+		shell.pack();
+		shell.open();
+		Display display = getParent().getDisplay();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch()) {
+				display.sleep();
+			}
+		}
+	}
+
+	private void createContents(final Shell shell) {
+		shell.setLayout(new GridLayout(1, false));
+		Label summary = new Label(shell, SWT.WRAP);
+		summary.setText(describeTotals());
+		GridData data = new GridData(GridData.FILL_HORIZONTAL);
+		data.widthHint = 600;
+		summary.setLayoutData(data);
+		Label daysLabel = new Label(shell, SWT.NONE);
+		daysLabel.setText("&Antworten der letzten " + statistics.getDays() + " Tage:");
+		Table days = createTable(shell, "Tag", "Antworten", "Gewusst");
+		DateTimeFormatter format = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.GERMAN);
+		// Today first, that's what people look for.
+		for (int d = statistics.getDays() - 1; d >= 0; d--) {
+			TableItem item = new TableItem(days, SWT.NONE);
+			int reviews = statistics.getDayReviews(d);
+			item.setText(new String[] { format.format(statistics.getFirstDay().plusDays(d)), Integer.toString(reviews),
+					reviews > 0 ? percent(statistics.getDayPassed(d), reviews) : "" });
+		}
+		Label hardestLabel = new Label(shell, SWT.NONE);
+		hardestLabel.setText("&Schwierigste Karteikarten:");
+		Table hardest = createTable(shell, "Seite 1", "Seite 2", "Antworten", "Gewusst", "Antwortzeit");
+		List<Integer> hardestCards = statistics.getHardest();
+		for (int index : hardestCards) {
+			Flashcard f = statistics.getFlashcard(index);
+			TableItem item = new TableItem(hardest, SWT.NONE);
+			item.setText(new String[] { oneLine(f.getSide1()), oneLine(f.getSide2()),
+					Integer.toString(statistics.getReviews(index)),
+					percent(statistics.getPassed(index), statistics.getReviews(index)),
+					seconds(statistics.getAverageResponseMillis(index)) });
+		}
+		if (hardestCards.isEmpty()) {
+			new TableItem(hardest, SWT.NONE).setText("Noch keine Karteikarte mit " + ReviewLog.MIN_REVIEWS_FOR_HARDEST
+					+ " oder mehr Antworten, die nicht immer gewusst wurde.");
+		}
+		Button close = new Button(shell, SWT.PUSH);
+		close.setText("&Schlieen");
+		close.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+		close.addListener(SWT.Selection, event -> shell.close());
+		shell.setDefaultButton(close);
+		days.setFocus();
+	}
+
+	private static Table createTable(Shell shell, String... columns) {
+		Table table = new Table(shell, SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE | SWT.V_SCROLL);
+		table.setHeaderVisible(true);
+		for (String name : columns) {
+			TableColumn column = new TableColumn(table, name.startsWith("Seite") || name.equals("Tag") ? SWT.LEFT
+					: SWT.RIGHT);
+			column.setText(name);
+			column.setWidth(name.startsWith("Seite") ? 200 : 110);
+		}
+		GridData data = new GridData(GridData.FILL_BOTH);
+		data.heightHint = 180;
+		table.setLayoutData(data);
+		return table;
+	}
+
+	private String describeTotals() {
+		if (statistics.getReviews() == 0) {
+			return "Fr diese Gruppe wurden noch keine Antworten im Lernmodus aufgezeichnet.";
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(statistics.getReviews()).append(" Antworten zu ").append(statistics.getReviewedCards())
+				.append(" Karteikarten, davon ").append(percent(statistics.getPassed(), statistics.getReviews()))
+				.append(" gewusst. Durchschnittliche Antwortzeit: ")
+				.append(seconds(statistics.getAverageResponseMillis())).append('.');
+		if (statistics.getInvalid() > 0) {
+			sb.append(' ').append(statistics.getInvalid()).append(" beschdigte Eintrge wurden bersprungen.");
+		}
+		return sb.toString();
+	}
+
+	private static String percent(long part, long whole) {
+		return Math.round(100.0 * part / whole) + " %";
+	}
+
+	private static String seconds(long millis) {
+		return String.format(Locale.GERMAN, "%.1f s", millis / 1000.0);
+	}
+
+	private static String oneLine(String text) {
+		return text.replaceAll("\\s+", " ").trim();
+	}
+}
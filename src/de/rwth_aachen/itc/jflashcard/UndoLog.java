@@ -0,0 +1,433 @@
+package de.rwth_aachen.itc.jflashcard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The undo and redo stacks of the changes made to a group. Every change is a
+ * small command record describing only the change itself, never a copy of the
+ * group, so a step costs the same few bytes in a group of ten cards and in one
+ * of a million. The tasks of this class are:
+ * <ul>
+ * <li>Hold add, edit, delete, shuffle and unshuffle commands on the undo
+ * stack, and the undone ones on the redo stack until a new change comes
+ * along,</li>
+ * <li>Group several commands into one step, e.g. all deletions of the
+ * duplicates dialog,</li>
+ * <li>Estimate the memory of every command and drop the oldest steps once the
+ * budget is exceeded.</li>
+ * </ul>
+ * The commands refer to the cards by their index in the initial order. That
+ * index is valid whenever the command is on top of its stack, as all later
+ * commands have been undone or redone by then. Applying the commands is up to
+ * the caller, which knows the indexes, the journal and the scheduler.
+ *
+ * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
+ * @version 1.1.0, 2026-10-17
+ * @since 1.1
+ */
+public class UndoLog {
+	/**
+	 * System property holding the memory in bytes the undo and redo stacks may use
+	 * together.
+	 */
+	public static final String BUDGET_PROPERTY = "jflashcard.undo.budget";
+
+	// The object headers, fields and references of a command, roughly.
+	private static final int COMMAND_OVERHEAD = 64;
+	// A flashcard and its two strings without their characters.
+	private static final int FLASHCARD_OVERHEAD = 104;
+
+	private final long budget;
+	private final Deque<Command> undo = new ArrayDeque<>();
+	private final Deque<Command> redo = new ArrayDeque<>();
+	private long bytes;
+	// The next command starts a new step unless a group is open.
+	private boolean grouping;
+	private boolean groupStarted;
+
+	/**
+	 * The kinds of changes.
+	 */
+	public enum Kind {
+		/**
+		 * A card got appended to the group.
+		 */
+		ADD,
+		/**
+		 * The texts of a card changed.
+		 */
+		EDIT,
+		/**
+		 * A card got removed from the group.
+		 */
+		DELETE,
+		/**
+		 * The deck got shuffled.
+		 */
+		SHUFFLE,
+		/**
+		 * The deck went back to its initial order.
+		 */
+		UNSHUFFLE
+	}
+
+	/**
+	 * One change of the group.
+	 */
+	public static class Command {
+		private final Kind kind;
+		private final int index;
+		private final int shuffledPosition;
+		private final Flashcard flashcard;
+		private final Flashcard before;
+		private final long seed;
+		private final boolean wasShuffled;
+		// Undone together with the command below it on the stack.
+		private boolean continued;
+
+		private Command(Kind kind, int index, int shuffledPosition, Flashcard flashcard, Flashcard before, long seed,
+				boolean wasShuffled) {
+			this.kind = kind;
+			this.index = index;
+			this.shuffledPosition = shuffledPosition;
+			this.flashcard = flashcard;
+			this.before = before;
+			this.seed = seed;
+			this.wasShuffled = wasShuffled;
+		}
+
+		/**
+		 * Returns the kind of the change.
+		 *
+		 * @return The kind.
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the index of the card in the initial order.
+		 *
+		 * @return The index, -1 for shuffle and unshuffle.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the position a deleted card had in the shuffled order.
+		 *
+		 * @return The position or -1 if the deck was never shuffled.
+		 */
+		public int getShuffledPosition() {
+			return shuffledPosition;
+		}
+
+		/**
+		 * Returns the card which got added or deleted, or a copy of an edited card
+		 * with its new texts.
+		 *
+		 * @return The card, null for shuffle and unshuffle.
+		 */
+		public Flashcard getFlashcard() {
+			return flashcard;
+		}
+
+		/**
+		 * Returns a copy of an edited card with its old texts.
+		 *
+		 * @return The card before the edit, null for all other changes.
+		 */
+		public Flashcard getBefore() {
+			return before;
+		}
+
+		/**
+		 * Returns the seed the deck got shuffled with.
+		 *
+		 * @return The seed.
+		 */
+		public long getSeed() {
+			return seed;
+		}
+
+		/**
+		 * Checks if the deck was shuffled before it got shuffled or unshuffled.
+		 *
+		 * @return True if the deck was shuffled.
+		 */
+		public boolean wasShuffled() {
+			return wasShuffled;
+		}
+
+		private long estimateBytes() {
+			return COMMAND_OVERHEAD + estimateBytes(flashcard) + estimateBytes(before);
+		}
+
+		private static long estimateBytes(Flashcard f) {
+			if (f == null) {
+				return 0;
+			}
+			// Latin-1 strings take a byte per char, others two.
+			return FLASHCARD_OVERHEAD + 2L * (f.getSide1().length() + f.getSide2().length());
+		}
+	}
+
+	/**
+	 * Creates empty stacks with the budget from the system property
+	 * {@value #BUDGET_PROPERTY}, 4 MB by default.
+	 */
+	public UndoLog() {
+		this(Long.getLong(BUDGET_PROPERTY, 4 << 20));
+	}
+
+	/**
+	 * Creates empty stacks.
+	 *
+	 * @param budget The memory in bytes the stacks may use together. The last
+	 *               step is always kept, no matter how big it is.
+	 */
+	public UndoLog(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Records a card appended to the group.
+	 *
+	 * @param index The index of the card, the last one.
+	 * @param f     The card.
+	 */
+	public void added(int index, Flashcard f) {
+		push(new Command(Kind.ADD, index, -1, f, null, 0, false));
+	}
+
+	/**
+	 * Records new texts for a card.
+	 *
+	 * @param index  The index of the card.
+	 * @param before A copy of the card with its old texts.
+	 * @param after  A copy of the card with its new texts.
+	 */
+	public void edited(int index, Flashcard before, Flashcard after) {
+		push(new Command(Kind.EDIT, index, -1, after, before, 0, false));
+	}
+
+	/**
+	 * Records a card removed from the group.
+	 *
+	 * @param index            The index the card had.
+	 * @param shuffledPosition The position the card had in the shuffled order, see
+	 *                         {@link DeckOrder#shuffledPositionOf(int)}.
+	 * @param f                The card.
+	 */
+	public void deleted(int index, int shuffledPosition, Flashcard f) {
+		push(new Command(Kind.DELETE, index, shuffledPosition, f, null, 0, false));
+	}
+
+	/**
+	 * Records shuffling the deck with {@link DeckOrder#shuffle(long)}.
+	 *
+	 * @param seed        The seed.
+	 * @param wasShuffled Whether the deck was shuffled before.
+	 */
+	public void shuffled(long seed, boolean wasShuffled) {
+		push(new Command(Kind.SHUFFLE, -1, -1, null, null, seed, wasShuffled));
+	}
+
+	/**
+	 * Records switching back to the initial order.
+	 *
+	 * @param wasShuffled Whether the deck was shuffled before.
+	 */
+	public void unshuffled(boolean wasShuffled) {
+		push(new Command(Kind.UNSHUFFLE, -1, -1, null, null, 0, wasShuffled));
+	}
+
+	/**
+	 * Starts a step of several commands. All commands until {@link #endStep()}
+	 * get undone and redone together.
+	 */
+	public void beginStep() {
+		grouping = true;
+		groupStarted = false;
+	}
+
+	/**
+	 * Ends the step started by {@link #beginStep()}.
+	 */
+	public void endStep() {
+		grouping = false;
+	}
+
+	/**
+	 * Checks if there is a step to undo.
+	 *
+	 * @return True if the undo stack isn't empty.
+	 */
+	public boolean canUndo() {
+		return !undo.isEmpty();
+	}
+
+	/**
+	 * Checks if there is a step to redo.
+	 *
+	 * @return True if the redo stack isn't empty.
+	 */
+	public boolean canRedo() {
+		return !redo.isEmpty();
+	}
+
+	/**
+	 * Describes the step which {@link #undo()} would undo, e.g. for a tool tip.
+	 *
+	 * @return The description or null if there is nothing to undo.
+	 */
+	public String describeUndo() {
+		return describe(undo, true);
+	}
+
+	/**
+	 * Describes the step which {@link #redo()} would redo.
+	 *
+	 * @return The description or null if there is nothing to redo.
+	 */
+	public String describeRedo() {
+		return describe(redo, false);
+	}
+
+	/**
+	 * Moves the last step to the redo stack.
+	 *
+	 * @return The commands of the step in the order they need to be undone, the
+	 *         newest first. Empty if there is nothing to undo.
+	 */
+	public List<Command> undo() {
+		return move(undo, redo);
+	}
+
+	/**
+	 * Moves the last undone step back to the undo stack.
+	 *
+	 * @return The commands of the step in the order they need to be redone, the
+	 *         oldest first. Empty if there is nothing to redo.
+	 */
+	public List<Command> redo() {
+		return move(redo, undo);
+	}
+
+	/**
+	 * Forgets all steps, e.g. because another group got opened.
+	 */
+	public void clear() {
+		undo.clear();
+		redo.clear();
+		bytes = 0;
+		grouping = false;
+	}
+
+	/**
+	 * Returns the estimated memory used by the stacks.
+	 *
+	 * @return The number of bytes.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	private void push(Command command) {
+		// A new change makes the undone steps meaningless.
+		for (Command c : redo) {
+			bytes -= c.estimateBytes();
+		}
+		redo.clear();
+		if (grouping) {
+			command.continued = groupStarted;
+			groupStarted = true;
+		}
+		undo.push(command);
+		bytes += command.estimateBytes();
+		// Drop the oldest steps, but never the one just pushed.
+		while (bytes > budget && undo.peekLast() != null && !isInFirstStep(undo.peekLast())) {
+			Command oldest = undo.removeLast();
+			bytes -= oldest.estimateBytes();
+			// A step gets dropped completely.
+			while (undo.peekLast() != null && undo.peekLast().continued) {
+				bytes -= undo.removeLast().estimateBytes();
+			}
+		}
+	}
+
+	// Whether the command belongs to the step on top of the undo stack.
+	private boolean isInFirstStep(Command command) {
+		for (Command c : undo) {
+			if (c == command) {
+				return true;
+			}
+			if (!c.continued) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * The undo stack holds the last command of a step on top, marked as continued
+	 * unless it's the only one. The redo stack holds the first one on top, so
+	 * moving a step reverses its commands, just like the order they get applied
+	 * in.
+	 */
+	private List<Command> move(Deque<Command> from, Deque<Command> to) {
+		List<Command> step = new ArrayList<>();
+		boolean toRedo = from == undo;
+		while (!from.isEmpty()) {
+			Command c = from.pop();
+			step.add(c);
+			boolean last = toRedo ? !c.continued : from.isEmpty() || !from.peek().continued;
+			if (last) {
+				break;
+			}
+		}
+		for (Command c : step) {
+			to.push(c);
+		}
+		return step;
+	}
+
+	private static String describe(Deque<Command> stack, boolean undoStack) {
+		Command top = stack.peek();
+		if (top == null) {
+			return null;
+		}
+		int count = 0;
+		for (Command c : stack) {
+			count++;
+			if (undoStack ? !c.continued : count > 1 && !c.continued) {
+				if (!undoStack) {
+					count--;
+				}
+				break;
+			}
+		}
+		switch (top.kind) {
+		case ADD:
+			return "Karteikarte \"" + shorten(top.flashcard.getSide1()) + "\" hinzufgen";
+		case EDIT:
+			return "Karteikarte \"" + shorten(top.before.getSide1()) + "\" bearbeiten";
+		case DELETE:
+			return count > 1 ? count + " Karteikarten lschen"
+					: "Karteikarte \"" + shorten(top.flashcard.getSide1()) + "\" lschen";
+		case SHUFFLE:
+			return "Karteikarten mischen";
+		default:
+			return "Ursprngliche Ordnung wiederherstellen";
+		}
+	}
+
+	private static String shorten(String text) {
+		text = text.replaceAll("\\s+", " ").trim();
+		return text.length() > 30 ? text.substring(0, 27) + "..." : text;
+	}
+}
@@ -1,26 +1,40 @@
 package de.rwth_aachen.itc.jflashcard;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.eclipse.swt.SWT;
-import org.eclipse.swt.widgets.MessageBox;
-import org.eclipse.swt.widgets.Shell;
+import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
@@ -30,7 +44,9 @@ import org.xml.sax.SAXException;
  * <ul>
  * <li>Create an XML file to store a flashcard group,</li>
  * <li>Parse a flashcard list into XML, then save the list,</li>
- * <li>Convert XML to a flashcard list.</li>
+ * <li>Convert XML to a flashcard list,</li>
+ * <li>Compress and decompress gzip groups and zip containers of several groups
+ * on the fly, without temporary copies.</li>
  * </ul>
  * 
  * @author Tim B&ouml;ttcher, &lt;tim.boettcher2@rwth-aachen.de&gt;
@@ -38,102 +54,450 @@ import org.xml.sax.SAXException;
  * @since 1.0
  */
 public class XMLHandler {
+	/**
+	 * System property which makes {@link #readFlashcardList(File, Progress)} use
+	 * the DOM parser instead of the streaming one.
+	 */
+	public static final String DOM_PROPERTY = "jflashcard.xml.dom";
+
+	private static final int BUFFER_SIZE = 1 << 16;
 
 	/**
-	 * Parses a specified flashcard group file into a list of flashcards. The list
-	 * of flashcards returned by this method can later get used in the UI.
+	 * Writes a list of flashcards to the file of a group. The cards get streamed
+	 * into a temporary file which replaces the group file only after it has been
+	 * written completely, so a crash never leaves a truncated group behind.
 	 * 
 	 * @param flashcardList The list of flashcards in the group.
 	 * @param groupName     The name of the flashcard group and thus of the XML
 	 *                      file.
 	 * @param path          The path to the XML file.
-	 * @return A list of flashcard objects if the execution was successful, an empty
-	 *         list if no objects were detected and null if an exception got thrown.
+	 * @return "success" if the list got saved, otherwise the error message.
 	 */
 	public static String writeFlashcardList(List<Flashcard> flashcardList, String groupName, String path) {
-		// Our setup for the XML document.
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		DocumentBuilder db;
 		try {
-			db = dbf.newDocumentBuilder();
-			Document doc = db.newDocument();
-			// Now the root element of the XML file.
-			Element root = doc.createElement("flashcards");
-			// Now let's go through all flashcards and append their values.
-			for (Flashcard f : flashcardList) {
-				// Element which holds the values of the sides.
-				Element el = doc.createElement("flashcard");
-				// Now the sides themselves...
-				Element subEl1 = doc.createElement("side1");
-				Element subEl2 = doc.createElement("side2");
-				// The String values of the sides should be left alone by XML,
-				// so we insert them as text nodes, not attributes.
-				Node data1 = doc.createCDATASection(f.getSide1());
-				Node data2 = doc.createCDATASection(f.getSide2());
-				// Now we need to add everything to the appropriate elements.
-				subEl1.appendChild(data1);
-				subEl2.appendChild(data2);
-				el.appendChild(subEl1);
-				el.appendChild(subEl2);
-				root.appendChild(el);
-			}
-			doc.appendChild(root);
-			// We have the XML now, but we still need to write it to a file...
-			TransformerFactory tf = TransformerFactory.newInstance();
-			Transformer transformer = tf.newTransformer();
-			// For better human-readability of the XML file.
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-			transformer.setOutputProperty(OutputKeys.ENCODING, "utf-8");
-			DOMSource source = new DOMSource(doc);
-			StreamResult sr = new StreamResult(new File(path + File.separator + groupName + ".xml"));
-			transformer.transform(source, sr);
+			writeFlashcardList(flashcardList, new File(path + File.separator + groupName + ".xml"));
 			return "success";
-		} catch (TransformerException te) {
-			return te.getLocalizedMessage();
-		} catch (ParserConfigurationException pce) {
-			return pce.getLocalizedMessage();
+		} catch (IOException ioe) {
+			return ioe.getLocalizedMessage();
 		}
 	}
 
-	public static List<Flashcard> readFlashcardList(String groupName, String path, Shell shell) {
+	/**
+	 * Writes flashcards to a group file through {@link AtomicFile}. The output uses
+	 * the same format as always: a flashcards root element with one flashcard
+	 * element per card, holding the sides as CDATA sections. The ID of each card
+	 * is stored in the id attribute of its flashcard element. Files ending with
+	 * {@value GroupIO#GZIP_EXTENSION} get compressed while they are written.
+	 * 
+	 * @param flashcards The flashcards to write, in the order they should be saved.
+	 * @param file       The group file.
+	 * @throws IOException If the file couldn't be written. The old file is
+	 *                     unchanged in that case.
+	 */
+	public static void writeFlashcardList(Iterable<Flashcard> flashcards, File file) throws IOException {
+		writeFlashcardList(flashcards, file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #writeFlashcardList(Iterable, File)}, reporting every written
+	 * card to a {@link Progress}.
+	 * 
+	 * @param flashcards The flashcards to write, in the order they should be saved.
+	 * @param file       The group file.
+	 * @param progress   Counts the written cards and may cancel the operation.
+	 * @throws IOException If the file couldn't be written or the operation got
+	 *                     cancelled. The old file is unchanged in that case.
+	 */
+	public static void writeFlashcardList(Iterable<Flashcard> flashcards, File file, Progress progress)
+			throws IOException {
+		AtomicFile.write(file, out -> {
+			if (GroupIO.isCompressed(file)) {
+				GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+				// The writer produces tiny chunks, which the deflater should get in blocks.
+				OutputStream buffered = new BufferedOutputStream(gzip, BUFFER_SIZE);
+				writeFlashcards(flashcards, buffered, progress);
+				buffered.flush();
+				// Finish, not close, as AtomicFile still has to force the file to the disk.
+				gzip.finish();
+			} else {
+				writeFlashcards(flashcards, out, progress);
+			}
+		});
+	}
+
+	/**
+	 * Streams flashcards as a group document to an output stream. The stream
+	 * doesn't get closed.
+	 * 
+	 * @param flashcards The flashcards to write.
+	 * @param out        The stream receiving the UTF-8 encoded document.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeFlashcards(Iterable<Flashcard> flashcards, OutputStream out) throws IOException {
+		writeFlashcards(flashcards, out, new Progress());
+	}
+
+	/**
+	 * Same as {@link #writeFlashcards(Iterable, OutputStream)}, reporting every
+	 * written card to a {@link Progress}.
+	 * 
+	 * @param flashcards The flashcards to write.
+	 * @param out        The stream receiving the UTF-8 encoded document.
+	 * @param progress   Counts the written cards and may cancel the operation.
+	 * @throws IOException If writing fails or the operation got cancelled.
+	 */
+	public static void writeFlashcards(Iterable<Flashcard> flashcards, OutputStream out, Progress progress)
+			throws IOException {
+		progress.begin(flashcards instanceof Collection ? ((Collection<?>) flashcards).size() : 0);
+		try {
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement("flashcards");
+			for (Flashcard f : flashcards) {
+				// We do the indentation ourselves, the reader strips it again.
+				writer.writeCharacters("\n\t");
+				writer.writeStartElement("flashcard");
+				writer.writeAttribute("id", Long.toString(f.getId()));
+				writer.writeCharacters("\n\t\t");
+				writeSide(writer, "side1", f.getSide1());
+				writer.writeCharacters("\n\t\t");
+				writeSide(writer, "side2", f.getSide2());
+				writer.writeCharacters("\n\t");
+				writer.writeEndElement();
+				progress.worked(1);
+			}
+			writer.writeCharacters("\n");
+			writer.writeEndElement();
+			writer.writeCharacters("\n");
+			writer.writeEndDocument();
+			writer.flush();
+			writer.close();
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse.getLocalizedMessage(), xse);
+		}
+	}
+
+	private static void writeSide(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+		writer.writeStartElement(name);
+		// A CDATA section ends at the first "]]>", so that sequence has to be split
+		// over two sections. The reader joins them again.
+		int start = 0;
+		int end = text.indexOf("]]>");
+		while (end >= 0) {
+			writer.writeCData(text.substring(start, end + 2));
+			start = end + 2;
+			end = text.indexOf("]]>", start);
+		}
+		writer.writeCData(text.substring(start));
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Parses a specified flashcard group file into a list of flashcards. The list
+	 * of flashcards returned by this method can later get used in the UI. By
+	 * default, the file gets read by a streaming StAX parser, so the document never
+	 * has to be held in memory as a whole. Setting the system property
+	 * {@value #DOM_PROPERTY} to true switches back to the old DOM parser, which is
+	 * also used if no StAX implementation is available.
+	 * 
+	 * This class doesn't display anything, so it can be used without a display
+	 * (see {@link BatchTool}). Showing the error is up to the caller.
+	 * 
+	 * @param file The group file.
+	 * @return The flashcards in the order they appear in the file (an empty list
+	 *         for an empty file).
+	 * @throws IOException        If the file can't be read.
+	 * @throws XMLStreamException If the file isn't well-formed XML.
+	 */
+	public static List<Flashcard> readFlashcardList(File file) throws IOException, XMLStreamException {
+		return readFlashcardList(file, new Progress());
+	}
+
+	/**
+	 * Same as {@link #readFlashcardList(File)}, reporting the bytes read from the
+	 * file to a {@link Progress}. The cards are kept in a {@link FlashcardStore}.
+	 * 
+	 * @param file     The group file.
+	 * @param progress Counts the bytes read and may cancel the operation.
+	 * @return The flashcards in the order they appear in the file.
+	 * @throws IOException        If the file can't be read or the operation got
+	 *                            cancelled.
+	 * @throws XMLStreamException If the file isn't well-formed XML.
+	 */
+	public static List<Flashcard> readFlashcardList(File file, Progress progress)
+			throws IOException, XMLStreamException {
+		// Zip containers hold several documents, only the streaming parser reads them.
+		if (Boolean.getBoolean(DOM_PROPERTY) && !GroupIO.isContainer(file)) {
+			return readFlashcardListDOM(file);
+		}
+		FlashcardStore flashcards = new FlashcardStore();
+		try {
+			streamFlashcardList(file, flashcards::add, progress);
+		} catch (FactoryConfigurationError fce) {
+			// No StAX implementation available, so the DOM parser has to do.
+			return readFlashcardListDOM(file);
+		}
+		flashcards.trimToSize();
+		return flashcards;
+	}
+
+	/**
+	 * Streams the flashcards of a group file to a consumer, one card at a time. The
+	 * cards are created in a single pass over the file and handed over as soon as
+	 * their closing tag is reached, so the memory used by the parser stays flat no
+	 * matter how big the group is. Compressed groups get decompressed on the way,
+	 * zip containers deliver the cards of all their groups one after another.
+	 * 
+	 * @param file     The group file.
+	 * @param consumer Receives every flashcard in file order.
+	 * @throws IOException        If the file can't be read.
+	 * @throws XMLStreamException If the file isn't well-formed XML.
+	 */
+	public static void streamFlashcardList(File file, Consumer<Flashcard> consumer)
+			throws IOException, XMLStreamException {
+		streamFlashcardList(file, consumer, new Progress());
+	}
+
+	/**
+	 * Same as {@link #streamFlashcardList(File, Consumer)}, reporting the bytes
+	 * read from the file to a {@link Progress}.
+	 * 
+	 * @param file     The group file.
+	 * @param consumer Receives every flashcard in file order.
+	 * @param progress Counts the bytes read and may cancel the operation.
+	 * @throws IOException        If the file can't be read or the operation got
+	 *                            cancelled.
+	 * @throws XMLStreamException If the file isn't well-formed XML.
+	 */
+	public static void streamFlashcardList(File file, Consumer<Flashcard> consumer, Progress progress)
+			throws IOException, XMLStreamException {
+		if (GroupIO.isContainer(file)) {
+			streamContainer(file, group -> consumer, progress);
+			return;
+		}
+		progress.begin(file.length());
+		// FileHandler.createGroup() creates empty files, which are valid empty groups.
+		if (file.length() == 0 && file.isFile()) {
+			return;
+		}
+		// The tracking stream sits below the buffer and the decompression, so it only
+		// sees whole blocks of the file.
+		try (InputStream raw = progress.track(new FileInputStream(file));
+				InputStream in = decompress(raw, file)) {
+			parseFlashcards(in, file, consumer);
+		} catch (XMLStreamException xse) {
+			// The parser wraps the exception thrown by the tracking stream.
+			progress.checkCancelled();
+			throw xse;
+		}
+	}
+
+	/**
+	 * Streams the groups of a zip container to a consumer, one card at a time. The
+	 * entries get decompressed and parsed straight from the container, so nothing
+	 * gets extracted to the disk. Entries which aren't XML groups are skipped.
+	 * 
+	 * @param file     The zip container.
+	 * @param groups   Gets called with the name of every group, i.e. the name of
+	 *                 its entry without the extension, and returns the consumer
+	 *                 receiving the flashcards of the group in file order. Empty
+	 *                 groups get announced as well.
+	 * @param progress Counts the bytes read from the container and may cancel the
+	 *                 operation.
+	 * @throws IOException        If the container can't be read or the operation
+	 *                            got cancelled.
+	 * @throws XMLStreamException If a group isn't well-formed XML.
+	 */
+	public static void streamContainer(File file, Function<String, Consumer<Flashcard>> groups, Progress progress)
+			throws IOException, XMLStreamException {
+		progress.begin(file.length());
+		try (InputStream raw = progress.track(new FileInputStream(file));
+				ZipInputStream zip = new ZipInputStream(new BufferedInputStream(raw, BUFFER_SIZE),
+						StandardCharsets.UTF_8)) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				String name = entry.getName();
+				if (entry.isDirectory() || !name.toLowerCase(Locale.ROOT).endsWith(GroupIO.XML_EXTENSION)) {
+					continue;
+				}
+				Consumer<Flashcard> consumer = groups
+						.apply(name.substring(0, name.length() - GroupIO.XML_EXTENSION.length()));
+				// The parser closes its stream at the end of the document, which must not
+				// close the container before its next entry.
+				PushbackInputStream in = new PushbackInputStream(new FilterInputStream(zip) {
+					@Override
+					public void close() {
+					}
+				});
+				// Empty entries are empty groups, just like empty files.
+				int first = in.read();
+				if (first >= 0) {
+					in.unread(first);
+					parseFlashcards(in, file, consumer);
+				}
+			}
+		} catch (XMLStreamException xse) {
+			progress.checkCancelled();
+			throw xse;
+		}
+	}
+
+	/**
+	 * Writes several groups into a zip container through {@link AtomicFile}. Every
+	 * group becomes an entry named after it, holding the same XML as a group file.
+	 * 
+	 * @param groups   The flashcards of every group by the name of the group, in
+	 *                 the order the entries should be written.
+	 * @param file     The zip container.
+	 * @param progress Counts the written cards of each group and may cancel the
+	 *                 operation.
+	 * @throws IOException If the container couldn't be written or the operation
+	 *                     got cancelled. The old container is unchanged in that
+	 *                     case.
+	 */
+	public static void writeContainer(Map<String, ? extends Iterable<Flashcard>> groups, File file,
+			Progress progress) throws IOException {
+		AtomicFile.write(file, out -> {
+			ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+			// The writer produces tiny chunks, which the deflater should get in blocks.
+			OutputStream buffered = new BufferedOutputStream(zip, BUFFER_SIZE);
+			for (Map.Entry<String, ? extends Iterable<Flashcard>> group : groups.entrySet()) {
+				zip.putNextEntry(new ZipEntry(group.getKey() + GroupIO.XML_EXTENSION));
+				writeFlashcards(group.getValue(), buffered, progress);
+				buffered.flush();
+				zip.closeEntry();
+			}
+			// Finish, not close, as AtomicFile still has to force the file to the disk.
+			zip.finish();
+		});
+	}
+
+	/*
+	 * Gzip-compressed groups get decompressed on the fly, below the buffer the
+	 * parser reads from.
+	 */
+	private static InputStream decompress(InputStream in, File file) throws IOException {
+		if (GroupIO.isCompressed(file)) {
+			in = new GZIPInputStream(in, BUFFER_SIZE);
+		}
+		return new BufferedInputStream(in, BUFFER_SIZE);
+	}
+
+	/*
+	 * Parses a group document in a single pass, handing over every card as soon as
+	 * its closing tag is reached. The stream doesn't get closed.
+	 */
+	private static void parseFlashcards(InputStream in, File file, Consumer<Flashcard> consumer)
+			throws XMLStreamException {
+		// Two phases get measured: creating the parser, which reads the prolog, and
+		// parsing the cards.
+		Metrics.Span setup = Metrics.parse("setup", file);
+		XMLStreamReader reader;
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			// Group files never need a DTD, and we don't want to resolve external entities.
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			reader = factory.createXMLStreamReader(in);
+		} finally {
+			setup.close();
+		}
+		try (Metrics.Span parse = Metrics.parse("cards", file)) {
+			parse.bytes(file.length());
+			long cards = 0;
+			long id = 0;
+			String side1 = null;
+			String side2 = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if (name.equals("flashcard")) {
+						id = parseId(reader.getAttributeValue(null, "id"));
+						side1 = null;
+						side2 = null;
+					} else if (name.equals("side1")) {
+						// getElementText() joins text and CDATA, strip removes the indentation.
+						side1 = reader.getElementText().strip();
+					} else if (name.equals("side2")) {
+						side2 = reader.getElementText().strip();
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("flashcard")) {
+					consumer.accept(createFlashcard(id, side1 != null ? side1 : "", side2 != null ? side2 : ""));
+					parse.cards(++cards);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * The old DOM-based parser. It keeps the whole document in memory and is only
+	 * used if {@value #DOM_PROPERTY} is set or StAX isn't available.
+	 */
+	static List<Flashcard> readFlashcardListDOM(File file) throws IOException {
 		// The same procedure as last year?
 		// No wait, the same procedure as in above method ;-)
-		List<Flashcard> flashcards = new ArrayList<>();
+		FlashcardStore flashcards = new FlashcardStore();
+		// FileHandler.createGroup() creates empty files, which are valid empty groups.
+		if (file.length() == 0 && file.isFile()) {
+			return flashcards;
+		}
 		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
 		Document doc;
-		try {
+		try (InputStream in = decompress(new FileInputStream(file), file)) {
+			// Like the streaming parser: no DTD, no external entities.
+			dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
 			DocumentBuilder db = dbf.newDocumentBuilder();
-			doc = db.parse(path + File.separator + groupName + ".xml");
-			// Get the root element.
-			Element docEl = doc.getDocumentElement();
-			// Now get a list of all flashcard elements.
-			NodeList nl1 = docEl.getElementsByTagName("side1");
-			NodeList nl2 = docEl.getElementsByTagName("side2");
-			// Are there any nodes in there? (In that case, the nodes are the text values)
-			if (nl1.getLength() > 0 && nl1.item(0).hasChildNodes()) {
-				// Iterate over all elements with tag side1 and side2...
-				for (int i = 0; i < nl2.getLength(); i++) {
-					// strip is necessary to get rid of the indentation before the CDATA sections.
-					String s1 = nl1.item(i).getTextContent().strip();
-					String s2 = nl2.item(i).getTextContent().strip();
-					// Create a flashcard object and add it to the list.
-					Flashcard f = new Flashcard(s1, s2);
-					flashcards.add(f);
+			doc = db.parse(in);
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException(e.getLocalizedMessage(), e);
+		}
+		// Get the root element.
+		Element docEl = doc.getDocumentElement();
+		// Now get a list of all flashcard elements.
+		NodeList nl1 = docEl.getElementsByTagName("side1");
+		NodeList nl2 = docEl.getElementsByTagName("side2");
+		// Are there any nodes in there? (In that case, the nodes are the text values)
+		if (nl1.getLength() > 0 && nl1.item(0).hasChildNodes()) {
+			// Iterate over all elements with tag side1 and side2...
+			for (int i = 0; i < nl2.getLength(); i++) {
+				// strip is necessary to get rid of the indentation before the CDATA sections.
+				String s1 = nl1.item(i).getTextContent().strip();
+				String s2 = nl2.item(i).getTextContent().strip();
+				// The ID is an attribute of the surrounding flashcard element.
+				long id = parseId(((Element) nl1.item(i).getParentNode()).getAttribute("id"));
+				// Create a flashcard object and add it to the list.
+				Flashcard f = createFlashcard(id, s1, s2);
+				flashcards.add(f);
+			}
+		}
+		flashcards.trimToSize();
+		return flashcards;
+	}
+
+	/*
+	 * Groups saved before the cards had IDs don't have the attribute, so their
+	 * cards get new IDs. These cards count as modified until the IDs are saved.
+	 */
+	private static Flashcard createFlashcard(long id, String side1, String side2) {
+		return id > 0 ? new Flashcard(id, side1, side2) : new Flashcard(side1, side2);
+	}
+
+	// Returns 0 if the card has no (valid) ID.
+	private static long parseId(String value) {
+		if (value != null && !value.isEmpty()) {
+			try {
+				long id = Long.parseLong(value);
+				if (id > 0) {
+					return id;
 				}
+			} catch (NumberFormatException nfe) {
+				// Treat it like a missing ID.
 			}
-			return flashcards;
-		} catch (ParserConfigurationException pce) {
-			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
-			errorMB.setText("Ein Fehler ist aufgetreten:" + System.lineSeparator() + pce.getLocalizedMessage());
-			return null;
-		} catch (SAXException se) {
-			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
-			errorMB.setText("Ein Fehler ist aufgetreten:" + System.lineSeparator() + se.getLocalizedMessage());
-			return null;
-		} catch (IOException ioe) {
-			MessageBox errorMB = new MessageBox(shell, SWT.ICON_ERROR);
-			errorMB.setText("Ein Fehler ist aufgetreten:" + System.lineSeparator() + ioe.getLocalizedMessage());
-			return null;
 		}
+		return 0;
 	}
 }